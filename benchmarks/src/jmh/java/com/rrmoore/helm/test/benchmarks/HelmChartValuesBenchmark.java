@@ -0,0 +1,97 @@
+package com.rrmoore.helm.test.benchmarks;
+
+import com.rrmoore.helm.test.HelmChart;
+import com.rrmoore.helm.test.internal.helmvalues.HelmChartSchemaValueReader;
+import com.rrmoore.helm.test.internal.helmvalues.HelmChartValueScraper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HelmChartValuesBenchmark {
+
+    @Param({"10", "100"})
+    private int templateCount;
+
+    private final HelmChartValueScraper scraper = new HelmChartValueScraper();
+    private final HelmChartSchemaValueReader schemaReader = new HelmChartSchemaValueReader();
+
+    private Path chartDir;
+    private HelmChart chart;
+
+    @Setup
+    public void setUp() throws IOException {
+        chartDir = Files.createTempDirectory("helm-test-benchmark-chart-");
+        var templatesDir = Files.createDirectories(chartDir.resolve("templates"));
+        var schemaProperties = new StringBuilder();
+        for (int t = 0; t < templateCount; t++) {
+            Files.writeString(templatesDir.resolve("configmap-" + t + ".yaml"), """
+                apiVersion: v1
+                kind: ConfigMap
+                metadata:
+                  name: config-%d
+                data:
+                  first: {{ .Values.component%d.first | quote }}
+                  second: {{ ((.Values.component%d).nested).second | quote }}
+                  {{- if .Values.component%d.enabled }}
+                  enabled: "true"
+                  {{- end }}
+                """.formatted(t, t, t, t));
+            if (t > 0) {
+                schemaProperties.append(",\n");
+            }
+            schemaProperties.append("""
+                    "component%d": {
+                      "type": "object",
+                      "properties": {
+                        "first": {"type": "string"},
+                        "enabled": {"type": "boolean"},
+                        "nested": {"type": "object", "properties": {"second": {"type": "string"}}}
+                      }
+                    }""".formatted(t));
+        }
+        Files.writeString(chartDir.resolve("values.schema.json"), """
+            {
+              "$schema": "http://json-schema.org/draft-07/schema#",
+              "type": "object",
+              "properties": {
+            %s
+              }
+            }
+            """.formatted(schemaProperties));
+        chart = new HelmChart(chartDir.toFile());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (var paths = Files.walk(chartDir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public TreeSet<String> readValuesFromTemplates() {
+        return scraper.readValues(chart);
+    }
+
+    @Benchmark
+    public TreeSet<String> readValuesFromSchemaFile() {
+        return schemaReader.readValuesFromSchemaFile(chart.getSchemaFile());
+    }
+}
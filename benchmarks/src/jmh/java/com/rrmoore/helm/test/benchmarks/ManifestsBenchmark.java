@@ -0,0 +1,48 @@
+package com.rrmoore.helm.test.benchmarks;
+
+import com.rrmoore.helm.test.Manifests;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ManifestsBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int objectCount;
+
+    @Param({"4", "64"})
+    private int dataEntriesPerObject;
+
+    private String yaml;
+    private Manifests manifests;
+
+    @Setup
+    public void setUp() {
+        yaml = SyntheticManifests.yaml(objectCount, dataEntriesPerObject);
+        manifests = Manifests.fromYaml(yaml);
+    }
+
+    @Benchmark
+    public Manifests fromYaml() {
+        return Manifests.fromYaml(yaml);
+    }
+
+    @Benchmark
+    public Object getOneConfigMap() {
+        return manifests.getConfigMap("config-0");
+    }
+
+    @Benchmark
+    public boolean equalsOtherRendering() {
+        return manifests.equals(Manifests.fromYaml(yaml));
+    }
+}
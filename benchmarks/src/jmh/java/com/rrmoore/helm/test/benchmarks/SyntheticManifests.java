@@ -0,0 +1,136 @@
+package com.rrmoore.helm.test.benchmarks;
+
+/**
+ * Generates `helm template`-like output, so that benchmarks don't depend on a Helm executable.
+ */
+final class SyntheticManifests {
+
+    private SyntheticManifests() {
+    }
+
+    /**
+     * @return YAML for the given number of objects, cycling through Deployments, ConfigMaps, Secrets and Services.
+     */
+    static String yaml(int objectCount, int dataEntriesPerObject) {
+        var yaml = new StringBuilder();
+        for (int i = 0; i < objectCount; i++) {
+            switch (i % 4) {
+                case 0 -> yaml.append(deployment("workload-" + i, 2));
+                case 1 -> yaml.append(configMap("config-" + (i - 1), dataEntriesPerObject));
+                case 2 -> yaml.append(secret("secret-" + (i - 2), dataEntriesPerObject));
+                default -> yaml.append(service("service-" + i));
+            }
+        }
+        return yaml.toString();
+    }
+
+    static String deployment(String name, int containerCount) {
+        var containers = new StringBuilder();
+        for (int c = 0; c < containerCount; c++) {
+            containers.append("""
+                        - name: container-%d
+                          image: "registry.example.com/app:1.2.%d"
+                          imagePullPolicy: IfNotPresent
+                          env:
+                            - name: FROM_CONFIG
+                              valueFrom:
+                                configMapKeyRef:
+                                  name: %s-config
+                                  key: value
+                            - name: FROM_SECRET
+                              valueFrom:
+                                secretKeyRef:
+                                  name: %s-secret
+                                  key: value
+                          envFrom:
+                            - configMapRef:
+                                name: %s-config
+                          resources:
+                            limits:
+                              cpu: 500m
+                              memory: 256Mi
+                """.formatted(c, c, name, name, name));
+        }
+        return """
+            ---
+            # Source: synthetic/templates/deployment.yaml
+            apiVersion: apps/v1
+            kind: Deployment
+            metadata:
+              name: %s
+              labels:
+                app.kubernetes.io/name: %s
+                app.kubernetes.io/managed-by: Helm
+            spec:
+              replicas: 2
+              selector:
+                matchLabels:
+                  app.kubernetes.io/name: %s
+              template:
+                metadata:
+                  labels:
+                    app.kubernetes.io/name: %s
+                  annotations:
+                    checksum/%s-config: 0123456789abcdef
+                    checksum/%s-secret: 0123456789abcdef
+                spec:
+                  imagePullSecrets:
+                    - name: registry-credentials
+                  volumes:
+                    - name: config
+                      configMap:
+                        name: %s-config
+                  containers:
+            %s""".formatted(name, name, name, name, name, name, name, containers);
+    }
+
+    static String configMap(String name, int dataEntries) {
+        var data = new StringBuilder();
+        for (int d = 0; d < dataEntries; d++) {
+            data.append("  key-").append(d).append(": \"value-").append(d).append("\"\n");
+        }
+        return """
+            ---
+            # Source: synthetic/templates/configmap.yaml
+            apiVersion: v1
+            kind: ConfigMap
+            metadata:
+              name: %s
+            data:
+            %s""".formatted(name, data);
+    }
+
+    static String secret(String name, int dataEntries) {
+        var data = new StringBuilder();
+        for (int d = 0; d < dataEntries; d++) {
+            data.append("  key-").append(d).append(": dmFsdWU=\n");
+        }
+        return """
+            ---
+            # Source: synthetic/templates/secret.yaml
+            apiVersion: v1
+            kind: Secret
+            metadata:
+              name: %s
+            type: Opaque
+            data:
+            %s""".formatted(name, data);
+    }
+
+    static String service(String name) {
+        return """
+            ---
+            # Source: synthetic/templates/service.yaml
+            apiVersion: v1
+            kind: Service
+            metadata:
+              name: %s
+            spec:
+              selector:
+                app.kubernetes.io/name: %s
+              ports:
+                - port: 80
+                  targetPort: 8080
+            """.formatted(name, name);
+    }
+}
@@ -0,0 +1,51 @@
+package com.rrmoore.helm.test.benchmarks;
+
+import com.rrmoore.helm.test.Manifests;
+import com.rrmoore.helm.test.Workload;
+import io.kubernetes.client.openapi.models.V1Container;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WorkloadBenchmark {
+
+    @Param({"1", "8", "32"})
+    private int containerCount;
+
+    private Manifests manifests;
+    private Workload workload;
+
+    @Setup
+    public void setUp() {
+        manifests = Manifests.fromYaml(SyntheticManifests.deployment("benchmark", containerCount));
+        workload = manifests.getWorkload("Deployment", "benchmark");
+    }
+
+    @Benchmark
+    public List<V1Container> containers() {
+        return workload.containers();
+    }
+
+    /**
+     * Each Workload binds its pod spec once, so this measures the binding, unlike {@link #containers()}.
+     */
+    @Benchmark
+    public List<V1Container> bindContainers() {
+        return manifests.getWorkload("Deployment", "benchmark").containers();
+    }
+
+    @Benchmark
+    public Workload.VerifyChecksumAnnotationsResult verifyChecksumAnnotations() {
+        return workload.verifyChecksumAnnotations();
+    }
+}
@@ -0,0 +1,50 @@
+package com.rrmoore.helm.test.benchmarks;
+
+import com.rrmoore.helm.test.internal.jdkext.YamlMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class YamlMapBenchmark {
+
+    @Param({"1", "8", "32"})
+    private int containerCount;
+
+    private YamlMap deployment;
+
+    @Setup
+    public void setUp() {
+        deployment = new YamlMap(SyntheticManifests.deployment("benchmark", containerCount));
+    }
+
+    @Benchmark
+    public Optional<Object> getNestedShallow() {
+        return deployment.getNested("metadata.name");
+    }
+
+    @Benchmark
+    public Optional<Object> getNestedDeep() {
+        return deployment.getNested("spec.template.metadata.annotations");
+    }
+
+    @Benchmark
+    public Optional<YamlMap> getNestedObject() {
+        return deployment.getNestedObject("spec.template.spec");
+    }
+
+    @Benchmark
+    public Optional<List<Object>> getNestedList() {
+        return deployment.getNestedList("spec.template.spec.containers");
+    }
+}
@@ -45,11 +45,18 @@ class HelmTestJavaPlugin : Plugin<Project> {
 
         extension.helmExecutable.convention(expandHelmExecutable.zip(extension.platformIdentifier) { task, platformIdentifier -> task.destinationDir.resolve("$platformIdentifier/helm") })
 
+        extension.renderCacheDirectory.convention(project.layout.buildDirectory.dir("helm/render-cache"))
+
         project.tasks.withType(Test::class.java) { testTask ->
             testTask.jvmArgumentProviders += FileArgumentProvider(
                 "com.rrmoore.helm.test.executable.path",
                 extension.helmExecutable
             )
+            testTask.jvmArgumentProviders += RenderCacheArgumentProvider(
+                "com.rrmoore.helm.test.render.cache.path",
+                extension.renderCacheEnabled,
+                extension.renderCacheDirectory
+            )
         }
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.rrmoore.gradle.helm.test
 
 import java.io.File
 import javax.inject.Inject
+import org.gradle.api.file.DirectoryProperty
 import org.gradle.api.model.ObjectFactory
 import org.gradle.api.provider.Property
 import org.gradle.api.provider.Provider
@@ -30,6 +31,18 @@ abstract class HelmToolchainExtension @Inject constructor(objects: ObjectFactory
      */
     val helmExecutable: Property<File> = objects.property(File::class.java)
 
+    /**
+     * Whether test processes should share a persistent cache of `helm template` renderings, stored in [renderCacheDirectory].
+     * Cached renderings are reused across test forks and across builds, until the directory is deleted. Disabled by default.
+     */
+    val renderCacheEnabled: Property<Boolean> = objects.property(Boolean::class.java).convention(false)
+
+    /**
+     * The directory in which cached `helm template` renderings are stored, if [renderCacheEnabled] is set.
+     * Defaults to `helm/render-cache` in the build directory.
+     */
+    val renderCacheDirectory: DirectoryProperty = objects.directoryProperty()
+
     companion object {
 
         /**
@@ -0,0 +1,27 @@
+package com.rrmoore.gradle.helm.test
+
+import org.gradle.api.file.Directory
+import org.gradle.api.provider.Provider
+import org.gradle.api.tasks.Input
+import org.gradle.api.tasks.Internal
+import org.gradle.process.CommandLineArgumentProvider
+
+/**
+ * Passes the render cache directory to the test process, if the render cache is enabled.
+ *
+ * The directory is not a task input or output, because its contents have no effect on test results.
+ */
+class RenderCacheArgumentProvider(
+    @Input val propertyName: String,
+    @Input val enabled: Provider<Boolean>,
+    @Internal val directory: Provider<Directory>
+) : CommandLineArgumentProvider {
+
+    override fun asArguments(): Iterable<String?> {
+        return if (enabled.get()) {
+            listOf("-D$propertyName=${directory.get().asFile.path}")
+        } else {
+            listOf()
+        }
+    }
+}
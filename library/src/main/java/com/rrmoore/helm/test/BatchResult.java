@@ -0,0 +1,37 @@
+package com.rrmoore.helm.test;
+
+import java.util.List;
+
+/**
+ * The result of one rendering in a batch, tied to the values it was rendered with.
+ *
+ * @param index       The position of the values in the batch.
+ * @param valuesYamls The YAML-formatted values that were rendered.
+ * @param result      The result of the rendering, or null if it failed.
+ * @param failure     The reason the rendering failed, or null if it succeeded.
+ */
+public record BatchResult<T>(int index, List<String> valuesYamls, T result, RuntimeException failure) {
+
+    static <T> BatchResult<T> success(int index, List<String> valuesYamls, T result) {
+        return new BatchResult<>(index, valuesYamls, result, null);
+    }
+
+    static <T> BatchResult<T> failure(int index, List<String> valuesYamls, RuntimeException failure) {
+        return new BatchResult<>(index, valuesYamls, null, failure);
+    }
+
+    public boolean succeeded() {
+        return failure == null;
+    }
+
+    /**
+     * @return The result of the rendering.
+     * @throws RuntimeException the reason the rendering failed, if it did.
+     */
+    public T get() {
+        if (failure != null) {
+            throw failure;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,45 @@
+package com.rrmoore.helm.test;
+
+import com.rrmoore.helm.test.internal.jdkext.GoJson;
+import com.rrmoore.helm.test.internal.jdkext.Sha256Sum;
+
+/**
+ * Computes the checksum which a workload's checksum annotation is expected to have for a ConfigMap or Secret that it
+ * references, reproducing how the chart computes it. See
+ * {@link Workload#verifyChecksumAnnotations(Manifests, ChecksumStrategy)}.
+ * <p>
+ * Implementations are used as keys to cache the checksums of each Manifests, so should be reused rather than created
+ * for each verification.
+ */
+@FunctionalInterface
+public interface ChecksumStrategy {
+
+    /**
+     * Reproduces `{{ include (print $.Template.BasePath "/configmap.yaml") . | sha256sum }}`, where the included
+     * template renders only the referenced object and ends with a newline, as template files conventionally do.
+     */
+    ChecksumStrategy RENDERED_TEMPLATE = renderedObject -> renderedObject.renderedText()
+        .map(text -> sha256sum(text + "\n"))
+        .orElse(null);
+
+    /**
+     * Reproduces `{{ .Values.config | toJson | sha256sum }}`, where the object's data is rendered from those values
+     * with `toYaml`, so that the checksum of the data in the rendered object is the checksum of the values.
+     */
+    ChecksumStrategy DATA_JSON = renderedObject -> renderedObject.yamlMap().getNested("data")
+        .map(data -> sha256sum(GoJson.encode(data)))
+        .orElse(null);
+
+    /**
+     * @return The expected checksum of the rendered ConfigMap or Secret, or null if it cannot be computed, in which case
+     * the annotations for it are not verified.
+     */
+    String checksum(RenderedKubernetesObject renderedObject);
+
+    /**
+     * @return The lowercase hexadecimal SHA-256 digest of the UTF-8 encoding of the text, like Helm's sha256sum.
+     */
+    static String sha256sum(String text) {
+        return Sha256Sum.of(text);
+    }
+}
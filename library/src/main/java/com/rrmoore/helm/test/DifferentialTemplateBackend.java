@@ -0,0 +1,66 @@
+package com.rrmoore.helm.test;
+
+import java.util.List;
+
+/**
+ * Renders every request with both a reference backend and a candidate backend, and fails if they disagree.
+ * The reference backend's result is returned.
+ * <p>
+ * This is intended for verifying an alternative backend against the `helm` executable, by running an existing test
+ * suite with a HelmExecutor that uses
+ * {@code new DifferentialTemplateBackend(helm.helmBinaryBackend(), new JvmTemplateBackend())}.
+ */
+public class DifferentialTemplateBackend implements TemplateBackend {
+
+    private final TemplateBackend reference;
+    private final TemplateBackend candidate;
+
+    public DifferentialTemplateBackend(TemplateBackend reference, TemplateBackend candidate) {
+        this.reference = reference;
+        this.candidate = candidate;
+    }
+
+    @Override
+    public String identity() {
+        return "differential(" + reference.identity() + ", " + candidate.identity() + ")";
+    }
+
+    /**
+     * @throws IllegalStateException if the backends render different Manifests, or if only one of them fails.
+     */
+    @Override
+    public Manifests template(HelmChart chart, List<String> valuesYamls) {
+        Manifests expected;
+        try {
+            expected = reference.template(chart, valuesYamls);
+        } catch (RuntimeException referenceFailure) {
+            try {
+                candidate.template(chart, valuesYamls);
+            } catch (RuntimeException candidateFailure) {
+                referenceFailure.addSuppressed(candidateFailure);
+                throw referenceFailure;
+            }
+            throw new IllegalStateException("Backend '" + candidate.identity() + "' rendered successfully, but the reference backend '" + reference.identity() + "' failed.", referenceFailure);
+        }
+
+        var actual = candidate.template(chart, valuesYamls);
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException("Backend '" + candidate.identity() + "' rendered different Manifests to the reference backend '" + reference.identity() + "'.\n" +
+                "Expected: " + expected + "\n" +
+                "Actual: " + actual);
+        }
+        return expected;
+    }
+
+    /**
+     * Only the fact that rendering fails is compared, since the error messages of different backends are not expected to match.
+     *
+     * @throws RuntimeException if either backend renders successfully.
+     */
+    @Override
+    public String templateError(HelmChart chart, List<String> valuesYamls) {
+        var expected = reference.templateError(chart, valuesYamls);
+        candidate.templateError(chart, valuesYamls);
+        return expected;
+    }
+}
@@ -1,9 +1,17 @@
 package com.rrmoore.helm.test;
 
+import com.rrmoore.helm.test.internal.jdkext.CountingInputStream;
 import com.rrmoore.helm.test.internal.jdkext.Exceptions;
+import com.rrmoore.helm.test.internal.rendering.DiskRenderStore;
+import com.rrmoore.helm.test.internal.rendering.RenderFingerprint;
+import com.rrmoore.helm.test.internal.rendering.ValuesFileStore;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.time.Duration;
 import java.time.Instant;
@@ -11,19 +19,48 @@ import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 
 /**
  * Wraps the Helm executable in a usable interface for writing automated tests.
+ * <p>
+ * HelmExecutor is thread-safe, so one instance can be shared between tests running in parallel. The number of `helm`
+ * processes running at the same time across the JVM is limited by {@link HelmProcessLimiter}.
  */
-public class HelmExecutor {
+public class HelmExecutor implements AutoCloseable {
 
     private final File helmExecutable;
     private final HelmChart chart;
 
+    // `helm version` is run at most once per JVM for each Helm executable, to identify it in render cache keys.
+    private static final ConcurrentHashMap<String, String> HELM_VERSIONS = new ConcurrentHashMap<>();
+
+    private final ValuesFileStore valuesFiles = new ValuesFileStore();
+
+    private final List<HelmInvocationListener> listeners = new CopyOnWriteArrayList<>(
+        HelmInvocationStatistics.isSharedEnabled() ? List.of(HelmInvocationStatistics.shared()) : List.of());
+
+    private volatile Duration timeout = Duration.ofSeconds(10);
+    private volatile int batchParallelism = Runtime.getRuntime().availableProcessors();
+    private volatile TemplateBackend templateBackend;
+    private volatile RenderCache renderCache;
+    private volatile DiskRenderStore diskRenderStore = DiskRenderStore.fromSystemProperty();
+    private volatile ManifestsParser manifestsParser = new ManifestsParser();
+
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("uuuuMMddHHmmss");
     private final ZonedDateTime initTimestamp = Instant.now().atZone(ZoneOffset.UTC);
 
@@ -77,6 +114,100 @@ public class HelmExecutor {
         this(helmExecutable, new HelmChart(chart));
     }
 
+    /**
+     * Registers a listener which receives an event describing each `helm` process run by this executor.
+     *
+     * @return This executor.
+     */
+    public HelmExecutor withListener(HelmInvocationListener listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Sets how long each `helm` process run by this executor may take before it is destroyed, and a
+     * {@link HelmTimeoutException} is thrown. Time spent waiting for {@link HelmProcessLimiter} to allow the process
+     * to start is not included. Defaults to 10 seconds.
+     *
+     * @return This executor.
+     */
+    public HelmExecutor withTimeout(Duration timeout) {
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Timeout must be positive, but was " + timeout);
+        }
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of renderings that {@link #templateAll(Collection)} and {@link #templateErrorAll(Collection)}
+     * run at the same time. Defaults to the number of available processors.
+     *
+     * @return This executor.
+     */
+    public HelmExecutor withBatchParallelism(int batchParallelism) {
+        if (batchParallelism < 1) {
+            throw new IllegalArgumentException("Batch parallelism must be at least 1, but was " + batchParallelism);
+        }
+        this.batchParallelism = batchParallelism;
+        return this;
+    }
+
+    /**
+     * Makes this executor parse the output of `helm template` using the given parser, e.g. to control when large
+     * outputs are parsed in parallel, and on which executor.
+     *
+     * @return This executor.
+     */
+    public HelmExecutor withManifestsParser(ManifestsParser manifestsParser) {
+        this.manifestsParser = manifestsParser;
+        return this;
+    }
+
+    /**
+     * Makes this executor render templates using the given backend, instead of running the `helm` executable.
+     * A {@link RenderCache} applies to renderings from any backend, but a render cache directory is only used when
+     * running the `helm` executable.
+     *
+     * @return This executor.
+     */
+    public HelmExecutor withTemplateBackend(TemplateBackend templateBackend) {
+        this.templateBackend = templateBackend;
+        return this;
+    }
+
+    /**
+     * @return A backend which renders templates by running the `helm` executable of this executor, without any caching.
+     * This is the reference backend, which other backends can be compared against using {@link DifferentialTemplateBackend}.
+     */
+    public TemplateBackend helmBinaryBackend() {
+        return new HelmBinaryBackend();
+    }
+
+    /**
+     * Makes this executor serve `helm template` renderings from the given cache, and store new renderings in it.
+     * The same cache can be shared between many executors.
+     *
+     * @return This executor.
+     */
+    public HelmExecutor withRenderCache(RenderCache renderCache) {
+        this.renderCache = renderCache;
+        return this;
+    }
+
+    /**
+     * Makes this executor store `helm template` renderings in the given directory, and serve them from there when they
+     * are requested again. The directory can be shared by concurrently running JVMs.
+     * <p>
+     * This is set automatically from a JVM system property when the render cache is enabled in the helm-test-java Gradle plugin.
+     *
+     * @return This executor.
+     */
+    public HelmExecutor withRenderCacheDirectory(File directory) {
+        this.diskRenderStore = new DiskRenderStore(directory.toPath());
+        return this;
+    }
+
     /**
      * Runs `helm version`
      */
@@ -90,7 +221,7 @@ public class HelmExecutor {
      * @return Parsed, rendered Kubernetes manifests.
      */
     public Manifests template() {
-        return executeHelmTemplate(List.of());
+        return template(List.of());
     }
 
     /**
@@ -108,7 +239,39 @@ public class HelmExecutor {
      * @return Parsed, rendered Kubernetes manifests.
      */
     public Manifests template(List<String> valuesYamls) {
-        return executeHelmTemplate(templateValuesArgs(valuesYamls));
+        return template(valuesYamls, timeout);
+    }
+
+    /**
+     * Runs `helm template`, passing in all the provided YAML-formatted values, with the given timeout instead of the
+     * executor's timeout. The timeout does not apply to renderings by a {@link TemplateBackend}.
+     * <p>
+     * If the calling thread is interrupted, for example by cancelling a Future, the `helm` process and any processes
+     * it started are destroyed.
+     *
+     * @return Parsed, rendered Kubernetes manifests.
+     * @throws HelmTimeoutException if `helm` does not finish within the timeout.
+     */
+    public Manifests template(List<String> valuesYamls, Duration timeout) {
+        var backend = templateBackend;
+        var cache = renderCache;
+        if (backend != null) {
+            if (cache == null) {
+                return backend.template(chart, valuesYamls);
+            }
+            var key = RenderFingerprint.of(backend.identity(), chart.getFile(), valuesYamls);
+            return cache.get(key, () -> backend.template(chart, valuesYamls));
+        }
+
+        var store = diskRenderStore;
+        if (cache == null && store == null) {
+            return executeHelmTemplate(chart, valuesYamls, UnaryOperator.identity(), timeout);
+        }
+        var key = RenderFingerprint.of(helmVersion(), chart.getFile(), valuesYamls);
+        Supplier<Manifests> render = store == null
+            ? () -> executeHelmTemplate(chart, valuesYamls, UnaryOperator.identity(), timeout)
+            : () -> store.get(key, manifestsParser, outputTee -> executeHelmTemplate(chart, valuesYamls, outputTee, timeout));
+        return cache == null ? render.get() : cache.get(key, render);
     }
 
     /**
@@ -126,82 +289,314 @@ public class HelmExecutor {
      * @return The error output of the `helm` process.
      */
     public String templateError(List<String> valuesYamls) {
-        var helmArgs = new ArrayList<>(List.of("template", chart.getFile().getAbsolutePath()));
-        helmArgs.addAll(templateValuesArgs(valuesYamls));
-        return executeHelmForError(helmArgs);
+        return templateError(valuesYamls, timeout);
     }
 
-    private List<String> templateValuesArgs(List<String> valuesYamls) {
-        var timestamp = formatter.format(initTimestamp);
-        return valuesYamls.stream()
-            .flatMap(valuesYaml -> {
-                var valuesFile = Exceptions.uncheck(() -> File.createTempFile("helm-test-values-yaml-" + timestamp + "-", ".yaml"));
-                Exceptions.uncheck(() -> Files.writeString(valuesFile.toPath(), valuesYaml));
-                return Stream.of("--values", valuesFile.getAbsolutePath());
-            })
-            .toList();
+    /**
+     * Runs `helm template`, passing in all the provided YAML-formatted values, with the expectation that it will fail,
+     * and with the given timeout instead of the executor's timeout. The timeout does not apply to renderings by a
+     * {@link TemplateBackend}.
+     *
+     * @return The error output of the `helm` process.
+     * @throws HelmTimeoutException if `helm` does not finish within the timeout.
+     */
+    public String templateError(List<String> valuesYamls, Duration timeout) {
+        var backend = templateBackend;
+        if (backend != null) {
+            return backend.templateError(chart, valuesYamls);
+        }
+        return executeHelmTemplateError(chart, valuesYamls, timeout);
+    }
+
+    /**
+     * Runs `helm template` for each of the provided sets of YAML-formatted values, running up to the configured
+     * batch parallelism (see {@link #withBatchParallelism(int)}) of them at the same time.
+     * <p>
+     * A failure to render one set of values does not affect the others. Instead, it is reported in its result.
+     *
+     * @return The result of each rendering, in the order in which they complete.
+     */
+    public Stream<BatchResult<Manifests>> templateAll(Collection<List<String>> valuesSets) {
+        return executeBatch(valuesSets, this::template);
+    }
+
+    /**
+     * Runs `helm template` for each of the provided sets of YAML-formatted values, with the expectation that each of
+     * them will fail, running up to the configured batch parallelism (see {@link #withBatchParallelism(int)}) of them
+     * at the same time.
+     *
+     * @return The error output of each rendering, in the order in which they complete. If a rendering unexpectedly
+     * succeeds, this is reported as the failure in its result.
+     */
+    public Stream<BatchResult<String>> templateErrorAll(Collection<List<String>> valuesSets) {
+        return executeBatch(valuesSets, this::templateError);
+    }
+
+    private <T> Stream<BatchResult<T>> executeBatch(Collection<List<String>> valuesSets, Function<List<String>, T> render) {
+        var permits = new Semaphore(batchParallelism);
+        var executor = Executors.newVirtualThreadPerTaskExecutor();
+        var completions = new ExecutorCompletionService<BatchResult<T>>(executor);
+        int index = 0;
+        for (List<String> valuesYamls : valuesSets) {
+            int valuesIndex = index++;
+            completions.submit(() -> {
+                permits.acquire();
+                try {
+                    return BatchResult.success(valuesIndex, valuesYamls, render.apply(valuesYamls));
+                } catch (RuntimeException e) {
+                    return BatchResult.failure(valuesIndex, valuesYamls, e);
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+        executor.shutdown();
+        return Stream.generate(() -> Exceptions.uncheck(() -> completions.take().get()))
+            .limit(valuesSets.size())
+            .onClose(executor::shutdownNow);
+    }
+
+    /**
+     * Deletes the files this executor has written values YAMLs to. The executor can still be used afterward.
+     */
+    @Override
+    public void close() {
+        valuesFiles.close();
     }
 
-    private Manifests executeHelmTemplate(List<String> args) {
-        var helmArgs = new ArrayList<>(List.of("template", chart.getFile().getAbsolutePath()));
-        helmArgs.addAll(args);
-        var output = executeHelmForOutput(helmArgs);
-        return Manifests.fromYaml(output);
+    /**
+     * Builds the arguments for passing values YAMLs to `helm`, without writing to disk where possible.
+     * A single values YAML is passed on stdin. Multiple values YAMLs are written to content-addressed files,
+     * which are reused whenever the same values YAML is passed again.
+     */
+    private TemplateCommand templateCommand(HelmChart chart, List<String> valuesYamls) {
+        var args = new ArrayList<>(List.of("template", chart.getFile().getAbsolutePath()));
+        if (valuesYamls.size() == 1) {
+            args.addAll(List.of("--values", "-"));
+            return new TemplateCommand(args, valuesYamls.getFirst());
+        }
+        for (String valuesYaml : valuesYamls) {
+            args.addAll(List.of("--values", valuesFiles.fileFor(valuesYaml).toAbsolutePath().toString()));
+        }
+        return new TemplateCommand(args, null);
+    }
+
+    private String helmVersion() {
+        var executableIdentity = helmExecutable.getAbsolutePath() + ":" + helmExecutable.length() + ":" + helmExecutable.lastModified();
+        return HELM_VERSIONS.computeIfAbsent(executableIdentity, ignored -> version());
+    }
+
+    private Manifests executeHelmTemplate(HelmChart chart, List<String> valuesYamls, UnaryOperator<BufferedReader> outputTee, Duration timeout) {
+        var command = templateCommand(chart, valuesYamls);
+        var parseNanos = new AtomicLong();
+        return executeHelm(command.args(), command.stdin(), reader -> manifestsParser.parse(outputTee.apply(reader), parseNanos), parseNanos, true, timeout).stdout();
     }
 
     private String executeHelmForOutput(List<String> args) {
-        return executeHelm(args, Process::inputReader, true).stdout();
+        return executeHelm(args, null, HelmExecutor::readAll, null, true, timeout).stdout();
     }
 
-    private String executeHelmForError(List<String> args) {
-        return executeHelm(args, Process::errorReader, false).stderr();
+    private String executeHelmTemplateError(HelmChart chart, List<String> valuesYamls, Duration timeout) {
+        var command = templateCommand(chart, valuesYamls);
+        var output = executeHelm(command.args(), command.stdin(), this::spillUnexpectedManifests, null, false, timeout);
+        if (output.exitCode() == 0) {
+            var unexpectedManifests = output.stdout() != null ? output.stdout() : createUnexpectedManifestsFile();
+            throw new RuntimeException("Command '" + String.join(" ", output.command()) + "' unexpectedly finished with exit code 0. Manifests written to file '" + unexpectedManifests.getAbsolutePath() + "'");
+        }
+        if (output.stdout() != null) {
+            Exceptions.uncheck(() -> Files.deleteIfExists(output.stdout().toPath()));
+        }
+        return output.stderr();
     }
 
-    private StdProcessOutput executeHelm(List<String> args, Function<Process, BufferedReader> processReader, boolean expectSuccess) {
+    /**
+     * Streams any output into a file as it is read, rather than into memory, because the output of a rendering which
+     * unexpectedly succeeds may be very large.
+     *
+     * @return The file containing the output, or null if there was no output.
+     */
+    private File spillUnexpectedManifests(BufferedReader reader) {
+        int first = Exceptions.uncheck(() -> reader.read());
+        if (first == -1) {
+            return null;
+        }
+        var unexpectedManifests = createUnexpectedManifestsFile();
+        try (var writer = Files.newBufferedWriter(unexpectedManifests.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(first);
+            reader.transferTo(writer);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write Manifests to file '" + unexpectedManifests.getAbsolutePath() + "'", e);
+        }
+        return unexpectedManifests;
+    }
+
+    private File createUnexpectedManifestsFile() {
+        var timestamp = formatter.format(initTimestamp);
+        return Exceptions.uncheck(() -> File.createTempFile("helm-test-unexpected-success-" + timestamp + "-", ".yaml"));
+    }
+
+    /**
+     * Runs the Helm executable with the given arguments.
+     * <p>
+     * Stdout and stderr are drained concurrently on virtual threads while the process is running, so that a large
+     * rendering can never fill the OS pipe buffer and block the `helm` process. Stdout is handed to the given reader
+     * function as it arrives, which lets callers parse the output while it is still being produced.
+     *
+     * <p>
+     * If the process does not finish within the timeout, or the calling thread is interrupted while waiting for it,
+     * the process and all of its descendants are destroyed.
+     *
+     * @param stdin      Content to write to the standard input of the process, or null to close it immediately.
+     * @param parseNanos The counter to which the stdout reader adds the time it spends parsing, or null if it doesn't
+     *                   parse, which is reported to listeners.
+     */
+    private <T> StdProcessOutput<T> executeHelm(List<String> args, String stdin, Function<BufferedReader, T> stdoutReader, AtomicLong parseNanos, boolean expectSuccess, Duration timeout) {
         var command = new ArrayList<>(List.of(helmExecutable.getAbsolutePath()));
         command.addAll(args);
-        BufferedReader inputReader = null;
-        BufferedReader errorReader = null;
         try {
+            HelmProcessLimiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting to run command '" + String.join(" ", command) + "'", e);
+        }
+        try (var drainers = Executors.newVirtualThreadPerTaskExecutor()) {
+            long spawnStart = System.nanoTime();
             var process = new ProcessBuilder(command).start();
-            process.waitFor(Duration.ofSeconds(10));
-            inputReader = process.inputReader();
-            errorReader = process.errorReader();
-            var stdout = String.join("\n", inputReader.readAllLines());
-            var stderr = String.join("\n", errorReader.readAllLines());
-            inputReader.close();
-            errorReader.close();
-
-            int exitCode = process.exitValue();
-            if (exitCode != 0 && expectSuccess) {
-                throw new RuntimeException("Command '" + String.join(" ", command) + "' finished with exit code " + exitCode + ". Error output: " + stderr);
-            } else if (exitCode == 0 && !expectSuccess) {
-                var timestamp = formatter.format(initTimestamp);
-                var unexpectedManifests = Exceptions.uncheck(() -> File.createTempFile("helm-test-unexpected-success-" + timestamp + "-", ".yaml"));
-                Exceptions.uncheck(() -> Files.writeString(unexpectedManifests.toPath(), stdout));
-                throw new RuntimeException("Command '" + String.join(" ", command) + "' unexpectedly finished with exit code 0. Manifests written to file '" + unexpectedManifests.getAbsolutePath() + "'");
-            }
-
-            return new StdProcessOutput(stdout, stderr);
-        } catch (IOException | InterruptedException e) {
+            long renderStart = System.nanoTime();
+            // Closing the drainers waits for them to finish reading the process's output, so if anything fails while
+            // the process may still be running, it must be destroyed here, before they are closed.
+            boolean finished = false;
             try {
-                if (inputReader != null) {
-                    inputReader.close();
+                drainers.submit(() -> {
+                    try (var writer = process.outputWriter(StandardCharsets.UTF_8)) {
+                        if (stdin != null) {
+                            writer.write(stdin);
+                        }
+                    }
+                    return null;
+                });
+                var stdoutBytes = new CountingInputStream(process.getInputStream());
+                var stderrBytes = new CountingInputStream(process.getErrorStream());
+                var stdout = drainers.submit(() -> drain(utf8Reader(stdoutBytes), stdoutReader));
+                var stderr = drainers.submit(() -> drain(utf8Reader(stderrBytes), HelmExecutor::readAll));
+
+                if (!process.waitFor(timeout)) {
+                    throw new HelmTimeoutException(command, timeout);
                 }
-            } catch (IOException ie) {
-                e.addSuppressed(ie);
-            }
-            try {
-                if (errorReader != null) {
-                    errorReader.close();
+                long drainStart = System.nanoTime();
+
+                int exitCode = process.exitValue();
+                var stderrOutput = stderr.get();
+                var stdoutOutput = awaitQuietly(stdout);
+                long drainEnd = System.nanoTime();
+                finished = true;
+                notifyListeners(command, exitCode, stdoutOutput, parseNanos, spawnStart, renderStart, drainStart, drainEnd, stdoutBytes.getCount(), stderrBytes.getCount());
+
+                if (exitCode != 0 && expectSuccess) {
+                    throw new RuntimeException("Command '" + String.join(" ", command) + "' finished with exit code " + exitCode + ". Error output: " + stderrOutput);
                 }
-            } catch (IOException ie) {
-                e.addSuppressed(ie);
+
+                return new StdProcessOutput<>(command, exitCode, stdout.get(), stderrOutput);
+            } finally {
+                if (!finished) {
+                    destroyProcessTree(process);
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
             }
+            throw new RuntimeException("Helm execution failed for command '" + String.join(" ", command) + "'", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while running command '" + String.join(" ", command) + "'", e);
+        } catch (IOException e) {
             throw new RuntimeException("Helm execution failed for command '" + String.join(" ", command) + "'", e);
+        } finally {
+            HelmProcessLimiter.release();
+        }
+    }
+
+    /**
+     * @return The result of the future, or null if it failed.
+     */
+    private static <T> T awaitQuietly(Future<T> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            return null;
         }
     }
 
-    private record StdProcessOutput(String stdout, String stderr) {
+    private void notifyListeners(List<String> command, int exitCode, Object stdout, AtomicLong parseNanos, long spawnStart, long renderStart, long drainStart, long drainEnd, long stdoutBytes, long stderrBytes) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        var manifests = stdout instanceof Manifests it ? it : null;
+        var event = new HelmInvocationEvent(
+            List.copyOf(command),
+            exitCode,
+            Duration.ofNanos(renderStart - spawnStart),
+            Duration.ofNanos(drainStart - renderStart),
+            Duration.ofNanos(drainEnd - drainStart),
+            parseNanos == null ? Duration.ZERO : Duration.ofNanos(parseNanos.get()),
+            stdoutBytes,
+            stderrBytes,
+            manifests == null ? 0 : manifests.objectCount()
+        );
+        for (HelmInvocationListener listener : listeners) {
+            listener.onInvocation(event);
+        }
+    }
+
+    private static BufferedReader utf8Reader(InputStream inputStream) {
+        return new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
+
+    private static void destroyProcessTree(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    /**
+     * Applies the reader function to the given stream, and then consumes whatever it left unread, so that the process
+     * writing to the stream is never left blocked, even if the reader function fails part way through.
+     */
+    private static <T> T drain(BufferedReader reader, Function<BufferedReader, T> readerFunction) throws IOException {
+        try (reader) {
+            try {
+                return readerFunction.apply(reader);
+            } finally {
+                reader.transferTo(Writer.nullWriter());
+            }
+        }
+    }
+
+    private static String readAll(BufferedReader reader) {
+        return String.join("\n", Exceptions.uncheck(reader::readAllLines));
+    }
+
+    private class HelmBinaryBackend implements TemplateBackend {
+
+        @Override
+        public String identity() {
+            return helmVersion();
+        }
+
+        @Override
+        public Manifests template(HelmChart chart, List<String> valuesYamls) {
+            return executeHelmTemplate(chart, valuesYamls, UnaryOperator.identity(), timeout);
+        }
+
+        @Override
+        public String templateError(HelmChart chart, List<String> valuesYamls) {
+            return executeHelmTemplateError(chart, valuesYamls, timeout);
+        }
+    }
+
+    private record TemplateCommand(List<String> args, String stdin) {
+    }
+
+    private record StdProcessOutput<T>(List<String> command, int exitCode, T stdout, String stderr) {
     }
 }
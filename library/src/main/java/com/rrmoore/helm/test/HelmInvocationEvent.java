@@ -0,0 +1,35 @@
+package com.rrmoore.helm.test;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Describes one `helm` process which ran to completion, and where the time was spent.
+ * Because output is parsed while `helm` is still producing it, the render and parse durations overlap.
+ *
+ * @param command     The command that was run.
+ * @param exitCode    The exit code of the process.
+ * @param spawn       The time taken to start the process.
+ * @param render      The time from starting the process until it exited.
+ * @param drain       The time from the process exiting until all of its output had been read.
+ * @param parse       The time spent parsing the output into Manifests, or zero if it wasn't parsed.
+ * @param stdoutBytes The number of bytes written to stdout.
+ * @param stderrBytes The number of bytes written to stderr.
+ * @param objectCount The number of Kubernetes objects parsed from the output, or zero if it wasn't parsed.
+ */
+public record HelmInvocationEvent(
+    List<String> command,
+    int exitCode,
+    Duration spawn,
+    Duration render,
+    Duration drain,
+    Duration parse,
+    long stdoutBytes,
+    long stderrBytes,
+    int objectCount
+) {
+
+    public Duration total() {
+        return spawn.plus(render).plus(drain);
+    }
+}
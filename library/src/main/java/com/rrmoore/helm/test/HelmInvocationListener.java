@@ -0,0 +1,12 @@
+package com.rrmoore.helm.test;
+
+/**
+ * Receives an event for every `helm` process run by a HelmExecutor. Use
+ * {@link HelmExecutor#withListener(HelmInvocationListener)} to register one.
+ * <p>
+ * Listeners are called on the thread that ran `helm`, which may be any thread, so they must be thread-safe.
+ */
+public interface HelmInvocationListener {
+
+    void onInvocation(HelmInvocationEvent event);
+}
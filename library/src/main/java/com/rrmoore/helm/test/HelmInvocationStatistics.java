@@ -0,0 +1,96 @@
+package com.rrmoore.helm.test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Aggregates {@link HelmInvocationEvent}s, and summarises them as percentiles for each phase of running `helm`.
+ * <p>
+ * {@link #shared()} returns a JVM-wide instance which prints its summary when the JVM shuts down, i.e. at the end of
+ * a test suite. Every HelmExecutor reports to it when the JVM system property
+ * "com.rrmoore.helm.test.invocation.statistics" is set to true.
+ */
+public class HelmInvocationStatistics implements HelmInvocationListener {
+
+    public static final String ENABLED_PROPERTY = "com.rrmoore.helm.test.invocation.statistics";
+
+    private static volatile HelmInvocationStatistics shared;
+
+    private final List<HelmInvocationEvent> events = new ArrayList<>();
+
+    /**
+     * @return The JVM-wide statistics, which are printed to stdout when the JVM shuts down.
+     */
+    public static HelmInvocationStatistics shared() {
+        if (shared == null) {
+            synchronized (HelmInvocationStatistics.class) {
+                if (shared == null) {
+                    var statistics = new HelmInvocationStatistics();
+                    Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println(statistics.summary()), "helm-invocation-statistics"));
+                    shared = statistics;
+                }
+            }
+        }
+        return shared;
+    }
+
+    static boolean isSharedEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    @Override
+    public synchronized void onInvocation(HelmInvocationEvent event) {
+        events.add(event);
+    }
+
+    public synchronized int count() {
+        return events.size();
+    }
+
+    public synchronized String summary() {
+        var summary = new StringBuilder("Helm invocations: ").append(events.size());
+        if (events.isEmpty()) {
+            return summary.toString();
+        }
+        summary.append("\n").append(String.format("%-8s %10s %10s %10s %10s %12s", "phase", "p50", "p90", "p99", "max", "total"));
+        appendPhase(summary, "spawn", HelmInvocationEvent::spawn);
+        appendPhase(summary, "render", HelmInvocationEvent::render);
+        appendPhase(summary, "drain", HelmInvocationEvent::drain);
+        appendPhase(summary, "parse", HelmInvocationEvent::parse);
+        appendPhase(summary, "total", HelmInvocationEvent::total);
+        summary.append("\n").append("stdout bytes: ").append(events.stream().mapToLong(HelmInvocationEvent::stdoutBytes).sum())
+            .append(", stderr bytes: ").append(events.stream().mapToLong(HelmInvocationEvent::stderrBytes).sum())
+            .append(", objects: ").append(events.stream().mapToLong(HelmInvocationEvent::objectCount).sum())
+            .append(", failures: ").append(events.stream().filter(it -> it.exitCode() != 0).count());
+        return summary.toString();
+    }
+
+    /**
+     * @return The given percentile (between 0 and 100) of the given phase's duration, using the nearest-rank method.
+     */
+    public synchronized Duration percentile(Function<HelmInvocationEvent, Duration> phase, double percentile) {
+        var sorted = events.stream().map(phase).sorted().toList();
+        return percentile(sorted, percentile);
+    }
+
+    private void appendPhase(StringBuilder summary, String name, Function<HelmInvocationEvent, Duration> phase) {
+        var sorted = events.stream().map(phase).sorted().toList();
+        var total = sorted.stream().reduce(Duration.ZERO, Duration::plus);
+        summary.append("\n").append(String.format("%-8s %10s %10s %10s %10s %12s", name,
+            millis(percentile(sorted, 50)), millis(percentile(sorted, 90)), millis(percentile(sorted, 99)), millis(sorted.getLast()), millis(total)));
+    }
+
+    private static Duration percentile(List<Duration> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return Duration.ZERO;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sorted.size());
+        return sorted.get(Math.clamp(rank - 1, 0, sorted.size() - 1));
+    }
+
+    private static String millis(Duration duration) {
+        return String.format("%.1fms", duration.toNanos() / 1_000_000.0);
+    }
+}
@@ -0,0 +1,115 @@
+package com.rrmoore.helm.test;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits how many `helm` processes run at the same time across the whole JVM, regardless of how many HelmExecutor
+ * instances or threads are in use. This prevents parallel test execution from overcommitting CPU and memory.
+ * <p>
+ * Waiting processes are started in the order in which they were requested. The limit defaults to the value of the
+ * JVM system property "com.rrmoore.helm.test.max.concurrent.processes", or the number of available processors
+ * if it is not set.
+ */
+public final class HelmProcessLimiter {
+
+    public static final String MAX_CONCURRENT_PROCESSES_PROPERTY = "com.rrmoore.helm.test.max.concurrent.processes";
+
+    private static final ResizableSemaphore PERMITS;
+    private static int limit;
+
+    private static final LongAdder acquisitions = new LongAdder();
+    private static final LongAdder totalWaitNanos = new LongAdder();
+    private static final AtomicLong maxWaitNanos = new AtomicLong();
+
+    static {
+        limit = Integer.getInteger(MAX_CONCURRENT_PROCESSES_PROPERTY, Runtime.getRuntime().availableProcessors());
+        checkLimit(limit);
+        PERMITS = new ResizableSemaphore(limit);
+    }
+
+    private HelmProcessLimiter() {
+    }
+
+    /**
+     * Sets the maximum number of `helm` processes that may run at the same time in this JVM. Processes which are
+     * already running are unaffected, but no new process starts until the number running is below the new limit.
+     */
+    public static synchronized void setLimit(int newLimit) {
+        checkLimit(newLimit);
+        int difference = newLimit - limit;
+        if (difference > 0) {
+            PERMITS.release(difference);
+        } else if (difference < 0) {
+            PERMITS.reducePermits(-difference);
+        }
+        limit = newLimit;
+    }
+
+    public static synchronized int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return A snapshot of how much the limit has been used, and how long processes have waited to start.
+     */
+    public static synchronized Metrics metrics() {
+        int available = PERMITS.availablePermits();
+        return new Metrics(
+            limit,
+            Math.max(0, limit - available),
+            PERMITS.getQueueLength(),
+            acquisitions.sum(),
+            Duration.ofNanos(totalWaitNanos.sum()),
+            Duration.ofNanos(maxWaitNanos.get())
+        );
+    }
+
+    static void acquire() throws InterruptedException {
+        long start = System.nanoTime();
+        PERMITS.acquire();
+        long waitNanos = System.nanoTime() - start;
+        acquisitions.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    static void release() {
+        PERMITS.release();
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("The maximum number of concurrent Helm processes must be at least 1, but was " + limit);
+        }
+    }
+
+    /**
+     * @param limit        The maximum number of `helm` processes allowed to run at the same time.
+     * @param running      The number of `helm` processes currently running.
+     * @param queued       The number of `helm` processes currently waiting to start.
+     * @param acquisitions The number of `helm` processes that have been allowed to start.
+     * @param totalWait    The total time that `helm` processes have waited to start.
+     * @param maxWait      The longest time that any one `helm` process has waited to start.
+     */
+    public record Metrics(int limit, int running, int queued, long acquisitions, Duration totalWait, Duration maxWait) {
+
+        public Duration averageWait() {
+            return acquisitions == 0 ? Duration.ZERO : totalWait.dividedBy(acquisitions);
+        }
+    }
+
+    private static class ResizableSemaphore extends Semaphore {
+
+        ResizableSemaphore(int permits) {
+            super(permits, true);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
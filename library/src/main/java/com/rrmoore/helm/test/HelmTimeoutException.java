@@ -0,0 +1,28 @@
+package com.rrmoore.helm.test;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Thrown when a `helm` process does not finish within its timeout. The process, and any processes it started,
+ * are destroyed before this is thrown.
+ */
+public class HelmTimeoutException extends RuntimeException {
+
+    private final List<String> command;
+    private final Duration timeout;
+
+    public HelmTimeoutException(List<String> command, Duration timeout) {
+        super("Command '" + String.join(" ", command) + "' did not finish within its timeout of " + timeout + ", so it was destroyed.");
+        this.command = List.copyOf(command);
+        this.timeout = timeout;
+    }
+
+    public List<String> getCommand() {
+        return command;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+}
@@ -0,0 +1,54 @@
+package com.rrmoore.helm.test;
+
+import com.rrmoore.helm.test.internal.rendering.ChartRenderer;
+import java.util.List;
+
+/**
+ * Renders the templates of a chart in the JVM, with an implementation of Go templates and of the template functions
+ * that charts most commonly use, so that no `helm` process is started.
+ * <p>
+ * Only a subset of charts is supported. Charts must be directories without subcharts, templates cannot use .Files or
+ * call methods such as .Capabilities.APIVersions.Has, and of the Sprig functions, only those that charts commonly use
+ * are available. The lookup function always finds nothing, as it does with `helm template`, and templates are rendered
+ * for Kubernetes v1.34.0.
+ * <p>
+ * Use {@link DifferentialTemplateBackend} to check that this backend renders a chart in the same way as `helm` before
+ * relying on it:
+ * <pre>{@code
+ * var helm = chart.getHelmExecutor();
+ * helm.withTemplateBackend(new DifferentialTemplateBackend(helm.helmBinaryBackend(), new JvmTemplateBackend()));
+ * }</pre>
+ * Instances of this class are thread-safe.
+ */
+public class JvmTemplateBackend implements TemplateBackend {
+
+    private final ChartRenderer renderer = new ChartRenderer();
+
+    @Override
+    public String identity() {
+        return "jvm-go-template-1";
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the chart uses a feature which this backend does not support.
+     */
+    @Override
+    public Manifests template(HelmChart chart, List<String> valuesYamls) {
+        return Manifests.fromYaml(renderer.render(chart.getFile(), valuesYamls));
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the chart uses a feature which this backend does not support.
+     */
+    @Override
+    public String templateError(HelmChart chart, List<String> valuesYamls) {
+        try {
+            renderer.render(chart.getFile(), valuesYamls);
+        } catch (UnsupportedOperationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            return e.getMessage();
+        }
+        throw new RuntimeException("Rendering chart '" + chart.getFile().getAbsolutePath() + "' in the JVM unexpectedly succeeded.");
+    }
+}
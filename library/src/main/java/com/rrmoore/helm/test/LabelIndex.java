@@ -0,0 +1,172 @@
+package com.rrmoore.helm.test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An inverted index from the labels of workloads' pod templates to the workloads, and from the labels required by the
+ * selectors of Services, PodDisruptionBudgets and NetworkPolicies to those selectors, built in a single pass over
+ * Manifests.
+ * <p>
+ * Evaluating a selector only considers the workloads which have one of the labels it requires, and finding the
+ * selectors which target a workload only considers the selectors which require one of its labels, so neither compares
+ * every selector with every workload. Selectors which do not require any particular label, e.g. an empty NetworkPolicy
+ * podSelector, are always considered.
+ */
+public class LabelIndex {
+
+    /**
+     * A selector of the pods of workloads, and the rendered object which it belongs to.
+     */
+    public record TargetingSelector(RenderedKubernetesObject owner, LabelSelector selector) {
+    }
+
+    private record IndexedWorkload(int position, Workload workload, Map<String, String> labels) {
+    }
+
+    private record IndexedSelector(int position, TargetingSelector targetingSelector) {
+    }
+
+    private final List<IndexedWorkload> workloads = new ArrayList<>();
+    private final Map<String, Map<String, List<IndexedWorkload>>> workloadsByLabel = new HashMap<>();
+    private final Map<String, Map<String, List<IndexedSelector>>> selectorsByLabel = new HashMap<>();
+    private final List<IndexedSelector> unindexedSelectors = new ArrayList<>();
+
+    LabelIndex(List<RenderedKubernetesObject> renderedObjects) {
+        int selectorCount = 0;
+        for (RenderedKubernetesObject renderedObject : renderedObjects) {
+            if (Workload.WORKLOAD_KINDS.contains(renderedObject.kind())) {
+                var workload = new Workload(renderedObject);
+                var indexed = new IndexedWorkload(workloads.size(), workload, workload.labels());
+                workloads.add(indexed);
+                indexed.labels().forEach((key, value) ->
+                    workloadsByLabel.computeIfAbsent(key, k -> new HashMap<>()).computeIfAbsent(value, v -> new ArrayList<>()).add(indexed));
+            } else if (isSelectingKind(renderedObject.kind())) {
+                var selector = selectorOf(renderedObject);
+                if (!selector.matchesNothing()) {
+                    indexSelector(new IndexedSelector(selectorCount++, new TargetingSelector(renderedObject, selector)));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The workloads in any namespace whose pod template labels are matched by the selector.
+     */
+    public List<Workload> select(LabelSelector selector) {
+        return candidates(selector).stream()
+            .filter(it -> selector.matches(it.labels()))
+            .map(IndexedWorkload::workload)
+            .toList();
+    }
+
+    /**
+     * @return The workloads whose pods are selected by the provided Service, PodDisruptionBudget or NetworkPolicy,
+     * which are those in its namespace whose pod template labels are matched by its selector.
+     */
+    public List<Workload> selectedBy(RenderedKubernetesObject selectingObject) {
+        if (!isSelectingKind(selectingObject.kind())) {
+            throw new IllegalArgumentException("Kind '" + selectingObject.kind() + "' is not recognised as a kind which selects pods (" + selectingObject.name() + ")");
+        }
+        var selector = selectorOf(selectingObject);
+        return candidates(selector).stream()
+            .filter(it -> Objects.equals(it.workload().namespace(), selectingObject.namespace()))
+            .filter(it -> selector.matches(it.labels()))
+            .map(IndexedWorkload::workload)
+            .toList();
+    }
+
+    /**
+     * @return The selectors of the Services, PodDisruptionBudgets and NetworkPolicies in the workload's namespace
+     * which match its pod template labels.
+     */
+    public List<TargetingSelector> selectorsTargeting(Workload workload) {
+        var labels = workload.labels();
+        var candidates = new ArrayList<>(unindexedSelectors);
+        labels.forEach((key, value) -> candidates.addAll(selectorsByLabel.getOrDefault(key, Map.of()).getOrDefault(value, List.of())));
+        return candidates.stream()
+            .sorted(Comparator.comparingInt(IndexedSelector::position))
+            .map(IndexedSelector::targetingSelector)
+            .filter(it -> Objects.equals(it.owner().namespace(), workload.namespace()))
+            .filter(it -> it.selector().matches(labels))
+            .toList();
+    }
+
+    /**
+     * @return The workloads which have one of the labels required by the selector's most selective In requirement, or
+     * every workload if the selector has no In requirement, in the order in which they were rendered.
+     */
+    private List<IndexedWorkload> candidates(LabelSelector selector) {
+        if (selector.matchesNothing()) {
+            return List.of();
+        }
+        List<IndexedWorkload> best = null;
+        for (LabelSelector.Requirement requirement : selector.requirements()) {
+            if (requirement.operator() == LabelSelector.Operator.IN) {
+                var byValue = workloadsByLabel.getOrDefault(requirement.key(), Map.of());
+                var matching = new ArrayList<IndexedWorkload>();
+                requirement.values().forEach(value -> matching.addAll(byValue.getOrDefault(value, List.of())));
+                if (best == null || matching.size() < best.size()) {
+                    best = matching;
+                }
+            }
+        }
+        if (best == null) {
+            return workloads;
+        }
+        best.sort(Comparator.comparingInt(IndexedWorkload::position));
+        return best;
+    }
+
+    /**
+     * Indexes the selector by the values of its In requirement with the fewest values, since any labels it matches
+     * must contain one of them.
+     */
+    private void indexSelector(IndexedSelector indexed) {
+        LabelSelector.Requirement best = null;
+        for (LabelSelector.Requirement requirement : indexed.targetingSelector().selector().requirements()) {
+            if (requirement.operator() == LabelSelector.Operator.IN && (best == null || requirement.values().size() < best.values().size())) {
+                best = requirement;
+            }
+        }
+        if (best == null) {
+            unindexedSelectors.add(indexed);
+            return;
+        }
+        var byValue = selectorsByLabel.computeIfAbsent(best.key(), k -> new HashMap<>());
+        best.values().forEach(value -> byValue.computeIfAbsent(value, v -> new ArrayList<>()).add(indexed));
+    }
+
+    private static boolean isSelectingKind(String kind) {
+        return kind.equals("Service") || kind.equals("PodDisruptionBudget") || kind.equals("NetworkPolicy");
+    }
+
+    /**
+     * A Service or PodDisruptionBudget without a selector selects no pods, but a NetworkPolicy without a podSelector
+     * selects every pod in its namespace.
+     */
+    private static LabelSelector selectorOf(RenderedKubernetesObject renderedObject) {
+        var yamlMap = renderedObject.yamlMap();
+        return switch (renderedObject.kind()) {
+            case "Service" -> yamlMap.getNested("spec.selector")
+                .map(it -> it instanceof Map<?, ?> selector ? LabelSelector.matchLabels(stringMap(selector)) : LabelSelector.NOTHING)
+                .orElse(LabelSelector.NOTHING);
+            case "PodDisruptionBudget" -> yamlMap.getNested("spec.selector")
+                .map(it -> it instanceof Map<?, ?> selector ? LabelSelector.fromYaml(selector) : LabelSelector.NOTHING)
+                .orElse(LabelSelector.NOTHING);
+            default -> yamlMap.getNested("spec.podSelector")
+                .map(it -> it instanceof Map<?, ?> selector ? LabelSelector.fromYaml(selector) : new LabelSelector(List.of()))
+                .orElse(new LabelSelector(List.of()));
+        };
+    }
+
+    private static Map<String, String> stringMap(Map<?, ?> map) {
+        var strings = new HashMap<String, String>();
+        map.forEach((key, value) -> strings.put(String.valueOf(key), String.valueOf(value)));
+        return strings;
+    }
+}
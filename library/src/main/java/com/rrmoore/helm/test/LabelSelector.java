@@ -0,0 +1,145 @@
+package com.rrmoore.helm.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A Kubernetes label selector, made of requirements which must all be met by a set of labels for them to match.
+ * <p>
+ * An empty selector matches every set of labels. Use {@link #NOTHING} for the selector of a Service which has no
+ * selector, which matches no pods.
+ */
+public final class LabelSelector {
+
+    /**
+     * A selector which matches no labels at all.
+     */
+    public static final LabelSelector NOTHING = new LabelSelector(List.of(), true);
+
+    public enum Operator {
+        IN, NOT_IN, EXISTS, DOES_NOT_EXIST
+    }
+
+    public record Requirement(String key, Operator operator, Set<String> values) {
+
+        public Requirement {
+            values = Collections.unmodifiableSet(new LinkedHashSet<>(values));
+            var needsValues = operator == Operator.IN || operator == Operator.NOT_IN;
+            if (needsValues == values.isEmpty()) {
+                throw new IllegalArgumentException("Label selector requirement for key '" + key + "' with operator " + operator
+                    + (needsValues ? " must have at least one value" : " must not have any values") + ", but had " + values);
+            }
+        }
+
+        public boolean matches(Map<String, String> labels) {
+            return switch (operator) {
+                case IN -> values.contains(labels.get(key));
+                case NOT_IN -> !values.contains(labels.get(key));
+                case EXISTS -> labels.containsKey(key);
+                case DOES_NOT_EXIST -> !labels.containsKey(key);
+            };
+        }
+    }
+
+    private final List<Requirement> requirements;
+    private final boolean matchesNothing;
+
+    private LabelSelector(List<Requirement> requirements, boolean matchesNothing) {
+        this.requirements = List.copyOf(requirements);
+        this.matchesNothing = matchesNothing;
+    }
+
+    public LabelSelector(List<Requirement> requirements) {
+        this(requirements, false);
+    }
+
+    /**
+     * @return A selector which matches labels that include all the provided labels, like the selector of a Service.
+     */
+    public static LabelSelector matchLabels(Map<String, String> matchLabels) {
+        return new LabelSelector(matchLabelsRequirements(matchLabels));
+    }
+
+    /**
+     * @param selector A rendered LabelSelector object, with optional matchLabels and matchExpressions, like the
+     *                 selector of a PodDisruptionBudget or the podSelector of a NetworkPolicy.
+     */
+    public static LabelSelector fromYaml(Map<?, ?> selector) {
+        var requirements = new ArrayList<Requirement>();
+        if (selector.get("matchLabels") instanceof Map<?, ?> matchLabels) {
+            requirements.addAll(matchLabelsRequirements(matchLabels));
+        }
+        if (selector.get("matchExpressions") instanceof List<?> matchExpressions) {
+            for (Object matchExpression : matchExpressions) {
+                if (matchExpression instanceof Map<?, ?> expression) {
+                    requirements.add(requirement(expression));
+                }
+            }
+        }
+        return new LabelSelector(requirements);
+    }
+
+    public List<Requirement> requirements() {
+        return requirements;
+    }
+
+    /**
+     * @return True if this selector matches no labels at all, i.e. it is {@link #NOTHING}.
+     */
+    public boolean matchesNothing() {
+        return matchesNothing;
+    }
+
+    public boolean matches(Map<String, String> labels) {
+        if (matchesNothing) {
+            return false;
+        }
+        for (Requirement requirement : requirements) {
+            if (!requirement.matches(labels)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof LabelSelector that && matchesNothing == that.matchesNothing && requirements.equals(that.requirements);
+    }
+
+    @Override
+    public int hashCode() {
+        return requirements.hashCode() * 31 + Boolean.hashCode(matchesNothing);
+    }
+
+    @Override
+    public String toString() {
+        return matchesNothing ? "LabelSelector[nothing]" : "LabelSelector" + requirements;
+    }
+
+    private static List<Requirement> matchLabelsRequirements(Map<?, ?> matchLabels) {
+        var requirements = new ArrayList<Requirement>();
+        matchLabels.forEach((key, value) -> requirements.add(new Requirement(String.valueOf(key), Operator.IN, Set.of(String.valueOf(value)))));
+        return requirements;
+    }
+
+    private static Requirement requirement(Map<?, ?> expression) {
+        var key = String.valueOf(expression.get("key"));
+        var operator = switch (String.valueOf(expression.get("operator"))) {
+            case "In" -> Operator.IN;
+            case "NotIn" -> Operator.NOT_IN;
+            case "Exists" -> Operator.EXISTS;
+            case "DoesNotExist" -> Operator.DOES_NOT_EXIST;
+            default -> throw new IllegalArgumentException("Unrecognised label selector operator '" + expression.get("operator") + "' for key '" + key + "'");
+        };
+        var values = new LinkedHashSet<String>();
+        if (expression.get("values") instanceof List<?> valuesList) {
+            valuesList.forEach(value -> values.add(String.valueOf(value)));
+        }
+        return new Requirement(key, operator, values);
+    }
+}
@@ -1,7 +1,7 @@
 package com.rrmoore.helm.test;
 
-import com.rrmoore.helm.test.internal.jdkext.Exceptions;
-import com.rrmoore.helm.test.internal.jdkext.YamlMap;
+import com.rrmoore.helm.test.internal.jdkext.YamlDigest;
+import com.rrmoore.helm.test.internal.jdkext.YamlPath;
 import io.kubernetes.client.common.KubernetesObject;
 import io.kubernetes.client.openapi.models.V1ConfigMap;
 import io.kubernetes.client.openapi.models.V1Deployment;
@@ -12,15 +12,22 @@ import io.kubernetes.client.openapi.models.V1Secret;
 import io.kubernetes.client.openapi.models.V1Service;
 import io.kubernetes.client.openapi.models.V1ServiceAccount;
 import io.kubernetes.client.openapi.models.V1StatefulSet;
-import io.kubernetes.client.util.Yaml;
+import io.kubernetes.client.util.ModelMapper;
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.util.Arrays;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import kotlin.text.Charsets;
 
@@ -34,7 +41,14 @@ import static com.rrmoore.helm.test.Workload.WORKLOAD_KINDS;
  */
 public class Manifests {
 
+    private static final ManifestsParser DEFAULT_PARSER = new ManifestsParser();
+
     private final List<RenderedKubernetesObject> renderedObjects;
+    private volatile ManifestsIndex index;
+    private volatile List<String> digests;
+    private volatile ReferenceGraph referenceGraph;
+    private volatile LabelIndex labelIndex;
+    private final ConcurrentHashMap<ChecksumStrategy, Map<ReferenceGraph.ObjectReference, String>> checksums = new ConcurrentHashMap<>();
 
     public Manifests(List<RenderedKubernetesObject> renderedObjects) {
         this.renderedObjects = renderedObjects;
@@ -45,22 +59,38 @@ public class Manifests {
      * @return An instance of Manifests representing the Kubernetes objects defined in the provided YAML.
      */
     public static Manifests fromYaml(String yaml) {
-        var renderedObjects = Arrays.stream(yaml.split("---"))
-            .skip(1)
-            .map(kubernetesResourceYaml -> new RenderedKubernetesObject(
-                Exceptions.uncheck(() -> (KubernetesObject) Yaml.load(kubernetesResourceYaml)),
-                new YamlMap(kubernetesResourceYaml)
-            ))
-            .toList();
-        return new Manifests(renderedObjects);
+        return fromYaml(new BufferedReader(new StringReader(yaml)));
+    }
+
+    /**
+     * @param inputStream A UTF-8 encoded stream of YAML representing any number of Kubernetes objects.
+     * @return An instance of Manifests representing the Kubernetes objects defined in the read YAML.
+     */
+    public static Manifests fromYaml(InputStream inputStream) {
+        return fromYaml(new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Parses each YAML document as soon as it has been read in full, so that when reading from a running process,
+     * parsing overlaps with the production of the output, and the output as a whole is never held in memory.
+     * Use {@link ManifestsParser} to control how large outputs are parsed in parallel.
+     *
+     * @param reader A reader of YAML representing any number of Kubernetes objects.
+     * @return An instance of Manifests representing the Kubernetes objects defined in the read YAML.
+     */
+    public static Manifests fromYaml(BufferedReader reader) {
+        return DEFAULT_PARSER.parse(reader);
     }
 
     /**
+     * The file is read through a memory mapping and parsed document by document, so that the heap is not required to
+     * hold the whole file.
+     *
      * @param path A YAML file containing any number of Kubernetes objects.
      * @return An instance of Manifests representing the Kubernetes objects defined in the provided YAML file.
      */
     public static Manifests fromYaml(Path path) throws IOException {
-        return fromYaml(Files.readString(path));
+        return DEFAULT_PARSER.parse(path);
     }
 
     /**
@@ -73,6 +103,19 @@ public class Manifests {
             .toList();
     }
 
+    /**
+     * Unlike {@link #findAll(java.util.function.Predicate)}, this only binds the Kubernetes client models of the
+     * matching objects.
+     *
+     * @return All the rendered Kubernetes objects with the provided apiVersion and kind.
+     */
+    public List<KubernetesObject> findAll(String apiVersion, String kind) {
+        return index().ofKind(kind).stream()
+            .filter(it -> apiVersion.equals(it.apiVersion()))
+            .map(RenderedKubernetesObject::kubernetesObject)
+            .toList();
+    }
+
     /**
      * @return The one rendered Kubernetes object matching the provided predicate if there is one, or Optional.empty() otherwise.
      * @throws java.lang.IllegalArgumentException if more than one Kubernetes object matches the predicate.
@@ -104,7 +147,44 @@ public class Manifests {
      *                                            Use {@link #findAll(java.util.function.Predicate)} if you have no strict expectations about how many objects match.
      */
     public KubernetesObject getOne(String apiVersion, String kind, String name) {
-        return getOne(o -> o.getApiVersion().equals(apiVersion) && o.getKind().equals(kind) && name.equals(o.getMetadata().getName()));
+        var objects = index().get(apiVersion, kind, name);
+        if (objects.isEmpty()) {
+            throw new IllegalArgumentException("No rendered Kubernetes object matches the provided predicate");
+        }
+        if (objects.size() > 1) {
+            throw new IllegalArgumentException("Expected at most one rendered Kubernetes object to match the provided predicate, but found " + objects.size());
+        }
+        return objects.getFirst().kubernetesObject();
+    }
+
+    /**
+     * @param namespace The namespace of the object, or null for an object rendered without a namespace.
+     * @return The one rendered Kubernetes object with the provided apiVersion, kind, namespace and name if there is one,
+     * or Optional.empty() otherwise.
+     * @throws java.lang.IllegalArgumentException if more than one Kubernetes object matches.
+     */
+    public Optional<KubernetesObject> findOne(String apiVersion, String kind, String namespace, String name) {
+        var objects = index().get(apiVersion, kind, namespace, name);
+        if (objects.size() > 1) {
+            throw new IllegalArgumentException("Expected at most one rendered Kubernetes object to match the provided predicate, but found " + objects.size());
+        }
+        return objects.stream().findFirst().map(RenderedKubernetesObject::kubernetesObject);
+    }
+
+    /**
+     * @return All the rendered Kubernetes objects which are bound to the provided Kubernetes client model class, in the
+     * order in which they were rendered. Only objects of the kind represented by the class are bound to find them.
+     */
+    public <T extends KubernetesObject> List<T> getAll(Class<T> clazz) {
+        var groupVersionKind = ModelMapper.getGroupVersionKindByClass(clazz);
+        if (groupVersionKind == null) {
+            return List.of();
+        }
+        return index().ofKind(groupVersionKind.getKind()).stream()
+            .map(RenderedKubernetesObject::kubernetesObject)
+            .filter(clazz::isInstance)
+            .map(clazz::cast)
+            .toList();
     }
 
     /**
@@ -169,17 +249,90 @@ public class Manifests {
         return getOne("v1", "PersistentVolumeClaim", name, V1PersistentVolumeClaim.class);
     }
 
+    /**
+     * Evaluates the path against the YAML of every rendered object, without binding any Kubernetes client models.
+     * <p>
+     * Map keys in the path are separated by dots, e.g. `spec.template.spec`. A key which contains dots or brackets can
+     * be quoted in brackets, e.g. `metadata.labels['app.kubernetes.io/name']`. `[2]` selects the element at index 2 of
+     * a list, and `[*]` selects every element of a list, or every value of a map, e.g.
+     * `spec.template.spec.containers[*].image`.
+     * <p>
+     * Compiled paths are cached, so evaluating the same path repeatedly only parses it once.
+     *
+     * @return The values selected by the path in each rendered object with at least one match, in the order in which
+     * the objects were rendered.
+     */
+    public Map<RenderedKubernetesObject, List<Object>> evaluate(String path) {
+        var compiledPath = YamlPath.compileCached(path);
+        var results = new LinkedHashMap<RenderedKubernetesObject, List<Object>>();
+        for (RenderedKubernetesObject renderedObject : renderedObjects) {
+            var values = compiledPath.getAll(renderedObject.yamlMap());
+            if (!values.isEmpty()) {
+                results.put(renderedObject, values);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @return The graph of references between the rendered objects, e.g. from workloads to the ConfigMaps and Secrets
+     * they use, which is built the first time it is requested.
+     */
+    public ReferenceGraph referenceGraph() {
+        var built = referenceGraph;
+        if (built == null) {
+            built = new ReferenceGraph(renderedObjects, this::labelIndex);
+            referenceGraph = built;
+        }
+        return built;
+    }
+
+    /**
+     * @return The index from pod template labels to workloads, and from the labels required by selectors to the
+     * Services, PodDisruptionBudgets and NetworkPolicies they belong to, which is built the first time it is requested.
+     */
+    public LabelIndex labelIndex() {
+        var built = labelIndex;
+        if (built == null) {
+            built = new LabelIndex(renderedObjects);
+            labelIndex = built;
+        }
+        return built;
+    }
+
+    /**
+     * The checksums for each strategy are computed once, the first time they are requested, and then shared by every
+     * workload whose checksum annotations are verified against these Manifests.
+     *
+     * @return The checksums of the rendered ConfigMaps and Secrets computed by the strategy, excluding those for which
+     * it could not compute one.
+     */
+    public Map<ReferenceGraph.ObjectReference, String> checksums(ChecksumStrategy strategy) {
+        return checksums.computeIfAbsent(strategy, it -> {
+            var computed = new HashMap<ReferenceGraph.ObjectReference, String>();
+            for (RenderedKubernetesObject renderedObject : renderedObjects) {
+                if (renderedObject.kind().equals("ConfigMap") || renderedObject.kind().equals("Secret")) {
+                    var checksum = it.checksum(renderedObject);
+                    if (checksum != null) {
+                        computed.put(new ReferenceGraph.ObjectReference(renderedObject.kind(), renderedObject.namespace(), renderedObject.name()), checksum);
+                    }
+                }
+            }
+            return Collections.unmodifiableMap(computed);
+        });
+    }
+
     public List<Workload> findAllWorkloads() {
         return renderedObjects.stream()
-            .filter(it -> WORKLOAD_KINDS.contains(it.kubernetesObject().getKind()))
+            .filter(it -> WORKLOAD_KINDS.contains(it.kind()))
             .map(Workload::new)
             .toList();
     }
 
     public Optional<Workload> findWorkload(String kind, String name) {
         Workload.checkKind(kind, name);
-        return renderedObjects.stream()
-            .filter(it -> name.equals(it.kubernetesObject().getMetadata().getName()) && it.kubernetesObject().getKind().equals(kind))
+        return index().ofKind(kind).stream()
+            .filter(it -> name.equals(it.name()))
             .map(Workload::new)
             .findFirst();
     }
@@ -189,16 +342,79 @@ public class Manifests {
             .orElseThrow(() -> new IllegalArgumentException("No rendered Kubernetes workload object matches the provided predicate (workloads are defined here: https://kubernetes.io/docs/concepts/workloads)."));
     }
 
+    int objectCount() {
+        return renderedObjects.size();
+    }
+
+    List<RenderedKubernetesObject> renderedObjects() {
+        return renderedObjects;
+    }
+
+    /**
+     * The index is built on first use, because Manifests which are only compared or counted never need it.
+     */
+    private ManifestsIndex index() {
+        var built = index;
+        if (built == null) {
+            built = new ManifestsIndex(renderedObjects);
+            index = built;
+        }
+        return built;
+    }
+
+    /**
+     * @return A copy of these Manifests whose YAML representation is deeply immutable, so that it can be safely shared.
+     */
+    Manifests immutableCopy() {
+        return new Manifests(renderedObjects.stream()
+            .map(RenderedKubernetesObject::immutableCopy)
+            .toList());
+    }
+
+    /**
+     * @return A copy of these Manifests which shares the YAML of their rendered objects, but binds its own Kubernetes
+     * client models, so that modifying the models of one copy does not affect any other.
+     */
+    Manifests unboundCopy() {
+        var copy = new Manifests(renderedObjects.stream()
+            .map(RenderedKubernetesObject::unboundCopy)
+            .toList());
+        copy.digests = digests;
+        return copy;
+    }
+
+    /**
+     * Two Manifests are equal when they contain the same rendered objects the same number of times, in any order, which
+     * is decided by comparing these digests.
+     *
+     * @return The sorted digests of the rendered objects, as given by {@link RenderedKubernetesObject#digest()}.
+     */
+    public List<String> digests() {
+        var computed = digests;
+        if (computed == null) {
+            computed = renderedObjects.stream().map(RenderedKubernetesObject::digest).sorted().toList();
+            digests = computed;
+        }
+        return computed;
+    }
+
+    /**
+     * @return A SHA-256 digest of the rendered objects, which does not depend on the order in which they were rendered.
+     */
+    public String digest() {
+        return YamlDigest.of(digests());
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Manifests manifests)) return false;
-        return new HashSet<>(renderedObjects).equals(new HashSet<>(manifests.renderedObjects));
+        return digests().equals(manifests.digests());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(new HashSet<>(renderedObjects));
+        return digests().hashCode();
     }
 
     @Override
@@ -0,0 +1,55 @@
+package com.rrmoore.helm.test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash indexes over the rendered objects of a {@link Manifests}, which are built from their YAML, so that building
+ * them does not bind any Kubernetes client models. Each bucket preserves the order in which the objects were rendered.
+ */
+final class ManifestsIndex {
+
+    record ObjectKey(String apiVersion, String kind, String namespace, String name) {
+    }
+
+    record NameKey(String apiVersion, String kind, String name) {
+    }
+
+    private final Map<ObjectKey, List<RenderedKubernetesObject>> byObjectKey = new HashMap<>();
+    private final Map<NameKey, List<RenderedKubernetesObject>> byName = new HashMap<>();
+    private final Map<String, List<RenderedKubernetesObject>> byKind = new HashMap<>();
+
+    ManifestsIndex(List<RenderedKubernetesObject> renderedObjects) {
+        for (RenderedKubernetesObject renderedObject : renderedObjects) {
+            var apiVersion = renderedObject.apiVersion();
+            var kind = renderedObject.kind();
+            var name = renderedObject.name();
+            byObjectKey.computeIfAbsent(new ObjectKey(apiVersion, kind, renderedObject.namespace(), name), k -> new ArrayList<>(1)).add(renderedObject);
+            byName.computeIfAbsent(new NameKey(apiVersion, kind, name), k -> new ArrayList<>(1)).add(renderedObject);
+            byKind.computeIfAbsent(kind, k -> new ArrayList<>()).add(renderedObject);
+        }
+    }
+
+    /**
+     * @param namespace The namespace of the object, or null for objects rendered without one.
+     */
+    List<RenderedKubernetesObject> get(String apiVersion, String kind, String namespace, String name) {
+        return byObjectKey.getOrDefault(new ObjectKey(apiVersion, kind, namespace, name), List.of());
+    }
+
+    /**
+     * @return The objects with the provided apiVersion, kind and name, in any namespace.
+     */
+    List<RenderedKubernetesObject> get(String apiVersion, String kind, String name) {
+        return byName.getOrDefault(new NameKey(apiVersion, kind, name), List.of());
+    }
+
+    /**
+     * @return The objects of the provided kind, of any apiVersion.
+     */
+    List<RenderedKubernetesObject> ofKind(String kind) {
+        return byKind.getOrDefault(kind, List.of());
+    }
+}
@@ -0,0 +1,63 @@
+package com.rrmoore.helm.test;
+
+import com.rrmoore.helm.test.internal.jdkext.RetainedYamlSize;
+import com.rrmoore.helm.test.internal.jdkext.YamlTreeInterner;
+import java.util.Collection;
+
+/**
+ * Shrinks the memory retained by Manifests which are kept around, e.g. by parameterised tests, golden comparisons or
+ * a {@link RenderCache}, by sharing their YAML between them.
+ * <p>
+ * Interning the YAML of a rendered object replaces every key, scalar value, map and list in it with a canonical,
+ * deeply unmodifiable instance, so that repeated labels, annotations and image names, and structurally identical
+ * subtrees, are held in memory once across every Manifests interned by the same interner. The interner retains
+ * everything it has interned until it is cleared, so it should be scoped to the Manifests it is shrinking.
+ * <p>
+ * Use {@link #estimateRetainedBytes(Collection)} to measure the saving.
+ * Instances of this class are thread-safe.
+ */
+public class ManifestsInterner {
+
+    private final YamlTreeInterner interner = new YamlTreeInterner();
+
+    /**
+     * @return A copy of the Manifests whose YAML is interned, and so deeply unmodifiable.
+     */
+    public Manifests intern(Manifests manifests) {
+        return new Manifests(manifests.renderedObjects().stream()
+            .map(this::intern)
+            .toList());
+    }
+
+    RenderedKubernetesObject intern(RenderedKubernetesObject renderedObject) {
+        return renderedObject.withYamlMap(renderedObject.yamlMap().internedCopy(interner));
+    }
+
+    /**
+     * @return The number of distinct values held by this interner.
+     */
+    public int size() {
+        return interner.size();
+    }
+
+    /**
+     * Releases every value held by this interner. Manifests which were already interned are unaffected.
+     */
+    public void clear() {
+        interner.clear();
+    }
+
+    /**
+     * Estimates the heap retained by the YAML of the provided Manifests, counting YAML which is shared between them
+     * once. The Kubernetes client models of the rendered objects are not included.
+     *
+     * @return An estimate, in bytes, which assumes a 64-bit JVM with compressed object pointers.
+     */
+    public static long estimateRetainedBytes(Collection<Manifests> manifests) {
+        var size = new RetainedYamlSize();
+        for (Manifests m : manifests) {
+            m.renderedObjects().forEach(it -> size.add(it.yamlMap()));
+        }
+        return size.bytes();
+    }
+}
@@ -0,0 +1,237 @@
+package com.rrmoore.helm.test;
+
+import com.rrmoore.helm.test.internal.jdkext.Exceptions;
+import com.rrmoore.helm.test.internal.jdkext.MappedFileInputStream;
+import com.rrmoore.helm.test.internal.jdkext.SnakeYamlInstances;
+import com.rrmoore.helm.test.internal.jdkext.YamlMap;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parses the multi-document YAML output of `helm template` into {@link Manifests}.
+ * <p>
+ * Documents are split on `---` separator lines as they are read, and each one is parsed as soon as it has been read in
+ * full. Once the YAML read so far exceeds the parallel parsing threshold, the remaining documents are parsed
+ * concurrently on an executor, which is the common ForkJoinPool unless another is provided. The rendered objects are
+ * kept in the order of their documents either way.
+ * <p>
+ * The threshold defaults to the value of the system property "com.rrmoore.helm.test.parse.parallel.threshold", in
+ * characters, or 1,000,000 characters if it is not set.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+public class ManifestsParser {
+
+    public static final String PARALLEL_THRESHOLD_PROPERTY = "com.rrmoore.helm.test.parse.parallel.threshold";
+
+    private static final long DEFAULT_PARALLEL_THRESHOLD = 1_000_000;
+
+    private volatile long parallelThreshold = Long.getLong(PARALLEL_THRESHOLD_PROPERTY, DEFAULT_PARALLEL_THRESHOLD);
+    private volatile Executor executor = ForkJoinPool.commonPool();
+    private volatile ManifestsInterner interner;
+    private volatile YamlLoadingOptions yamlLoadingOptions;
+
+    /**
+     * @param characters The number of characters of YAML after which the remaining documents are parsed in parallel.
+     *                   Zero parses every document in parallel, and Long.MAX_VALUE parses every document on the
+     *                   reading thread.
+     */
+    public ManifestsParser withParallelThreshold(long characters) {
+        if (characters < 0) {
+            throw new IllegalArgumentException("The parallel parsing threshold must not be negative, but was " + characters);
+        }
+        this.parallelThreshold = characters;
+        return this;
+    }
+
+    /**
+     * @param executor The executor on which documents are parsed once the parallel parsing threshold is exceeded.
+     */
+    public ManifestsParser withExecutor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * @param interner An interner with which the YAML of every parsed document is interned, so that it is shared with
+     *                 the YAML of every other document interned by it, including documents from other renderings.
+     */
+    public ManifestsParser withInterner(ManifestsInterner interner) {
+        this.interner = interner;
+        return this;
+    }
+
+    /**
+     * @param yamlLoadingOptions The limits applied when loading each document, instead of
+     *                           {@link YamlLoadingOptions#getDefault()}.
+     */
+    public ManifestsParser withYamlLoadingOptions(YamlLoadingOptions yamlLoadingOptions) {
+        this.yamlLoadingOptions = yamlLoadingOptions;
+        return this;
+    }
+
+    /**
+     * @param yaml A YAML string representing any number of Kubernetes objects.
+     * @return An instance of Manifests representing the Kubernetes objects defined in the provided YAML.
+     */
+    public Manifests parse(String yaml) {
+        return parse(new BufferedReader(new StringReader(yaml)));
+    }
+
+    /**
+     * The file is read through a memory mapping and parsed document by document, so that the heap is not required to
+     * hold the whole file.
+     *
+     * @param path A UTF-8 encoded YAML file containing any number of Kubernetes objects.
+     * @return An instance of Manifests representing the Kubernetes objects defined in the provided YAML file.
+     */
+    public Manifests parse(Path path) throws IOException {
+        try (var input = MappedFileInputStream.open(path)) {
+            return parse(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)));
+        }
+    }
+
+    /**
+     * @param reader A reader of YAML representing any number of Kubernetes objects.
+     * @return An instance of Manifests representing the Kubernetes objects defined in the read YAML.
+     */
+    public Manifests parse(BufferedReader reader) {
+        return parse(reader, new AtomicLong());
+    }
+
+    /**
+     * @param parseNanos A counter to which the time spent parsing is added, excluding time spent waiting to read.
+     */
+    Manifests parse(BufferedReader reader, AtomicLong parseNanos) {
+        var options = yamlLoadingOptions != null ? yamlLoadingOptions : YamlLoadingOptions.getDefault();
+        var parsing = new Parsing(parallelThreshold, executor, interner, options, parseNanos);
+        // The first document need not be preceded by a separator. If it is, the empty leading document is skipped.
+        var document = new StringBuilder();
+        String line;
+        while ((line = Exceptions.uncheck(reader::readLine)) != null) {
+            if (isDocumentSeparator(line)) {
+                parsing.add(document.toString());
+                document = new StringBuilder(line.substring(3)).append('\n');
+            } else {
+                document.append(line).append('\n');
+            }
+        }
+        parsing.add(document.toString());
+        return parsing.finish();
+    }
+
+    private static boolean isDocumentSeparator(String line) {
+        return line.startsWith("---") && (line.length() == 3 || Character.isWhitespace(line.charAt(3)));
+    }
+
+    /**
+     * The documents of a single call to {@link #parse(BufferedReader)}, in order, each either parsed already or being
+     * parsed on the executor.
+     */
+    private static final class Parsing {
+
+        private final long parallelThreshold;
+        private final Executor executor;
+        private final ManifestsInterner interner;
+        private final YamlLoadingOptions yamlLoadingOptions;
+        private final List<CompletableFuture<RenderedKubernetesObject>> documents = new ArrayList<>();
+        private final AtomicLong parseNanos;
+        private long charactersRead = 0;
+
+        Parsing(long parallelThreshold, Executor executor, ManifestsInterner interner, YamlLoadingOptions yamlLoadingOptions, AtomicLong parseNanos) {
+            this.parallelThreshold = parallelThreshold;
+            this.executor = executor;
+            this.interner = interner;
+            this.yamlLoadingOptions = yamlLoadingOptions;
+            this.parseNanos = parseNanos;
+        }
+
+        void add(String document) {
+            charactersRead += document.length();
+            if (charactersRead > parallelThreshold) {
+                documents.add(CompletableFuture.supplyAsync(() -> timedParse(document), executor));
+            } else {
+                documents.add(CompletableFuture.completedFuture(timedParse(document)));
+            }
+        }
+
+        Manifests finish() {
+            var renderedObjects = new ArrayList<RenderedKubernetesObject>(documents.size());
+            for (CompletableFuture<RenderedKubernetesObject> document : documents) {
+                var renderedObject = await(document);
+                if (renderedObject != null) {
+                    renderedObjects.add(renderedObject);
+                }
+            }
+            return new Manifests(List.copyOf(renderedObjects));
+        }
+
+        private RenderedKubernetesObject timedParse(String document) {
+            long start = System.nanoTime();
+            try {
+                var renderedObject = parseDocument(document, yamlLoadingOptions);
+                return renderedObject == null || interner == null ? renderedObject : interner.intern(renderedObject);
+            } finally {
+                parseNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+
+        private static RenderedKubernetesObject await(CompletableFuture<RenderedKubernetesObject> document) {
+            try {
+                return document.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * The Kubernetes client model of the object is not bound here, because most rendered objects are never inspected
+     * as models. See {@link RenderedKubernetesObject#kubernetesObject()}.
+     *
+     * @return The parsed object, or null if the document contains no YAML content, e.g. when it is only comments.
+     */
+    private static RenderedKubernetesObject parseDocument(String kubernetesResourceYaml, YamlLoadingOptions yamlLoadingOptions) {
+        Map<String, Object> tree = SnakeYamlInstances.get(yamlLoadingOptions).load(kubernetesResourceYaml);
+        if (tree == null) {
+            return null;
+        }
+        var yamlMap = YamlMap.freeze(tree);
+        if (yamlMap.getString("apiVersion") == null || yamlMap.getString("kind") == null) {
+            throw new RuntimeException("Rendered YAML document is missing its apiVersion or kind: " + yamlMap);
+        }
+        var kind = yamlMap.getString("kind");
+        if (kind.equals("ConfigMap") || kind.equals("Secret")) {
+            return new RenderedKubernetesObject(yamlMap, renderedText(kubernetesResourceYaml));
+        }
+        return new RenderedKubernetesObject(yamlMap);
+    }
+
+    /**
+     * @return The document without the `# Source` comment which `helm template` adds before it, and without surrounding
+     * whitespace, which is the rendered template as Helm holds it.
+     */
+    private static String renderedText(String document) {
+        var text = document.strip();
+        if (text.startsWith("# Source: ")) {
+            int endOfLine = text.indexOf('\n');
+            text = endOfLine == -1 ? "" : text.substring(endOfLine + 1).strip();
+        }
+        return text;
+    }
+}
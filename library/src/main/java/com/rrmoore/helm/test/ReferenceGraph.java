@@ -0,0 +1,196 @@
+package com.rrmoore.helm.test;
+
+import com.rrmoore.helm.test.internal.jdkext.YamlPath;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * The references between rendered Kubernetes objects, built from their YAML in a single pass over Manifests.
+ * <p>
+ * The references covered are:
+ * <ul>
+ *     <li>from workloads to the ConfigMaps, Secrets, ServiceAccounts and PersistentVolumeClaims used by their pods,</li>
+ *     <li>from Ingresses to their backend Services and TLS Secrets, and</li>
+ *     <li>from RoleBindings and ClusterRoleBindings to their Roles and ClusterRoles.</li>
+ * </ul>
+ * A reference is resolved in the namespace of the object making it, except references to ClusterRoles, which are
+ * resolved without a namespace. Objects rendered without a namespace are treated as being in the same namespace.
+ * <p>
+ * Every query takes time linear in its result, after the graph has been built in time linear in the number of objects.
+ */
+public class ReferenceGraph {
+
+    /**
+     * Identifies a referenced object.
+     *
+     * @param namespace The namespace in which the reference is resolved, or null.
+     */
+    public record ObjectReference(String kind, String namespace, String name) {
+    }
+
+    /**
+     * A reference from a rendered object to another object, which may or may not have been rendered.
+     */
+    public record Reference(RenderedKubernetesObject from, ObjectReference to) {
+    }
+
+    /**
+     * Kinds which Kubernetes creates in every namespace, mapped to the names it gives them, which can therefore be
+     * referenced without being rendered.
+     */
+    private static final Map<String, Set<String>> IMPLICIT_OBJECTS = Map.of(
+        "ServiceAccount", Set.of("default"),
+        "ConfigMap", Set.of("kube-root-ca.crt")
+    );
+
+    private static final Map<String, List<YamlPath>> POD_SPEC_REFERENCES = Map.of(
+        "ConfigMap", podSpecPaths(
+            "containers[*].env[*].valueFrom.configMapKeyRef.name",
+            "containers[*].envFrom[*].configMapRef.name",
+            "initContainers[*].env[*].valueFrom.configMapKeyRef.name",
+            "initContainers[*].envFrom[*].configMapRef.name",
+            "volumes[*].configMap.name",
+            "volumes[*].projected.sources[*].configMap.name"
+        ),
+        "Secret", podSpecPaths(
+            "containers[*].env[*].valueFrom.secretKeyRef.name",
+            "containers[*].envFrom[*].secretRef.name",
+            "initContainers[*].env[*].valueFrom.secretKeyRef.name",
+            "initContainers[*].envFrom[*].secretRef.name",
+            "imagePullSecrets[*].name",
+            "volumes[*].secret.secretName",
+            "volumes[*].projected.sources[*].secret.name"
+        ),
+        "ServiceAccount", podSpecPaths("serviceAccountName"),
+        "PersistentVolumeClaim", podSpecPaths("volumes[*].persistentVolumeClaim.claimName")
+    );
+
+    private static final List<YamlPath> INGRESS_BACKENDS = Stream.of(
+        "spec.defaultBackend.service.name",
+        "spec.rules[*].http.paths[*].backend.service.name"
+    ).map(YamlPath::compile).toList();
+
+    private static final YamlPath INGRESS_TLS_SECRETS = YamlPath.compile("spec.tls[*].secretName");
+
+    private static final YamlPath ROLE_REF_KIND = YamlPath.compile("roleRef.kind");
+    private static final YamlPath ROLE_REF_NAME = YamlPath.compile("roleRef.name");
+
+    private final List<RenderedKubernetesObject> renderedObjects;
+    private final Supplier<LabelIndex> labelIndex;
+    private final List<Reference> references = new ArrayList<>();
+    private final Map<ObjectReference, RenderedKubernetesObject> objects = new HashMap<>();
+    private final Map<ObjectReference, List<Reference>> referencesTo = new HashMap<>();
+
+    /**
+     * @param labelIndex The label index of the same objects, which is only built if Services need to be matched with
+     *                   the workloads they select.
+     */
+    ReferenceGraph(List<RenderedKubernetesObject> renderedObjects, Supplier<LabelIndex> labelIndex) {
+        this.renderedObjects = renderedObjects;
+        this.labelIndex = labelIndex;
+        for (RenderedKubernetesObject renderedObject : renderedObjects) {
+            objects.putIfAbsent(new ObjectReference(renderedObject.kind(), renderedObject.namespace(), renderedObject.name()), renderedObject);
+            collectReferences(renderedObject);
+        }
+        for (Reference reference : references) {
+            referencesTo.computeIfAbsent(reference.to(), k -> new ArrayList<>()).add(reference);
+        }
+    }
+
+    /**
+     * @return Every reference between rendered objects, in the order in which the referencing objects were rendered.
+     */
+    public List<Reference> references() {
+        return Collections.unmodifiableList(references);
+    }
+
+    /**
+     * @return The references to objects which were not rendered, excluding objects which Kubernetes creates in every
+     * namespace, such as the "default" ServiceAccount.
+     */
+    public List<Reference> danglingReferences() {
+        return references.stream()
+            .filter(it -> !objects.containsKey(it.to()) && !isImplicit(it.to()))
+            .toList();
+    }
+
+    /**
+     * Services are mostly used by clients inside the cluster rather than by other rendered objects, so a Service is
+     * only an orphan if it has a selector which selects none of the rendered workloads in its namespace. Services
+     * without a selector, e.g. ExternalName Services, are never orphans.
+     *
+     * @return The rendered objects of the kinds which can be referenced, i.e. ConfigMaps, Secrets, ServiceAccounts,
+     * PersistentVolumeClaims, Services, Roles and ClusterRoles, which no rendered object references.
+     */
+    public List<RenderedKubernetesObject> orphans() {
+        var referenceableKinds = new HashSet<>(POD_SPEC_REFERENCES.keySet());
+        referenceableKinds.addAll(Set.of("Service", "Role", "ClusterRole"));
+        return renderedObjects.stream()
+            .filter(it -> referenceableKinds.contains(it.kind()))
+            .filter(it -> !referencesTo.containsKey(new ObjectReference(it.kind(), it.namespace(), it.name())))
+            .filter(it -> !it.kind().equals("Service") || selectsNoWorkload(it))
+            .toList();
+    }
+
+    private boolean selectsNoWorkload(RenderedKubernetesObject service) {
+        return service.yamlMap().getNested("spec.selector").orElse(null) instanceof Map<?, ?> selector
+            && !selector.isEmpty()
+            && labelIndex.get().selectedBy(service).isEmpty();
+    }
+
+    /**
+     * @return The rendered objects which reference the object with the provided kind, namespace and name, e.g. the
+     * workloads which use a Secret.
+     */
+    public List<RenderedKubernetesObject> referrers(String kind, String namespace, String name) {
+        return referencesTo.getOrDefault(new ObjectReference(kind, namespace, name), List.of()).stream()
+            .map(Reference::from)
+            .distinct()
+            .toList();
+    }
+
+    /**
+     * @return The rendered objects which reference the provided rendered object.
+     */
+    public List<RenderedKubernetesObject> referrers(RenderedKubernetesObject renderedObject) {
+        return referrers(renderedObject.kind(), renderedObject.namespace(), renderedObject.name());
+    }
+
+    private void collectReferences(RenderedKubernetesObject renderedObject) {
+        var kind = renderedObject.kind();
+        var namespace = renderedObject.namespace();
+        if (Workload.WORKLOAD_KINDS.contains(kind)) {
+            var podSpec = renderedObject.yamlMap().getNestedObject(Workload.podSpecPath(kind));
+            podSpec.ifPresent(spec -> POD_SPEC_REFERENCES.forEach((targetKind, paths) ->
+                paths.forEach(path -> path.forEach(spec, name -> addReference(renderedObject, targetKind, namespace, name)))));
+        } else if (kind.equals("Ingress")) {
+            INGRESS_BACKENDS.forEach(path -> path.forEach(renderedObject.yamlMap(), name -> addReference(renderedObject, "Service", namespace, name)));
+            INGRESS_TLS_SECRETS.forEach(renderedObject.yamlMap(), name -> addReference(renderedObject, "Secret", namespace, name));
+        } else if (kind.equals("RoleBinding") || kind.equals("ClusterRoleBinding")) {
+            if (ROLE_REF_KIND.get(renderedObject.yamlMap()) instanceof String roleKind) {
+                addReference(renderedObject, roleKind, roleKind.equals("ClusterRole") ? null : namespace, ROLE_REF_NAME.get(renderedObject.yamlMap()));
+            }
+        }
+    }
+
+    private void addReference(RenderedKubernetesObject from, String kind, String namespace, Object name) {
+        if (name instanceof String nameString) {
+            references.add(new Reference(from, new ObjectReference(kind, namespace, nameString)));
+        }
+    }
+
+    private static boolean isImplicit(ObjectReference reference) {
+        return IMPLICIT_OBJECTS.getOrDefault(reference.kind(), Set.of()).contains(reference.name());
+    }
+
+    private static List<YamlPath> podSpecPaths(String... paths) {
+        return Stream.of(paths).map(YamlPath::compile).toList();
+    }
+}
@@ -0,0 +1,151 @@
+package com.rrmoore.helm.test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * An in-memory cache of the Manifests rendered by `helm template`, which can be shared between any number of
+ * HelmExecutor instances, including across threads. Use {@link HelmExecutor#withRenderCache(RenderCache)} to opt in.
+ * <p>
+ * Entries are keyed by the content of the chart, the ordered values YAMLs and the Helm executable, so a cached
+ * rendering is only reused when `helm template` would be given exactly the same input. Concurrent identical requests
+ * are deduplicated, so that only one `helm` process is run for them. When the cache is full, the least recently used
+ * entry is evicted.
+ * <p>
+ * The cache is bounded by the number of renderings it holds, not by their size. A rendering of a chart with large
+ * ConfigMaps counts the same as a small one, so choose the maximum number of entries with the size of the renderings
+ * in mind. {@link ManifestsInterner#estimateRetainedBytes(java.util.Collection)} estimates the memory retained by the
+ * YAML of a set of renderings. Kubernetes client models which have been bound are retained in addition to it.
+ * <p>
+ * Each request for a cached rendering gets its own Manifests. The underlying YAML of each rendered object is made
+ * immutable before it is cached, and is shared by every request, along with its digest. The Kubernetes client models
+ * cannot be made immutable, so they are not shared: each request binds its own, when they are first requested, so
+ * modifying them cannot affect any other request.
+ */
+public class RenderCache {
+
+    private final int maxEntries;
+    private final Map<String, Manifests> entries;
+    private final ConcurrentHashMap<String, CompletableFuture<Manifests>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile ManifestsInterner interner;
+
+    /**
+     * @param maxEntries The maximum number of renderings to hold before evicting the least recently used one, however
+     *                   large they are.
+     */
+    public RenderCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("A render cache must be able to hold at least one entry, but the maximum number of entries was " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Manifests> eldest) {
+                return size() > RenderCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Makes this cache intern the YAML of the renderings it holds, so that YAML which is repeated within and between
+     * renderings is only held in memory once.
+     *
+     * @return This cache.
+     */
+    public RenderCache withInterner(ManifestsInterner interner) {
+        this.interner = interner;
+        return this;
+    }
+
+    /**
+     * @return The number of requests that were served without running `helm`, including requests which waited for an
+     * identical rendering that was already in progress.
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of requests that required `helm` to be run.
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The number of renderings currently held.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    Manifests get(String key, Supplier<Manifests> render) {
+        var cached = lookup(key);
+        if (cached != null) {
+            hits.increment();
+            return cached.unboundCopy();
+        }
+
+        var rendering = new CompletableFuture<Manifests>();
+        var existingRendering = inFlight.putIfAbsent(key, rendering);
+        if (existingRendering != null) {
+            hits.increment();
+            return await(existingRendering).unboundCopy();
+        }
+
+        try {
+            // Another thread may have completed the same rendering between the lookup and claiming it.
+            var manifests = lookup(key);
+            if (manifests != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+                var rendered = render.get();
+                var currentInterner = interner;
+                manifests = currentInterner == null ? rendered.immutableCopy() : currentInterner.intern(rendered);
+                synchronized (entries) {
+                    entries.put(key, manifests);
+                }
+            }
+            rendering.complete(manifests);
+            return manifests.unboundCopy();
+        } catch (RuntimeException e) {
+            rendering.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, rendering);
+        }
+    }
+
+    private Manifests lookup(String key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    private static Manifests await(CompletableFuture<Manifests> rendering) {
+        try {
+            return rendering.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+}
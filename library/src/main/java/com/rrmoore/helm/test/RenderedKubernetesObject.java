@@ -1,20 +1,175 @@
 package com.rrmoore.helm.test;
 
+import com.rrmoore.helm.test.internal.jdkext.ModelBinding;
 import com.rrmoore.helm.test.internal.jdkext.YamlMap;
 import io.kubernetes.client.common.KubernetesObject;
+import io.kubernetes.client.util.ModelMapper;
 import java.util.Objects;
+import java.util.Optional;
 
-public record RenderedKubernetesObject(KubernetesObject kubernetesObject, YamlMap yamlMap) {
+/**
+ * A Kubernetes object rendered by `helm template`, represented both as YAML and as a Kubernetes client model.
+ * <p>
+ * Objects parsed by {@link Manifests#fromYaml(String)} bind their Kubernetes client model lazily, the first time it is
+ * requested, because binding is far more expensive than parsing the YAML, and most objects are never inspected as
+ * models. Models are bound from the parsed YAML tree, so the YAML is never serialized and parsed again, and the
+ * {@link YamlLoadingOptions} it was loaded with are the only limits which apply. The apiVersion, kind, name and
+ * namespace are always read from the YAML, so they never require binding.
+ */
+public final class RenderedKubernetesObject {
+
+    private final YamlMap yamlMap;
+    private volatile KubernetesObject kubernetesObject;
+    private volatile String digest;
+    private String renderedText;
+
+    public RenderedKubernetesObject(KubernetesObject kubernetesObject, YamlMap yamlMap) {
+        this.kubernetesObject = Objects.requireNonNull(kubernetesObject);
+        this.yamlMap = yamlMap;
+    }
+
+    /**
+     * @param yamlMap The YAML of the object, from which its Kubernetes client model is bound when first requested.
+     */
+    RenderedKubernetesObject(YamlMap yamlMap) {
+        this.yamlMap = yamlMap;
+    }
+
+    /**
+     * @param renderedText The text of the document which the YAML was parsed from. See {@link #renderedText()}.
+     */
+    RenderedKubernetesObject(YamlMap yamlMap, String renderedText) {
+        this.yamlMap = yamlMap;
+        this.renderedText = renderedText;
+    }
+
+    /**
+     * @return The Kubernetes client model of this object, or an {@link UntypedKubernetesObject} if the Kubernetes
+     * client has no model for its apiVersion and kind, as is the case for custom resources.
+     */
+    public KubernetesObject kubernetesObject() {
+        var bound = kubernetesObject;
+        if (bound == null) {
+            synchronized (this) {
+                bound = kubernetesObject;
+                if (bound == null) {
+                    bound = bind(yamlMap);
+                    kubernetesObject = bound;
+                }
+            }
+        }
+        return bound;
+    }
+
+    public YamlMap yamlMap() {
+        return yamlMap;
+    }
+
+    public String apiVersion() {
+        return yamlMap.getString("apiVersion");
+    }
+
+    public String kind() {
+        return yamlMap.getString("kind");
+    }
+
+    public String name() {
+        return yamlMap.getNestedString("metadata.name").orElse(null);
+    }
+
+    public String namespace() {
+        return yamlMap.getNestedString("metadata.namespace").orElse(null);
+    }
+
+    /**
+     * The text is only kept for ConfigMaps and Secrets parsed from the output of `helm template`, so that checksums of
+     * it can be verified. It is the text which Helm rendered the object's template to, without the `# Source` comment
+     * which `helm template` adds and without leading or trailing whitespace, which Helm trims.
+     *
+     * @return The text of the YAML document which this object was rendered as, if it has been kept.
+     */
+    public Optional<String> renderedText() {
+        return Optional.ofNullable(renderedText);
+    }
+
+    /**
+     * Equality of rendered objects is decided by their digests, which are computed once, so the YAML of a rendered
+     * object must not be modified.
+     *
+     * @return A SHA-256 digest of this object's YAML content, which does not depend on the order of its map entries.
+     */
+    public String digest() {
+        var computed = digest;
+        if (computed == null) {
+            computed = yamlMap.digest();
+            digest = computed;
+        }
+        return computed;
+    }
+
+    /**
+     * @return Whether this object's Kubernetes client model has been bound yet.
+     */
+    boolean isBound() {
+        return kubernetesObject != null;
+    }
+
+    /**
+     * @return A copy of this object whose YAML is deeply immutable.
+     */
+    RenderedKubernetesObject immutableCopy() {
+        return withYamlMap(yamlMap.immutableCopy());
+    }
+
+    /**
+     * @return A copy of this object which shares its YAML, digest and rendered text, but binds its own Kubernetes client
+     * model when it is first requested.
+     */
+    RenderedKubernetesObject unboundCopy() {
+        var copy = new RenderedKubernetesObject(yamlMap, renderedText);
+        copy.digest = digest;
+        return copy;
+    }
+
+    /**
+     * @param equalYamlMap A YamlMap equal to this object's, e.g. an immutable copy of it.
+     * @return A copy of this object with the provided YamlMap. The Kubernetes client model and digest are only carried
+     * over if they have already been computed, otherwise the copy computes its own when they are first requested.
+     */
+    RenderedKubernetesObject withYamlMap(YamlMap equalYamlMap) {
+        var bound = kubernetesObject;
+        var copy = bound == null
+            ? new RenderedKubernetesObject(equalYamlMap)
+            : new RenderedKubernetesObject(bound, equalYamlMap);
+        copy.digest = digest;
+        copy.renderedText = renderedText;
+        return copy;
+    }
+
+    private static KubernetesObject bind(YamlMap yamlMap) {
+        var modelClass = ModelMapper.getApiTypeClass(yamlMap.getString("apiVersion"), yamlMap.getString("kind"));
+        if (modelClass == null || !KubernetesObject.class.isAssignableFrom(modelClass)) {
+            return new UntypedKubernetesObject(yamlMap);
+        }
+        return (KubernetesObject) ModelBinding.bind(yamlMap, modelClass);
+    }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof RenderedKubernetesObject that)) return false;
-        return Objects.equals(yamlMap, that.yamlMap);
+        return digest().equals(that.digest());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(yamlMap);
+        return digest().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "RenderedKubernetesObject{" +
+            "yamlMap=" + yamlMap +
+            '}';
     }
 }
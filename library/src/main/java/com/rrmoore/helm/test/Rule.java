@@ -0,0 +1,90 @@
+package com.rrmoore.helm.test;
+
+import com.rrmoore.helm.test.internal.jdkext.YamlPath;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A policy which rendered Kubernetes objects must satisfy, which checks every value selected by its paths in each
+ * object of the kinds it applies to. Rules are evaluated together by a {@link RuleEngine}, and common rules are
+ * provided by {@link Rules}.
+ */
+public final class Rule {
+
+    @FunctionalInterface
+    public interface Check {
+
+        /**
+         * @param manifests The Manifests being evaluated, which the object was rendered in.
+         * @param object    The rendered object which the value was selected from.
+         * @param value     A value selected by one of the rule's paths in the object, as parsed from its YAML.
+         * @return A description of how the value violates the rule, or null if it does not.
+         */
+        String check(Manifests manifests, RenderedKubernetesObject object, Object value);
+    }
+
+    private final String name;
+    private final Map<String, List<YamlPath>> pathsByKind;
+    private final Check check;
+
+    private Rule(String name, Map<String, List<YamlPath>> pathsByKind, Check check) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("A rule must have a name, but the name was '" + name + "'");
+        }
+        this.name = name;
+        this.pathsByKind = Map.copyOf(pathsByKind);
+        this.check = check;
+    }
+
+    /**
+     * @param kinds The kinds of object to which the rule applies.
+     * @param paths The paths of the values to check in each object, in the syntax of
+     *              {@link Manifests#evaluate(String)}. The empty path selects the whole object.
+     */
+    public static Rule of(String name, Set<String> kinds, List<String> paths, Check check) {
+        var compiledPaths = paths.stream().map(YamlPath::compile).toList();
+        var pathsByKind = new HashMap<String, List<YamlPath>>();
+        kinds.forEach(kind -> pathsByKind.put(kind, compiledPaths));
+        return new Rule(name, pathsByKind, check);
+    }
+
+    /**
+     * Creates a rule which applies to every kind of workload, with paths relative to the spec of the pods it creates,
+     * so that the same rule applies to CronJobs, whose pod template is within their job template.
+     *
+     * @param paths The paths of the values to check in each pod spec, in the syntax of
+     *              {@link Manifests#evaluate(String)}. The empty path selects the whole pod spec.
+     */
+    public static Rule forPodSpecs(String name, List<String> paths, Check check) {
+        var pathsByKind = new HashMap<String, List<YamlPath>>();
+        for (String kind : Workload.WORKLOAD_KINDS) {
+            var podSpecPath = Workload.podSpecPath(kind);
+            pathsByKind.put(kind, paths.stream()
+                .map(path -> path.isEmpty() ? podSpecPath : path.startsWith("[") ? podSpecPath + path : podSpecPath + "." + path)
+                .map(YamlPath::compile)
+                .toList());
+        }
+        return new Rule(name, pathsByKind, check);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    Map<String, List<YamlPath>> pathsByKind() {
+        return pathsByKind;
+    }
+
+    String check(Manifests manifests, RenderedKubernetesObject object, Object value) {
+        return check.check(manifests, object, value);
+    }
+
+    @Override
+    public String toString() {
+        return "Rule{" +
+            "name='" + name + '\'' +
+            '}';
+    }
+}
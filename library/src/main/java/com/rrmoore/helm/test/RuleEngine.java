@@ -0,0 +1,116 @@
+package com.rrmoore.helm.test;
+
+import com.rrmoore.helm.test.internal.jdkext.YamlPath;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Evaluates a set of {@link Rule}s against Manifests in a single traversal of the rendered objects.
+ * <p>
+ * Rules are grouped by the kinds they apply to and then by their compiled paths when they are registered, so each
+ * object is only checked by the rules for its kind, and each path is only evaluated once per object, however many rules
+ * check the values it selects. Objects are evaluated on the calling thread unless an executor is provided, in which
+ * case batches of them are evaluated in parallel on it.
+ * <p>
+ * Instances of this class are thread-safe, so one engine can be set up once and used to evaluate the Manifests of
+ * every values overlay.
+ */
+public class RuleEngine {
+
+    private static final int PARALLEL_BATCH_SIZE = 64;
+
+    private final List<Rule> rules = new ArrayList<>();
+    private volatile Map<String, Map<YamlPath, List<Rule>>> rulesByKindAndPath = Map.of();
+    private volatile Executor executor;
+
+    /**
+     * @throws IllegalArgumentException if a rule with the same name has already been registered.
+     */
+    public synchronized RuleEngine withRule(Rule rule) {
+        if (rules.stream().anyMatch(it -> it.name().equals(rule.name()))) {
+            throw new IllegalArgumentException("A rule named '" + rule.name() + "' has already been registered");
+        }
+        rules.add(rule);
+        var grouped = new HashMap<String, Map<YamlPath, List<Rule>>>();
+        for (Rule registered : rules) {
+            registered.pathsByKind().forEach((kind, paths) -> {
+                var byPath = grouped.computeIfAbsent(kind, k -> new LinkedHashMap<>());
+                paths.forEach(path -> byPath.computeIfAbsent(path, p -> new ArrayList<>()).add(registered));
+            });
+        }
+        rulesByKindAndPath = grouped;
+        return this;
+    }
+
+    public RuleEngine withRules(Rule... rules) {
+        for (Rule rule : rules) {
+            withRule(rule);
+        }
+        return this;
+    }
+
+    /**
+     * @param executor The executor on which to evaluate batches of objects in parallel, or null to evaluate them on the
+     *                 calling thread.
+     */
+    public RuleEngine withExecutor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    public RuleReport evaluate(Manifests manifests) {
+        var grouped = rulesByKindAndPath;
+        var currentExecutor = executor;
+        var objects = manifests.renderedObjects();
+        if (currentExecutor == null || objects.size() <= PARALLEL_BATCH_SIZE) {
+            return new RuleReport(evaluate(manifests, objects, grouped));
+        }
+
+        var batches = new ArrayList<CompletableFuture<List<RuleReport.Violation>>>();
+        for (int start = 0; start < objects.size(); start += PARALLEL_BATCH_SIZE) {
+            var batch = objects.subList(start, Math.min(start + PARALLEL_BATCH_SIZE, objects.size()));
+            batches.add(CompletableFuture.supplyAsync(() -> evaluate(manifests, batch, grouped), currentExecutor));
+        }
+        var violations = new ArrayList<RuleReport.Violation>();
+        for (CompletableFuture<List<RuleReport.Violation>> batch : batches) {
+            violations.addAll(await(batch));
+        }
+        return new RuleReport(violations);
+    }
+
+    private static List<RuleReport.Violation> evaluate(Manifests manifests, List<RenderedKubernetesObject> objects, Map<String, Map<YamlPath, List<Rule>>> grouped) {
+        var violations = new ArrayList<RuleReport.Violation>();
+        for (RenderedKubernetesObject object : objects) {
+            var byPath = grouped.get(object.kind());
+            if (byPath == null) {
+                continue;
+            }
+            byPath.forEach((path, pathRules) -> path.forEach(object.yamlMap(), value -> {
+                for (Rule rule : pathRules) {
+                    var message = rule.check(manifests, object, value);
+                    if (message != null) {
+                        violations.add(new RuleReport.Violation(rule.name(), object, message));
+                    }
+                }
+            }));
+        }
+        return violations;
+    }
+
+    private static List<RuleReport.Violation> await(CompletableFuture<List<RuleReport.Violation>> batch) {
+        try {
+            return batch.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.rrmoore.helm.test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The violations found by evaluating a {@link RuleEngine}'s rules, in the order in which the violating objects were
+ * rendered.
+ */
+public record RuleReport(List<Violation> violations) {
+
+    public record Violation(String rule, RenderedKubernetesObject object, String message) {
+
+        @Override
+        public String toString() {
+            return "Rule '" + rule + "' is violated by " + object.kind() + " '" + object.name() + "': " + message;
+        }
+    }
+
+    public RuleReport {
+        violations = List.copyOf(violations);
+    }
+
+    public boolean success() {
+        return violations.isEmpty();
+    }
+
+    /**
+     * @return The violations of the rule with the provided name.
+     */
+    public List<Violation> violations(String rule) {
+        return violations.stream()
+            .filter(it -> it.rule().equals(rule))
+            .toList();
+    }
+
+    /**
+     * @return A description of every violation, one per line, or the empty string if there are none.
+     */
+    public String message() {
+        return violations.stream()
+            .map(Violation::toString)
+            .collect(Collectors.joining("\n"));
+    }
+}
@@ -0,0 +1,117 @@
+package com.rrmoore.helm.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Rules for policies which are commonly enforced on the workloads rendered by Helm charts.
+ */
+public final class Rules {
+
+    private Rules() {
+    }
+
+    /**
+     * Containers must use images which are pinned to a tag other than "latest", or to a digest.
+     */
+    public static Rule noLatestImageTags() {
+        return Rule.forPodSpecs("no-latest-image-tags", List.of("containers[*].image", "initContainers[*].image"), (manifests, object, value) -> {
+            var image = String.valueOf(value);
+            if (image.contains("@")) {
+                return null;
+            }
+            int tagSeparator = image.indexOf(':', image.lastIndexOf('/') + 1);
+            if (tagSeparator == -1) {
+                return "Image '" + image + "' has no tag, so uses the latest tag.";
+            }
+            return image.substring(tagSeparator + 1).equals("latest") ? "Image '" + image + "' uses the latest tag." : null;
+        });
+    }
+
+    /**
+     * Containers must set resource limits.
+     */
+    public static Rule resourceLimitsSet() {
+        return Rule.forPodSpecs("resource-limits-set", List.of("containers[*]"), (manifests, object, value) ->
+            nested(value, "resources", "limits") instanceof Map<?, ?> limits && !limits.isEmpty()
+                ? null
+                : "Container '" + nested(value, "name") + "' does not set resource limits.");
+    }
+
+    /**
+     * Containers must set liveness and readiness probes.
+     */
+    public static Rule probesPresent() {
+        return Rule.forPodSpecs("probes-present", List.of("containers[*]"), (manifests, object, value) -> {
+            var missing = new ArrayList<String>();
+            if (nested(value, "livenessProbe") == null) {
+                missing.add("livenessProbe");
+            }
+            if (nested(value, "readinessProbe") == null) {
+                missing.add("readinessProbe");
+            }
+            return missing.isEmpty() ? null : "Container '" + nested(value, "name") + "' does not set " + String.join(" or ", missing) + ".";
+        });
+    }
+
+    /**
+     * Every container, including init containers, must run as a non-root user, by setting runAsNonRoot to true in its
+     * own security context or in its pod's, without overriding it to false.
+     */
+    public static Rule runAsNonRoot() {
+        return Rule.forPodSpecs("run-as-non-root", List.of(""), (manifests, object, podSpec) -> {
+            var podRunAsNonRoot = Boolean.TRUE.equals(nested(podSpec, "securityContext", "runAsNonRoot"));
+            var mayRunAsRoot = new ArrayList<String>();
+            for (String containersKey : List.of("initContainers", "containers")) {
+                if (nested(podSpec, containersKey) instanceof List<?> containers) {
+                    for (Object container : containers) {
+                        var runAsNonRoot = nested(container, "securityContext", "runAsNonRoot");
+                        if (runAsNonRoot == null ? !podRunAsNonRoot : !Boolean.TRUE.equals(runAsNonRoot)) {
+                            mayRunAsRoot.add(String.valueOf(nested(container, "name")));
+                        }
+                    }
+                }
+            }
+            return mayRunAsRoot.isEmpty() ? null : "Containers " + mayRunAsRoot + " may run as root, because runAsNonRoot is not true for them or their pod.";
+        });
+    }
+
+    /**
+     * Workloads must have a checksum annotation for each ConfigMap and Secret they reference, and no others. See
+     * {@link Workload#verifyChecksumAnnotations()}.
+     */
+    public static Rule checksumAnnotations() {
+        return Rule.of("checksum-annotations", Workload.WORKLOAD_KINDS, List.of(""), (manifests, object, value) -> {
+            var result = new Workload(object).verifyChecksumAnnotations();
+            return result.success() ? null : result.message();
+        });
+    }
+
+    /**
+     * Workloads must have a checksum annotation for each ConfigMap and Secret they reference, and no others, whose
+     * values are the checksums computed by the strategy. See
+     * {@link Workload#verifyChecksumAnnotations(Manifests, ChecksumStrategy)}.
+     */
+    public static Rule checksumAnnotations(ChecksumStrategy strategy) {
+        Objects.requireNonNull(strategy, "strategy");
+        return Rule.of("checksum-annotations", Workload.WORKLOAD_KINDS, List.of(""), (manifests, object, value) -> {
+            var result = new Workload(object).verifyChecksumAnnotations(manifests, strategy);
+            return result.success() ? null : result.message();
+        });
+    }
+
+    /**
+     * @return The value at the keys within the node, or null if there is none.
+     */
+    private static Object nested(Object node, String... keys) {
+        for (String key : keys) {
+            if (!(node instanceof Map<?, ?> map)) {
+                return null;
+            }
+            node = map.get(key);
+        }
+        return node;
+    }
+}
@@ -0,0 +1,37 @@
+package com.rrmoore.helm.test;
+
+import java.util.List;
+
+/**
+ * A way of rendering the templates of a Helm chart, which HelmExecutor can use instead of running the `helm` executable.
+ * Use {@link HelmExecutor#withTemplateBackend(TemplateBackend)} to plug one in.
+ * <p>
+ * Implementations are expected to match the behaviour of `helm template`. The `helm` executable remains the reference
+ * implementation, which is available through {@link HelmExecutor#helmBinaryBackend()}, and which you can compare
+ * any other implementation against using {@link DifferentialTemplateBackend}. {@link JvmTemplateBackend} renders a
+ * subset of charts without running `helm`.
+ */
+public interface TemplateBackend {
+
+    /**
+     * @return A string which identifies this backend and its version. Renderings are only shared through a
+     * {@link RenderCache} between backends with the same identity.
+     */
+    String identity();
+
+    /**
+     * Renders the chart using all the provided YAML-formatted values.
+     *
+     * @return Parsed, rendered Kubernetes manifests.
+     * @throws RuntimeException if rendering fails.
+     */
+    Manifests template(HelmChart chart, List<String> valuesYamls);
+
+    /**
+     * Renders the chart using all the provided YAML-formatted values, with the expectation that it will fail.
+     *
+     * @return The error message describing why rendering failed.
+     * @throws RuntimeException if rendering succeeds.
+     */
+    String templateError(HelmChart chart, List<String> valuesYamls);
+}
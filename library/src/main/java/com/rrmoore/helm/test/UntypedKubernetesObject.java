@@ -0,0 +1,49 @@
+package com.rrmoore.helm.test;
+
+import com.rrmoore.helm.test.internal.jdkext.ModelBinding;
+import com.rrmoore.helm.test.internal.jdkext.YamlMap;
+import io.kubernetes.client.common.KubernetesObject;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+
+/**
+ * A rendered Kubernetes object whose apiVersion and kind have no model in the Kubernetes client, such as a custom
+ * resource. Only its metadata is bound to a model. The rest of it can be read from its YAML.
+ */
+public final class UntypedKubernetesObject implements KubernetesObject {
+
+    private final YamlMap yamlMap;
+    private final V1ObjectMeta metadata;
+
+    UntypedKubernetesObject(YamlMap yamlMap) {
+        this.yamlMap = yamlMap;
+        this.metadata = yamlMap.getNestedObject("metadata")
+            .map(it -> ModelBinding.bind(it, V1ObjectMeta.class))
+            .orElseGet(V1ObjectMeta::new);
+    }
+
+    @Override
+    public String getApiVersion() {
+        return yamlMap.getString("apiVersion");
+    }
+
+    @Override
+    public String getKind() {
+        return yamlMap.getString("kind");
+    }
+
+    @Override
+    public V1ObjectMeta getMetadata() {
+        return metadata;
+    }
+
+    public YamlMap yamlMap() {
+        return yamlMap;
+    }
+
+    @Override
+    public String toString() {
+        return "UntypedKubernetesObject{" +
+            "yamlMap=" + yamlMap +
+            '}';
+    }
+}
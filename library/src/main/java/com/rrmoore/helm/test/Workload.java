@@ -1,29 +1,62 @@
 package com.rrmoore.helm.test;
 
-import com.rrmoore.helm.test.internal.jdkext.YamlMap;
+import com.rrmoore.helm.test.internal.jdkext.ModelBinding;
+import com.rrmoore.helm.test.internal.jdkext.YamlPath;
 import io.kubernetes.client.openapi.models.V1Container;
-import io.kubernetes.client.util.Yaml;
+import io.kubernetes.client.openapi.models.V1EphemeralContainer;
+import io.kubernetes.client.openapi.models.V1PodSpec;
+import io.kubernetes.client.openapi.models.V1Volume;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class Workload {
 
-    private static final org.yaml.snakeyaml.Yaml SNAKE_YAML = new org.yaml.snakeyaml.Yaml();
     static final Set<String> WORKLOAD_KINDS = Set.of("Deployment", "StatefulSet", "ReplicaSet", "Job", "CronJob", "DaemonSet");
 
+    // Relative to the pod spec, which is at a different path in CronJobs than in other workloads.
+    private static final List<YamlPath> CONFIG_MAP_REFERENCES = Stream.of(
+        "containers[*].env[*].valueFrom.configMapKeyRef.name",
+        "containers[*].envFrom[*].configMapRef.name",
+        "volumes[*].configMap.name"
+    ).map(YamlPath::compile).toList();
+    private static final List<YamlPath> SECRET_REFERENCES = Stream.of(
+        "containers[*].env[*].valueFrom.secretKeyRef.name",
+        "containers[*].envFrom[*].secretRef.name",
+        "imagePullSecrets[*].name",
+        "volumes[*].secret.secretName"
+    ).map(YamlPath::compile).toList();
+
     private final RenderedKubernetesObject renderedKubernetesObject;
+    private volatile V1PodSpec podSpec;
 
     public Workload(RenderedKubernetesObject renderedKubernetesObject) {
-        checkKind(renderedKubernetesObject.kubernetesObject().getKind(),
-            renderedKubernetesObject.kubernetesObject().getMetadata().getName());
+        checkKind(renderedKubernetesObject.kind(), renderedKubernetesObject.name());
         this.renderedKubernetesObject = renderedKubernetesObject;
     }
 
+    /**
+     * @return The dot-separated path to the pod template in a workload of the provided kind.
+     */
+    static String podTemplatePath(String kind) {
+        return kind.equals("CronJob") ? "spec.jobTemplate.spec.template" : "spec.template";
+    }
+
+    /**
+     * @return The dot-separated path to the pod spec in a workload of the provided kind.
+     */
+    static String podSpecPath(String kind) {
+        return podTemplatePath(kind) + ".spec";
+    }
+
     public static void checkKind(String kind, String... context) {
         if (!WORKLOAD_KINDS.contains(kind)) {
             var contextSuffix = context.length == 0 ? "" : " (" + Arrays.toString(context) + ")";
@@ -32,72 +65,130 @@ public class Workload {
     }
 
     public String name() {
-        return renderedKubernetesObject.kubernetesObject().getMetadata().getName();
+        return renderedKubernetesObject.name();
+    }
+
+    public String namespace() {
+        return renderedKubernetesObject.namespace();
+    }
+
+    /**
+     * @return The labels of the workload's pod template, which are the labels its pods are created with.
+     */
+    public Map<String, String> labels() {
+        var labels = new LinkedHashMap<String, String>();
+        var maybeLabels = renderedKubernetesObject.yamlMap().getNested(podTemplatePath(renderedKubernetesObject.kind()) + ".metadata.labels");
+        if (maybeLabels.isPresent() && maybeLabels.get() instanceof Map<?, ?> labelsMap) {
+            labelsMap.forEach((key, value) -> labels.put(String.valueOf(key), String.valueOf(value)));
+        }
+        return Collections.unmodifiableMap(labels);
+    }
+
+    RenderedKubernetesObject renderedKubernetesObject() {
+        return renderedKubernetesObject;
+    }
+
+    /**
+     * The pod spec is bound from the workload's YAML the first time it is requested, and shared by every later call to
+     * this method and to the methods which return parts of it, so it must be treated as read-only.
+     *
+     * @return The spec of the pods which this workload creates, which for a CronJob is in its job template.
+     */
+    public V1PodSpec podSpec() {
+        var bound = podSpec;
+        if (bound == null) {
+            var tree = renderedKubernetesObject.yamlMap().getNested(podSpecPath(renderedKubernetesObject.kind()))
+                .filter(it -> it instanceof Map<?, ?>)
+                .orElseThrow(() -> new IllegalStateException("Workload " + renderedKubernetesObject.name() + " does not define a pod spec"));
+            bound = ModelBinding.bind(tree, V1PodSpec.class);
+            podSpec = bound;
+        }
+        return bound;
     }
 
     public List<V1Container> containers() {
-        var containers = renderedKubernetesObject.yamlMap().getNestedList("spec.template.spec.containers")
-            .orElseThrow(() -> new IllegalStateException("Workload " + renderedKubernetesObject.kubernetesObject().getMetadata().getName() + " does not define any containers"));
-        return containers.stream()
-            .map(container -> Yaml.loadAs(SNAKE_YAML.dump(container), V1Container.class))
-            .toList();
+        var containers = podSpec().getContainers();
+        if (containers == null) {
+            throw new IllegalStateException("Workload " + renderedKubernetesObject.name() + " does not define any containers");
+        }
+        return Collections.unmodifiableList(containers);
+    }
+
+    /**
+     * @return The init containers of the workload's pods, or an empty list if it has none.
+     */
+    public List<V1Container> initContainers() {
+        return unmodifiableOrEmpty(podSpec().getInitContainers());
+    }
+
+    /**
+     * @return The ephemeral containers of the workload's pods, or an empty list if it has none.
+     */
+    public List<V1EphemeralContainer> ephemeralContainers() {
+        return unmodifiableOrEmpty(podSpec().getEphemeralContainers());
+    }
+
+    /**
+     * @return The volumes of the workload's pods, or an empty list if it has none.
+     */
+    public List<V1Volume> volumes() {
+        return unmodifiableOrEmpty(podSpec().getVolumes());
     }
 
     /**
      * Verifies that the workload has the correct set of checksum annotations to ensure that its pods will be cycled
      * whenever a ConfigMap or Secret they reference is changed.
      * <p>
-     * Note: The correctness of the checksum itself is not verified by this method.
+     * Note: The correctness of the checksum itself is not verified by this method. Use
+     * {@link #verifyChecksumAnnotations(Manifests, ChecksumStrategy)} to verify it too.
      */
     public VerifyChecksumAnnotationsResult verifyChecksumAnnotations() {
-        var referencedConfigMaps = new HashSet<String>();
-        var referencedSecrets = new HashSet<String>();
+        return verifyChecksumAnnotations0(null, null);
+    }
 
-        // Find referenced ConfigMaps and Secrets from containers' env
-        var containersList = renderedKubernetesObject.yamlMap().getNestedList("spec.template.spec.containers")
-            .orElse(List.of());
-        for (Object containerObj : containersList) {
-            if (containerObj instanceof Map<?, ?> containerMap) {
-                var container = new YamlMap(castToStringObjectMap(containerMap));
-                collectReferencesFromContainer(container, referencedConfigMaps, referencedSecrets);
-            }
-        }
+    /**
+     * Verifies that the workload has the correct set of checksum annotations, and that the value of each one is the
+     * checksum of a ConfigMap or Secret it is named after, so that pods are not left running with stale configuration.
+     * <p>
+     * The checksums are computed by the strategy from the ConfigMaps and Secrets rendered in the same namespace as the
+     * workload, once per Manifests. Annotations for objects which were not rendered, or for which the strategy cannot
+     * compute a checksum, are only checked for presence. To verify every workload in a single pass alongside other
+     * policies, use {@link Rules#checksumAnnotations(ChecksumStrategy)} with a {@link RuleEngine}.
+     *
+     * @param manifests The Manifests which this workload was rendered in.
+     * @param strategy The strategy which computes the expected checksums. It is required, since charts differ in what
+     *                 they checksum.
+     * @throws NullPointerException if either argument is null.
+     */
+    public VerifyChecksumAnnotationsResult verifyChecksumAnnotations(Manifests manifests, ChecksumStrategy strategy) {
+        Objects.requireNonNull(manifests, "manifests");
+        Objects.requireNonNull(strategy, "strategy");
+        return verifyChecksumAnnotations0(manifests, strategy);
+    }
 
-        // Find referenced Secrets from imagePullSecrets
-        var imagePullSecretsList = renderedKubernetesObject.yamlMap().getNestedList("spec.template.spec.imagePullSecrets")
-            .orElse(List.of());
-        for (Object secretObj : imagePullSecretsList) {
-            if (secretObj instanceof Map<?, ?> secretMap) {
-                var name = (String) secretMap.get("name");
-                if (name != null) {
-                    referencedSecrets.add(name);
-                }
-            }
-        }
+    private VerifyChecksumAnnotationsResult verifyChecksumAnnotations0(Manifests manifests, ChecksumStrategy strategy) {
+        var referencedConfigMaps = new HashSet<String>();
+        var referencedSecrets = new HashSet<String>();
 
-        // Find referenced ConfigMaps and Secrets from volumes
-        var volumesList = renderedKubernetesObject.yamlMap().getNestedList("spec.template.spec.volumes")
-            .orElse(List.of());
-        for (Object volumeObj : volumesList) {
-            if (volumeObj instanceof Map<?, ?> volumeMap) {
-                var volume = new YamlMap(castToStringObjectMap(volumeMap));
-                volume.getNestedString("configMap.name").ifPresent(referencedConfigMaps::add);
-                volume.getNestedString("secret.secretName").ifPresent(referencedSecrets::add);
-            }
-        }
+        // Find referenced ConfigMaps and Secrets from containers' env, imagePullSecrets and volumes
+        var kind = renderedKubernetesObject.kind();
+        renderedKubernetesObject.yamlMap().getNestedObject(podSpecPath(kind)).ifPresent(podSpecYaml -> {
+            CONFIG_MAP_REFERENCES.forEach(path -> path.forEach(podSpecYaml, name -> addName(name, referencedConfigMaps)));
+            SECRET_REFERENCES.forEach(path -> path.forEach(podSpecYaml, name -> addName(name, referencedSecrets)));
+        });
 
-        // Find checksum annotations from spec.template.metadata.annotations
-        var checksumAnnotationsKeys = new HashSet<String>();
-        var maybeAnnotations = renderedKubernetesObject.yamlMap().getNested("spec.template.metadata.annotations");
+        // Find checksum annotations from the pod template's annotations
+        var checksumAnnotations = new LinkedHashMap<String, String>();
+        var maybeAnnotations = renderedKubernetesObject.yamlMap().getNested(podTemplatePath(kind) + ".metadata.annotations");
         if (maybeAnnotations.isPresent() && maybeAnnotations.get() instanceof Map<?, ?> annotationsMap) {
-            //noinspection unchecked
-            var annotations = (Map<String, String>) annotationsMap;
-            for (String annotationKey : annotations.keySet()) {
+            annotationsMap.forEach((key, value) -> {
+                var annotationKey = String.valueOf(key);
                 if (annotationKey.toLowerCase().contains("checksum")) {
-                    checksumAnnotationsKeys.add(annotationKey);
+                    checksumAnnotations.put(annotationKey, String.valueOf(value));
                 }
-            }
+            });
         }
+        var checksumAnnotationsKeys = checksumAnnotations.keySet();
 
         // Check for missing checksum annotations
         var messages = new ArrayList<String>();
@@ -119,34 +210,47 @@ public class Workload {
             }
         }
 
+        // Check for incorrect checksums
+        if (manifests != null) {
+            var checksums = manifests.checksums(strategy);
+            checksumAnnotations.forEach((annotationKey, value) -> {
+                var expected = new LinkedHashMap<String, String>();
+                addExpectedChecksums(expected, checksums, "ConfigMap", referencedConfigMaps, annotationKey);
+                addExpectedChecksums(expected, checksums, "Secret", referencedSecrets, annotationKey);
+                if (!expected.isEmpty() && !expected.containsValue(value)) {
+                    var expectations = expected.entrySet().stream()
+                        .map(it -> "'" + it.getValue() + "' for " + it.getKey())
+                        .collect(Collectors.joining(" or "));
+                    messages.add("Workload '" + name() + "' has checksum annotation '" + annotationKey + "' with value '" + value + "', but expected " + expectations + ".");
+                }
+            });
+        }
+
         return messages.isEmpty()
             ? VerifyChecksumAnnotationsResult.SUCCESS
             : new VerifyChecksumAnnotationsResult(false, String.join("\n", messages));
     }
 
-    private void collectReferencesFromContainer(YamlMap container, Set<String> configMaps, Set<String> secrets) {
-        var envList = container.getNestedList("env").orElse(List.of());
-        for (Object envObj : envList) {
-            if (envObj instanceof Map<?, ?> envMap) {
-                var env = new YamlMap(castToStringObjectMap(envMap));
-                env.getNestedString("valueFrom.configMapKeyRef.name").ifPresent(configMaps::add);
-                env.getNestedString("valueFrom.secretKeyRef.name").ifPresent(secrets::add);
-            }
-        }
+    private void addExpectedChecksums(Map<String, String> expected, Map<ReferenceGraph.ObjectReference, String> checksums, String kind, Set<String> referencedNames, String annotationKey) {
+        referencedNames.stream()
+            .filter(annotationKey::contains)
+            .sorted()
+            .forEach(referencedName -> {
+                var checksum = checksums.get(new ReferenceGraph.ObjectReference(kind, namespace(), referencedName));
+                if (checksum != null) {
+                    expected.put(kind + " '" + referencedName + "'", checksum);
+                }
+            });
+    }
 
-        var envFromList = container.getNestedList("envFrom").orElse(List.of());
-        for (Object envFromObj : envFromList) {
-            if (envFromObj instanceof Map<?, ?> envFromMap) {
-                var envFrom = new YamlMap(castToStringObjectMap(envFromMap));
-                envFrom.getNestedString("configMapRef.name").ifPresent(configMaps::add);
-                envFrom.getNestedString("secretRef.name").ifPresent(secrets::add);
-            }
-        }
+    private static <T> List<T> unmodifiableOrEmpty(List<T> list) {
+        return list == null ? List.of() : Collections.unmodifiableList(list);
     }
 
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> castToStringObjectMap(Map<?, ?> map) {
-        return (Map<String, Object>) map;
+    private static void addName(Object name, Set<String> names) {
+        if (name instanceof String nameString) {
+            names.add(nameString);
+        }
     }
 
     public record VerifyChecksumAnnotationsResult(boolean success, String message) {
@@ -0,0 +1,100 @@
+package com.rrmoore.helm.test;
+
+import org.yaml.snakeyaml.LoaderOptions;
+
+/**
+ * The limits applied when loading the YAML of rendered Kubernetes objects, by {@link Manifests#fromYaml(String)},
+ * {@link ManifestsParser}, {@link com.rrmoore.helm.test.internal.jdkext.YamlMap} and {@link Workload}.
+ * <p>
+ * The limits apply to each YAML document separately. Use {@link #setDefault(YamlLoadingOptions)} to change them for
+ * the whole JVM, or {@link ManifestsParser#withYamlLoadingOptions(YamlLoadingOptions)} to change them for one parser.
+ * Kubernetes client models, including those returned by typed getters such as {@link Manifests#getConfigMap(String)},
+ * are bound from the YAML tree loaded with these options, without loading the YAML again, so no other limits apply
+ * to them.
+ *
+ * @param codePointLimit           The maximum number of code points in a document.
+ * @param maxAliasesForCollections The maximum number of aliases to maps and lists in a document.
+ * @param nestingDepthLimit        The maximum depth to which maps and lists may be nested in a document.
+ * @param allowDuplicateKeys       Whether a map may contain the same key more than once, in which case the last value wins.
+ */
+public record YamlLoadingOptions(int codePointLimit, int maxAliasesForCollections, int nestingDepthLimit, boolean allowDuplicateKeys) {
+
+    private static final YamlLoadingOptions DEFAULTS = fromLoaderOptions(new LoaderOptions());
+
+    private static volatile YamlLoadingOptions defaultOptions = DEFAULTS;
+
+    public YamlLoadingOptions {
+        if (codePointLimit < 1 || maxAliasesForCollections < 0 || nestingDepthLimit < 1) {
+            throw new IllegalArgumentException("YAML loading limits must not be negative, and the code point and nesting depth limits must be positive, but they were codePointLimit=" + codePointLimit + ", maxAliasesForCollections=" + maxAliasesForCollections + ", nestingDepthLimit=" + nestingDepthLimit);
+        }
+    }
+
+    /**
+     * @return SnakeYAML's default limits: 3 MB of code points, 50 aliases, nesting 50 deep and duplicate keys allowed.
+     */
+    public static YamlLoadingOptions snakeYamlDefaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * @return Limits for the large output of trusted charts, e.g. ConfigMaps embedding dashboards or rule files:
+     * documents of any size, any number of aliases, nesting 1,000 deep and duplicate keys allowed.
+     */
+    public static YamlLoadingOptions largeTrustedOutput() {
+        return new YamlLoadingOptions(Integer.MAX_VALUE, Integer.MAX_VALUE, 1000, true);
+    }
+
+    /**
+     * @return Limits which reject YAML that Kubernetes would not accept as intended: SnakeYAML's default document size
+     * and nesting limits, no aliases to maps or lists, and no duplicate keys.
+     */
+    public static YamlLoadingOptions strict() {
+        return new YamlLoadingOptions(DEFAULTS.codePointLimit, 0, DEFAULTS.nestingDepthLimit, false);
+    }
+
+    /**
+     * @return The options used wherever options are not provided explicitly. These are SnakeYAML's defaults, unless they
+     * have been changed using {@link #setDefault(YamlLoadingOptions)}.
+     */
+    public static YamlLoadingOptions getDefault() {
+        return defaultOptions;
+    }
+
+    public static void setDefault(YamlLoadingOptions options) {
+        defaultOptions = options;
+    }
+
+    public YamlLoadingOptions withCodePointLimit(int codePointLimit) {
+        return new YamlLoadingOptions(codePointLimit, maxAliasesForCollections, nestingDepthLimit, allowDuplicateKeys);
+    }
+
+    public YamlLoadingOptions withMaxAliasesForCollections(int maxAliasesForCollections) {
+        return new YamlLoadingOptions(codePointLimit, maxAliasesForCollections, nestingDepthLimit, allowDuplicateKeys);
+    }
+
+    public YamlLoadingOptions withNestingDepthLimit(int nestingDepthLimit) {
+        return new YamlLoadingOptions(codePointLimit, maxAliasesForCollections, nestingDepthLimit, allowDuplicateKeys);
+    }
+
+    public YamlLoadingOptions withAllowDuplicateKeys(boolean allowDuplicateKeys) {
+        return new YamlLoadingOptions(codePointLimit, maxAliasesForCollections, nestingDepthLimit, allowDuplicateKeys);
+    }
+
+    public LoaderOptions toLoaderOptions() {
+        var loaderOptions = new LoaderOptions();
+        loaderOptions.setCodePointLimit(codePointLimit);
+        loaderOptions.setMaxAliasesForCollections(maxAliasesForCollections);
+        loaderOptions.setNestingDepthLimit(nestingDepthLimit);
+        loaderOptions.setAllowDuplicateKeys(allowDuplicateKeys);
+        return loaderOptions;
+    }
+
+    private static YamlLoadingOptions fromLoaderOptions(LoaderOptions loaderOptions) {
+        return new YamlLoadingOptions(
+            loaderOptions.getCodePointLimit(),
+            loaderOptions.getMaxAliasesForCollections(),
+            loaderOptions.getNestingDepthLimit(),
+            loaderOptions.isAllowDuplicateKeys()
+        );
+    }
+}
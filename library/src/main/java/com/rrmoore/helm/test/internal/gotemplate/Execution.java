@@ -0,0 +1,406 @@
+package com.rrmoore.helm.test.internal.gotemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The state of executing a template, which mirrors the state type of Go's text/template package.
+ */
+final class Execution {
+
+    // Go's limit on the depth of nested template calls.
+    private static final int MAX_TEMPLATE_DEPTH = 100_000;
+
+    // Helm's limit on the depth of nested include calls, which stops a recursive template from overflowing the stack.
+    private static final int MAX_INCLUDE_DEPTH = 1000;
+
+    private static final class Variable {
+
+        private final String name;
+        private Object value;
+
+        private Variable(String name, Object value) {
+            this.name = name;
+            this.value = value;
+        }
+    }
+
+    private static final class BreakSignal extends RuntimeException {
+
+        private BreakSignal() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final class ContinueSignal extends RuntimeException {
+
+        private ContinueSignal() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final BreakSignal BREAK = new BreakSignal();
+    private static final ContinueSignal CONTINUE = new ContinueSignal();
+
+    private final Templates templates;
+    private List<Variable> variables = new ArrayList<>();
+    private String templateName;
+    private Templates.Definition definition;
+    private int line;
+    private int depth;
+    private int includeDepth;
+
+    Execution(Templates templates) {
+        this.templates = templates;
+    }
+
+    String execute(String name, Object data) {
+        var found = templates.definition(name);
+        if (found == null) {
+            throw new TemplateException("template: no template \"" + name + "\" associated with template \"gotpl\"");
+        }
+        var out = new StringBuilder();
+        call(name, found, data, out);
+        return out.toString();
+    }
+
+    /**
+     * Implements Helm's include function.
+     */
+    String include(String name, Object data) {
+        var found = templates.definition(name);
+        if (found == null) {
+            throw new FunctionFailure("template: no template \"" + name + "\" associated with template \"gotpl\"");
+        }
+        if (includeDepth >= MAX_INCLUDE_DEPTH) {
+            throw new FunctionFailure("rendering template has a nested reference name: " + name + ": unable to execute template");
+        }
+        includeDepth++;
+        int savedLine = line;
+        try {
+            var out = new StringBuilder();
+            call(name, found, data, out);
+            return out.toString();
+        } finally {
+            includeDepth--;
+            line = savedLine;
+        }
+    }
+
+    /**
+     * Implements Helm's tpl function, which parses and executes a template that can include the templates of this one.
+     */
+    String tpl(String text, Object data) {
+        var set = templates.copy();
+        try {
+            set.parse(templateName, text);
+        } catch (TemplateException e) {
+            throw new FunctionFailure("cannot parse template " + GoValues.quote(text) + ": " + e.getMessage());
+        }
+        var execution = new Execution(set);
+        execution.includeDepth = includeDepth;
+        return execution.execute(templateName, data).replace(GoValues.NO_VALUE, "");
+    }
+
+    private void call(String name, Templates.Definition called, Object dot, StringBuilder out) {
+        if (depth >= MAX_TEMPLATE_DEPTH) {
+            throw new TemplateException("template: " + called.parseName() + ": exceeded maximum template depth (" + MAX_TEMPLATE_DEPTH + ")");
+        }
+        var savedVariables = variables;
+        var savedName = templateName;
+        var savedDefinition = definition;
+        variables = new ArrayList<>();
+        variables.add(new Variable("$", dot));
+        templateName = name;
+        definition = called;
+        depth++;
+        try {
+            walk(called.body(), dot, out);
+        } finally {
+            depth--;
+            variables = savedVariables;
+            templateName = savedName;
+            definition = savedDefinition;
+        }
+    }
+
+    private void walk(List<Node> nodes, Object dot, StringBuilder out) {
+        for (Node node : nodes) {
+            switch (node) {
+                case Node.Text text -> out.append(text.text());
+                case Node.Action action -> {
+                    var value = evalPipeline(dot, action.pipeline());
+                    if (action.pipeline().variables().isEmpty()) {
+                        out.append(GoValues.print(value));
+                    }
+                }
+                case Node.If ifNode -> {
+                    int mark = variables.size();
+                    try {
+                        var value = evalPipeline(dot, ifNode.pipeline());
+                        walk(GoValues.truth(value) ? ifNode.list() : ifNode.elseList(), dot, out);
+                    } finally {
+                        pop(mark);
+                    }
+                }
+                case Node.With with -> {
+                    int mark = variables.size();
+                    try {
+                        var value = evalPipeline(dot, with.pipeline());
+                        if (GoValues.truth(value)) {
+                            walk(with.list(), value, out);
+                        } else {
+                            walk(with.elseList(), dot, out);
+                        }
+                    } finally {
+                        pop(mark);
+                    }
+                }
+                case Node.Range range -> walkRange(range, dot, out);
+                case Node.Template template -> {
+                    line = template.line();
+                    var called = templates.definition(template.name());
+                    if (called == null) {
+                        throw error("template " + GoValues.quote(template.name()), "no such template \"" + template.name() + "\"");
+                    }
+                    var data = template.pipeline() == null ? null : evalPipeline(dot, template.pipeline());
+                    call(template.name(), called, data, out);
+                }
+                case Node.Break ignored -> throw BREAK;
+                case Node.Continue ignored -> throw CONTINUE;
+            }
+        }
+    }
+
+    private void walkRange(Node.Range range, Object dot, StringBuilder out) {
+        int mark = variables.size();
+        try {
+            var pipeline = range.pipeline();
+            var value = evalPipeline(dot, pipeline);
+            boolean iterated = false;
+            switch (value) {
+                case null -> {
+                }
+                case List<?> list -> {
+                    for (int i = 0; i < list.size(); i++) {
+                        iterated = true;
+                        if (!iterate(range, (long) i, list.get(i), out)) {
+                            break;
+                        }
+                    }
+                }
+                case Map<?, ?> map -> {
+                    var keys = map.keySet().stream().map(String::valueOf).sorted(GoValues::compareCodePoints).toList();
+                    for (String key : keys) {
+                        iterated = true;
+                        if (!iterate(range, key, map.get(key), out)) {
+                            break;
+                        }
+                    }
+                }
+                default -> {
+                    if (!GoValues.isInt(value)) {
+                        throw error(pipeline, "range can't iterate over " + GoValues.format(value));
+                    }
+                    if (pipeline.variables().size() > 1) {
+                        throw error(pipeline, "can't use " + value + " to iterate over more than one variable");
+                    }
+                    long count = ((Number) value).longValue();
+                    for (long i = 0; i < count; i++) {
+                        iterated = true;
+                        if (!iterate(range, i, i, out)) {
+                            break;
+                        }
+                    }
+                }
+            }
+            if (!iterated) {
+                walk(range.elseList(), dot, out);
+            }
+        } finally {
+            pop(mark);
+        }
+    }
+
+    /**
+     * @return False if the iteration ended with {{break}}.
+     */
+    private boolean iterate(Node.Range range, Object key, Object element, StringBuilder out) {
+        var declared = range.pipeline().variables();
+        if (range.pipeline().assign()) {
+            if (declared.size() > 1) {
+                setVariable(declared.get(0), key);
+                setVariable(declared.get(1), element);
+            } else if (!declared.isEmpty()) {
+                setVariable(declared.getFirst(), element);
+            }
+        } else if (!declared.isEmpty()) {
+            variables.get(variables.size() - 1).value = element;
+            if (declared.size() > 1) {
+                variables.get(variables.size() - 2).value = key;
+            }
+        }
+        int mark = variables.size();
+        try {
+            walk(range.list(), element, out);
+        } catch (ContinueSignal ignored) {
+            // The next iteration starts.
+        } catch (BreakSignal ignored) {
+            return false;
+        } finally {
+            pop(mark);
+        }
+        return true;
+    }
+
+    private Object evalPipeline(Object dot, Node.Pipeline pipeline) {
+        line = pipeline.line();
+        Object value = null;
+        boolean hasValue = false;
+        for (Node.Command command : pipeline.commands()) {
+            value = evalCommand(dot, command, value, hasValue);
+            hasValue = true;
+        }
+        for (String variable : pipeline.variables()) {
+            if (pipeline.assign()) {
+                setVariable(variable, value);
+            } else {
+                variables.add(new Variable(variable, value));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @param finalValue The result of the previous command of the pipeline, which is the last argument of a function.
+     */
+    private Object evalCommand(Object dot, Node.Command command, Object finalValue, boolean hasFinal) {
+        var first = command.arguments().getFirst();
+        if (first instanceof Node.Function function) {
+            return evalCall(dot, command, function.name(), command.arguments().subList(1, command.arguments().size()), finalValue, hasFinal);
+        }
+        if (command.arguments().size() > 1 || hasFinal) {
+            var fields = switch (first) {
+                case Node.Field field -> field.names();
+                case Node.Chain chain -> chain.fields();
+                case Node.Variable variable -> variable.fields();
+                default -> List.<String>of();
+            };
+            throw error(command, fields.isEmpty()
+                ? "can't give argument to non-function " + first
+                : fields.getLast() + " is not a method but has arguments");
+        }
+        if (first instanceof Node.Nil) {
+            throw error(command, "nil is not a command");
+        }
+        return evalArgument(dot, first);
+    }
+
+    private Object evalArgument(Object dot, Node.Argument argument) {
+        return switch (argument) {
+            case Node.Dot ignored -> dot;
+            case Node.Nil ignored -> null;
+            case Node.Literal literal -> literal.value();
+            case Node.Field field -> evalFields(dot, field.names(), field);
+            case Node.Variable variable -> evalFields(variable(variable), variable.fields(), variable);
+            case Node.Parenthesized parenthesized -> evalPipeline(dot, parenthesized.pipeline());
+            case Node.Chain chain -> evalFields(evalArgument(dot, chain.operand()), chain.fields(), chain);
+            case Node.Function function -> evalCall(dot, new Node.Command(List.of(function)), function.name(), List.of(), null, false);
+        };
+    }
+
+    /**
+     * Looks up a chain of fields. A nil value at the start of the chain evaluates to nil, but a nil value of a map
+     * entry within it cannot be evaluated further, which is Go's behaviour with Helm's `missingkey=zero` option.
+     */
+    private Object evalFields(Object receiver, List<String> names, Node.Argument node) {
+        var value = receiver;
+        boolean fromMap = false;
+        for (String name : names) {
+            if (value == null) {
+                if (fromMap) {
+                    throw error(node, "nil pointer evaluating interface {}." + name);
+                }
+                return null;
+            }
+            if (!(value instanceof Map<?, ?> map)) {
+                throw error(node, "can't evaluate field " + name + " in type " + GoValues.typeName(value));
+            }
+            value = map.get(name);
+            fromMap = true;
+        }
+        return value;
+    }
+
+    private Object evalCall(Object dot, Node.Command command, String name, List<Node.Argument> arguments, Object finalValue, boolean hasFinal) {
+        int callLine = line;
+        if (name.equals("and") || name.equals("or")) {
+            return evalAndOr(dot, command, name, arguments, finalValue, hasFinal);
+        }
+        var values = new ArrayList<>(arguments.size() + 1);
+        for (Node.Argument argument : arguments) {
+            values.add(evalArgument(dot, argument));
+        }
+        if (hasFinal) {
+            values.add(finalValue);
+        }
+        try {
+            return Functions.get(name).call(this, values);
+        } catch (FunctionFailure e) {
+            if (name.equals("fail") || name.equals("required")) {
+                throw new TemplateException("execution error at (" + definition.parseName() + ":" + callLine + "): " + e.getMessage());
+            }
+            line = callLine;
+            throw error(command, "error calling " + name + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * `and` and `or` only evaluate their arguments until the result is known.
+     */
+    private Object evalAndOr(Object dot, Node.Command command, String name, List<Node.Argument> arguments, Object finalValue, boolean hasFinal) {
+        int count = arguments.size() + (hasFinal ? 1 : 0);
+        if (count == 0) {
+            throw error(command, "wrong number of args for " + name + ": want at least 1 got 0");
+        }
+        boolean stopWhen = name.equals("or");
+        Object value = null;
+        for (int i = 0; i < count; i++) {
+            value = i < arguments.size() ? evalArgument(dot, arguments.get(i)) : finalValue;
+            if (GoValues.truth(value) == stopWhen) {
+                return value;
+            }
+        }
+        return value;
+    }
+
+    private Object variable(Node.Variable node) {
+        for (int i = variables.size() - 1; i >= 0; i--) {
+            if (variables.get(i).name.equals(node.name())) {
+                return variables.get(i).value;
+            }
+        }
+        throw error(node, "undefined variable: " + node.name());
+    }
+
+    private void setVariable(String name, Object value) {
+        for (int i = variables.size() - 1; i >= 0; i--) {
+            if (variables.get(i).name.equals(name)) {
+                variables.get(i).value = value;
+                return;
+            }
+        }
+        throw new TemplateException("template: " + definition.parseName() + ":" + line + ": undefined variable: " + name);
+    }
+
+    private void pop(int mark) {
+        while (variables.size() > mark) {
+            variables.removeLast();
+        }
+    }
+
+    private TemplateException error(Object node, String message) {
+        return new TemplateException("template: " + definition.parseName() + ":" + line + ": executing \"" + templateName + "\" at <" + node + ">: " + message);
+    }
+}
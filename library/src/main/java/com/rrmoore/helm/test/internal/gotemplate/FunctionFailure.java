@@ -0,0 +1,11 @@
+package com.rrmoore.helm.test.internal.gotemplate;
+
+/**
+ * A failure of a template function, which the execution reports along with the location of the call.
+ */
+class FunctionFailure extends RuntimeException {
+
+    FunctionFailure(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,805 @@
+package com.rrmoore.helm.test.internal.gotemplate;
+
+import com.rrmoore.helm.test.internal.jdkext.Exceptions;
+import com.rrmoore.helm.test.internal.jdkext.GoJson;
+import com.rrmoore.helm.test.internal.jdkext.Sha256Sum;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * The functions available to templates: the builtins of Go's text/template, except html, js, urlquery, slice and call;
+ * the Sprig functions that charts commonly use; and Helm's include, tpl, required, fail, toYaml, fromYaml, toJson,
+ * fromJson and lookup. Like `helm template`, lookup always finds nothing.
+ * <p>
+ * The keys function returns the keys in order, where Sprig returns them in Go's random map order.
+ */
+final class Functions {
+
+    @FunctionalInterface
+    interface TemplateFunction {
+
+        Object call(Execution execution, List<Object> arguments);
+    }
+
+    private static final Map<String, TemplateFunction> FUNCTIONS = new HashMap<>();
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final String LETTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final String DIGITS = "0123456789";
+
+    static {
+        // Go's builtins. `and` and `or` are evaluated by the Execution, since they do not evaluate all their arguments.
+        register("and", (execution, args) -> {
+            throw new IllegalStateException("and is evaluated by the execution");
+        });
+        register("or", (execution, args) -> {
+            throw new IllegalStateException("or is evaluated by the execution");
+        });
+        register("not", args -> !GoValues.truth(single(args)));
+        register("len", args -> switch (single(args)) {
+            case String s -> (long) s.getBytes(StandardCharsets.UTF_8).length;
+            case List<?> list -> (long) list.size();
+            case Map<?, ?> map -> (long) map.size();
+            case null -> throw new FunctionFailure("len of nil pointer");
+            case Object value -> throw new FunctionFailure("len of type " + GoValues.typeName(value));
+        });
+        register("index", Functions::index);
+        register("eq", args -> {
+            atLeast(args, 2);
+            for (int i = 1; i < args.size(); i++) {
+                if (GoValues.equal(args.getFirst(), args.get(i))) {
+                    return true;
+                }
+            }
+            return false;
+        });
+        register("ne", args -> !GoValues.equal(argument(args, 0, 2), args.get(1)));
+        register("lt", args -> GoValues.compare(argument(args, 0, 2), args.get(1)) < 0);
+        register("le", args -> GoValues.compare(argument(args, 0, 2), args.get(1)) <= 0);
+        register("gt", args -> GoValues.compare(argument(args, 0, 2), args.get(1)) > 0);
+        register("ge", args -> GoValues.compare(argument(args, 0, 2), args.get(1)) >= 0);
+        register("print", Functions::sprint);
+        register("println", args -> {
+            var out = new StringBuilder();
+            for (int i = 0; i < args.size(); i++) {
+                out.append(i > 0 ? " " : "").append(GoValues.format(args.get(i)));
+            }
+            return out.append('\n').toString();
+        });
+        register("printf", args -> {
+            atLeast(args, 1);
+            return sprintf(string(args.getFirst()), args.subList(1, args.size()));
+        });
+
+        // Helm's functions.
+        register("include", (execution, args) -> execution.include(string(argument(args, 0, 2)), args.get(1)));
+        register("tpl", (execution, args) -> execution.tpl(string(argument(args, 0, 2)), args.get(1)));
+        register("required", args -> {
+            var warning = string(argument(args, 0, 2));
+            var value = args.get(1);
+            if (value == null || "".equals(value)) {
+                throw new FunctionFailure(warning);
+            }
+            return value;
+        });
+        register("fail", args -> {
+            throw new FunctionFailure(string(single(args)));
+        });
+        register("toYaml", args -> {
+            try {
+                return GoYaml.marshal(single(args));
+            } catch (IllegalArgumentException e) {
+                return "";
+            }
+        });
+        register("toJson", args -> {
+            try {
+                return GoJson.encode(single(args));
+            } catch (IllegalArgumentException e) {
+                return "";
+            }
+        });
+        register("fromYaml", args -> fromYaml(string(single(args))));
+        register("fromJson", args -> fromYaml(string(single(args))));
+        register("lookup", args -> {
+            arguments(args, 4);
+            return new LinkedHashMap<String, Object>();
+        });
+
+        // Sprig's functions.
+        register("default", args -> {
+            atLeast(args, 1);
+            return args.size() < 2 || empty(args.get(1)) ? args.getFirst() : args.get(1);
+        });
+        register("empty", args -> empty(single(args)));
+        register("coalesce", args -> args.stream().filter(value -> !empty(value)).findFirst().orElse(null));
+        register("ternary", args -> bool(argument(args, 2, 3)) ? args.get(0) : args.get(1));
+        register("toString", args -> strval(single(args)));
+        register("quote", args -> join(args, value -> GoValues.quote(strval(value))));
+        register("squote", args -> join(args, value -> "'" + strval(value) + "'"));
+        register("cat", args -> join(args, Functions::strval));
+        register("upper", args -> string(single(args)).toUpperCase());
+        register("lower", args -> string(single(args)).toLowerCase());
+        register("title", args -> title(string(single(args))));
+        register("trim", args -> string(single(args)).strip());
+        register("trimAll", args -> trim(string(argument(args, 1, 2)), string(args.get(0))));
+        register("trimPrefix", args -> {
+            var prefix = string(argument(args, 0, 2));
+            var s = string(args.get(1));
+            return s.startsWith(prefix) ? s.substring(prefix.length()) : s;
+        });
+        register("trimSuffix", args -> {
+            var suffix = string(argument(args, 0, 2));
+            var s = string(args.get(1));
+            return s.endsWith(suffix) ? s.substring(0, s.length() - suffix.length()) : s;
+        });
+        register("trunc", args -> {
+            long count = integer(argument(args, 0, 2));
+            var s = string(args.get(1));
+            if (count < 0 && s.length() + count > 0) {
+                return s.substring((int) (s.length() + count));
+            }
+            if (count >= 0 && s.length() > count) {
+                return s.substring(0, (int) count);
+            }
+            return s;
+        });
+        register("substr", args -> {
+            long start = integer(argument(args, 0, 3));
+            long end = integer(args.get(1));
+            var s = string(args.get(2));
+            if (start < 0) {
+                return s.substring(0, (int) Math.min(end, s.length()));
+            }
+            if (end < 0 || end > s.length()) {
+                return s.substring((int) Math.min(start, s.length()));
+            }
+            return s.substring((int) start, (int) end);
+        });
+        register("replace", args -> string(argument(args, 2, 3)).replace(string(args.get(0)), string(args.get(1))));
+        register("contains", args -> string(argument(args, 1, 2)).contains(string(args.get(0))));
+        register("hasPrefix", args -> string(argument(args, 1, 2)).startsWith(string(args.get(0))));
+        register("hasSuffix", args -> string(argument(args, 1, 2)).endsWith(string(args.get(0))));
+        register("repeat", args -> {
+            long count = integer(argument(args, 0, 2));
+            if (count < 0) {
+                throw new FunctionFailure("strings: negative Repeat count");
+            }
+            return string(args.get(1)).repeat((int) count);
+        });
+        register("nospace", args -> string(single(args)).replaceAll("\\s", ""));
+        register("indent", args -> indent(integer(argument(args, 0, 2)), string(args.get(1))));
+        register("nindent", args -> "\n" + indent(integer(argument(args, 0, 2)), string(args.get(1))));
+        register("split", args -> {
+            var parts = string(argument(args, 1, 2)).split(Pattern.quote(string(args.get(0))), -1);
+            var result = new LinkedHashMap<String, Object>();
+            for (int i = 0; i < parts.length; i++) {
+                result.put("_" + i, parts[i]);
+            }
+            return result;
+        });
+        register("splitList", args -> new ArrayList<Object>(Arrays.asList(string(argument(args, 1, 2)).split(Pattern.quote(string(args.get(0))), -1))));
+        register("join", args -> String.join(string(argument(args, 0, 2)), strslice(args.get(1))));
+        register("sortAlpha", args -> {
+            var sorted = new ArrayList<Object>(strslice(single(args)));
+            sorted.sort((a, b) -> GoValues.compareCodePoints((String) a, (String) b));
+            return sorted;
+        });
+        register("toStrings", args -> new ArrayList<Object>(strslice(single(args))));
+        register("regexMatch", args -> {
+            try {
+                return Pattern.compile(string(argument(args, 0, 2))).matcher(string(args.get(1))).find();
+            } catch (PatternSyntaxException e) {
+                return false;
+            }
+        });
+        register("regexFind", args -> {
+            var matcher = regex(string(argument(args, 0, 2))).matcher(string(args.get(1)));
+            return matcher.find() ? matcher.group() : "";
+        });
+        register("regexReplaceAll", args -> regex(string(argument(args, 0, 3))).matcher(string(args.get(1)))
+            .replaceAll(goReplacement(string(args.get(2)))));
+        register("regexReplaceAllLiteral", args -> regex(string(argument(args, 0, 3))).matcher(string(args.get(1)))
+            .replaceAll(Matcher.quoteReplacement(string(args.get(2)))));
+
+        register("int", args -> toInt64(single(args)));
+        register("int64", args -> toInt64(single(args)));
+        register("float64", args -> toFloat64(single(args)));
+        register("atoi", args -> {
+            try {
+                return Long.parseLong(string(single(args)));
+            } catch (NumberFormatException e) {
+                return 0L;
+            }
+        });
+        register("add", args -> args.stream().mapToLong(Functions::toInt64).sum());
+        register("add1", args -> toInt64(single(args)) + 1);
+        register("sub", args -> toInt64(argument(args, 0, 2)) - toInt64(args.get(1)));
+        register("mul", args -> args.stream().mapToLong(Functions::toInt64).reduce(1, (a, b) -> a * b));
+        register("div", args -> {
+            long divisor = toInt64(argument(args, 1, 2));
+            if (divisor == 0) {
+                throw new FunctionFailure("runtime error: integer divide by zero");
+            }
+            return toInt64(args.get(0)) / divisor;
+        });
+        register("mod", args -> {
+            long divisor = toInt64(argument(args, 1, 2));
+            if (divisor == 0) {
+                throw new FunctionFailure("runtime error: integer divide by zero");
+            }
+            return toInt64(args.get(0)) % divisor;
+        });
+        register("max", args -> {
+            atLeast(args, 1);
+            return args.stream().mapToLong(Functions::toInt64).max().orElseThrow();
+        });
+        register("min", args -> {
+            atLeast(args, 1);
+            return args.stream().mapToLong(Functions::toInt64).min().orElseThrow();
+        });
+        register("floor", args -> Math.floor(toFloat64(single(args))));
+        register("ceil", args -> Math.ceil(toFloat64(single(args))));
+        register("until", args -> untilStep(0, integer(single(args)), integer(single(args)) < 0 ? -1 : 1));
+        register("untilStep", args -> untilStep(integer(argument(args, 0, 3)), integer(args.get(1)), integer(args.get(2))));
+
+        register("list", ArrayList::new);
+        register("dict", args -> {
+            var dict = new LinkedHashMap<String, Object>();
+            for (int i = 0; i < args.size(); i += 2) {
+                dict.put(strval(args.get(i)), i + 1 < args.size() ? args.get(i + 1) : "");
+            }
+            return dict;
+        });
+        register("get", args -> {
+            var dict = map(argument(args, 0, 2));
+            var key = string(args.get(1));
+            return dict.containsKey(key) ? dict.get(key) : "";
+        });
+        register("set", args -> {
+            var dict = map(argument(args, 0, 3));
+            dict.put(string(args.get(1)), args.get(2));
+            return dict;
+        });
+        register("unset", args -> {
+            var dict = map(argument(args, 0, 2));
+            dict.remove(string(args.get(1)));
+            return dict;
+        });
+        register("hasKey", args -> map(argument(args, 0, 2)).containsKey(string(args.get(1))));
+        register("keys", args -> {
+            var keys = new TreeSet<String>(GoValues::compareCodePoints);
+            args.forEach(dict -> keys.addAll(map(dict).keySet()));
+            return new ArrayList<Object>(keys);
+        });
+        register("values", args -> new ArrayList<>(map(single(args)).values()));
+        register("pluck", args -> {
+            atLeast(args, 1);
+            var key = string(args.getFirst());
+            var values = new ArrayList<>();
+            args.subList(1, args.size()).forEach(dict -> {
+                var map = map(dict);
+                if (map.containsKey(key)) {
+                    values.add(map.get(key));
+                }
+            });
+            return values;
+        });
+        register("dig", args -> {
+            atLeast(args, 3);
+            Object current = map(args.getLast());
+            for (Object key : args.subList(0, args.size() - 2)) {
+                if (!(current instanceof Map<?, ?> map) || !map.containsKey(string(key))) {
+                    return args.get(args.size() - 2);
+                }
+                current = map.get(string(key));
+            }
+            return current;
+        });
+        register("merge", args -> merge(args, false));
+        register("mergeOverwrite", args -> merge(args, true));
+        register("deepCopy", args -> GoValues.deepCopy(single(args)));
+        register("first", args -> {
+            var list = list(single(args), "first");
+            return list.isEmpty() ? null : list.getFirst();
+        });
+        register("last", args -> {
+            var list = list(single(args), "last");
+            return list.isEmpty() ? null : list.getLast();
+        });
+        register("rest", args -> {
+            var list = list(single(args), "rest");
+            return list.isEmpty() ? null : new ArrayList<>(list.subList(1, list.size()));
+        });
+        register("initial", args -> {
+            var list = list(single(args), "initial");
+            return list.isEmpty() ? null : new ArrayList<>(list.subList(0, list.size() - 1));
+        });
+        register("append", args -> {
+            var appended = new ArrayList<Object>(list(argument(args, 0, 2), "append"));
+            appended.add(args.get(1));
+            return appended;
+        });
+        register("prepend", args -> {
+            var prepended = new ArrayList<Object>(list(argument(args, 0, 2), "prepend"));
+            prepended.addFirst(args.get(1));
+            return prepended;
+        });
+        register("concat", args -> {
+            var concatenated = new ArrayList<Object>();
+            args.forEach(list -> concatenated.addAll(list(list, "concat")));
+            return concatenated;
+        });
+        register("reverse", args -> new ArrayList<>(list(single(args), "reverse")).reversed());
+        register("uniq", args -> new ArrayList<>(new LinkedHashMap<>(toMapKeys(list(single(args), "uniq"))).keySet()));
+        register("compact", args -> new ArrayList<>(list(single(args), "compact").stream().filter(value -> !empty(value)).toList()));
+        register("without", args -> {
+            atLeast(args, 1);
+            var omitted = args.subList(1, args.size());
+            return new ArrayList<>(list(args.getFirst(), "without").stream().filter(value -> !omitted.contains(value)).toList());
+        });
+        register("has", args -> {
+            var haystack = argument(args, 1, 2);
+            return haystack != null && list(haystack, "has").contains(args.get(0));
+        });
+
+        register("b64enc", args -> Base64.getEncoder().encodeToString(string(single(args)).getBytes(StandardCharsets.UTF_8)));
+        register("b64dec", args -> {
+            try {
+                return new String(Base64.getDecoder().decode(string(single(args))), StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                return e.getMessage();
+            }
+        });
+        register("sha256sum", args -> Sha256Sum.of(string(single(args))));
+        register("sha1sum", args -> {
+            var digest = Exceptions.uncheck(() -> MessageDigest.getInstance("SHA-1"));
+            return HexFormat.of().formatHex(digest.digest(string(single(args)).getBytes(StandardCharsets.UTF_8)));
+        });
+        register("randAlphaNum", args -> random(integer(single(args)), LETTERS + DIGITS));
+        register("randAlpha", args -> random(integer(single(args)), LETTERS));
+        register("randNumeric", args -> random(integer(single(args)), DIGITS));
+
+        register("kindOf", args -> GoValues.kind(single(args)));
+        register("kindIs", args -> string(argument(args, 0, 2)).equals(GoValues.kind(args.get(1))));
+        register("typeOf", args -> GoValues.typeName(single(args)));
+        register("typeIs", args -> string(argument(args, 0, 2)).equals(GoValues.typeName(args.get(1))));
+        register("deepEqual", args -> Objects.equals(argument(args, 0, 2), args.get(1)));
+    }
+
+    private Functions() {
+    }
+
+    static Set<String> names() {
+        return FUNCTIONS.keySet();
+    }
+
+    static TemplateFunction get(String name) {
+        return FUNCTIONS.get(name);
+    }
+
+    private static void register(String name, TemplateFunction function) {
+        FUNCTIONS.put(name, function);
+    }
+
+    private static void register(String name, Function<List<Object>, Object> function) {
+        FUNCTIONS.put(name, (execution, args) -> function.apply(args));
+    }
+
+    private static void arguments(List<Object> args, int count) {
+        if (args.size() != count) {
+            throw new FunctionFailure("wrong number of args: want " + count + " got " + args.size());
+        }
+    }
+
+    private static void atLeast(List<Object> args, int count) {
+        if (args.size() < count) {
+            throw new FunctionFailure("wrong number of args: want at least " + count + " got " + args.size());
+        }
+    }
+
+    private static Object single(List<Object> args) {
+        return argument(args, 0, 1);
+    }
+
+    /**
+     * @return The argument at the index, after checking that there are exactly the given number of arguments.
+     */
+    private static Object argument(List<Object> args, int index, int count) {
+        arguments(args, count);
+        return args.get(index);
+    }
+
+    private static String string(Object value) {
+        if (value instanceof String s) {
+            return s;
+        }
+        throw wrongType(value, "string");
+    }
+
+    private static long integer(Object value) {
+        if (GoValues.isInt(value)) {
+            return ((Number) value).longValue();
+        }
+        throw wrongType(value, "int");
+    }
+
+    private static boolean bool(Object value) {
+        if (value instanceof Boolean b) {
+            return b;
+        }
+        throw wrongType(value, "bool");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> map(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            return (Map<String, Object>) map;
+        }
+        throw wrongType(value, "map[string]interface {}");
+    }
+
+    private static List<?> list(Object value, String function) {
+        if (value instanceof List<?> list) {
+            return list;
+        }
+        throw new FunctionFailure("Cannot find " + function + " on type " + GoValues.typeName(value));
+    }
+
+    private static FunctionFailure wrongType(Object value, String expected) {
+        if (value == null) {
+            return new FunctionFailure("invalid value; expected " + expected);
+        }
+        return new FunctionFailure("wrong type for value; expected " + expected + "; got " + GoValues.typeName(value));
+    }
+
+    private static Object index(List<Object> args) {
+        atLeast(args, 1);
+        var item = args.getFirst();
+        for (Object index : args.subList(1, args.size())) {
+            switch (item) {
+                case null -> throw new FunctionFailure("index of untyped nil");
+                case List<?> list -> {
+                    if (!GoValues.isInt(index)) {
+                        throw new FunctionFailure("cannot index slice/array with type " + GoValues.typeName(index));
+                    }
+                    long i = ((Number) index).longValue();
+                    if (i < 0 || i >= list.size()) {
+                        throw new FunctionFailure("index out of range: " + i);
+                    }
+                    item = list.get((int) i);
+                }
+                case Map<?, ?> map -> {
+                    if (!(index instanceof String key)) {
+                        throw new FunctionFailure("value has type " + GoValues.typeName(index) + "; should be string");
+                    }
+                    item = map.get(key);
+                }
+                default -> throw new FunctionFailure("can't index item of type " + GoValues.typeName(item));
+            }
+        }
+        return item;
+    }
+
+    /**
+     * Converts like Sprig's strval, which formats anything other than a string with `%v`.
+     */
+    private static String strval(Object value) {
+        return value instanceof String s ? s : GoValues.format(value);
+    }
+
+    /**
+     * Converts like Sprig's strslice, which skips nils.
+     */
+    private static List<String> strslice(Object value) {
+        return switch (value) {
+            case null -> List.of();
+            case List<?> list -> list.stream().filter(Objects::nonNull).map(Functions::strval).toList();
+            default -> List.of(strval(value));
+        };
+    }
+
+    private static String join(List<Object> args, Function<Object, String> format) {
+        return String.join(" ", args.stream().filter(Objects::nonNull).map(format).toList());
+    }
+
+    /**
+     * Implements Sprig's empty, which is true for nil and for the zero value of any type.
+     */
+    private static boolean empty(Object value) {
+        return !GoValues.truth(value);
+    }
+
+    /**
+     * Converts like the cast library which Sprig uses, with anything unconvertible becoming 0.
+     */
+    private static long toInt64(Object value) {
+        return switch (value) {
+            case null -> 0;
+            case Boolean b -> b ? 1 : 0;
+            case Number n when GoValues.isFloat(n) -> (long) n.doubleValue();
+            case Number n -> n.longValue();
+            case String s -> {
+                var trimmed = s.matches("[-+]?[0-9]+\\.0*") ? s.substring(0, s.indexOf('.')) : s;
+                try {
+                    yield Long.decode(trimmed.replaceFirst("^([-+]?)0[oO]", "$10"));
+                } catch (NumberFormatException e) {
+                    yield 0;
+                }
+            }
+            default -> 0;
+        };
+    }
+
+    private static double toFloat64(Object value) {
+        return switch (value) {
+            case null -> 0;
+            case Boolean b -> b ? 1 : 0;
+            case Number n -> n.doubleValue();
+            case String s -> {
+                try {
+                    yield Double.parseDouble(s);
+                } catch (NumberFormatException e) {
+                    yield 0;
+                }
+            }
+            default -> 0;
+        };
+    }
+
+    private static List<Object> untilStep(long start, long stop, long step) {
+        var values = new ArrayList<>();
+        if (step == 0 || (step > 0 && start >= stop) || (step < 0 && start <= stop)) {
+            return values;
+        }
+        for (long i = start; step > 0 ? i < stop : i > stop; i += step) {
+            values.add(i);
+        }
+        return values;
+    }
+
+    private static Map<String, Object> merge(List<Object> args, boolean overwrite) {
+        atLeast(args, 1);
+        var destination = map(args.getFirst());
+        for (Object source : args.subList(1, args.size())) {
+            mergeInto(destination, map(source), overwrite);
+        }
+        return destination;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void mergeInto(Map<String, Object> destination, Map<String, Object> source, boolean overwrite) {
+        source.forEach((key, value) -> {
+            var existing = destination.get(key);
+            if (existing instanceof Map<?, ?> existingMap && value instanceof Map<?, ?> valueMap) {
+                mergeInto((Map<String, Object>) existingMap, (Map<String, Object>) valueMap, overwrite);
+            } else if (!destination.containsKey(key) || empty(existing) || (overwrite && !empty(value))) {
+                destination.put(key, value);
+            }
+        });
+    }
+
+    private static Map<Object, Boolean> toMapKeys(List<?> list) {
+        var keys = new LinkedHashMap<Object, Boolean>();
+        list.forEach(value -> keys.put(value, true));
+        return keys;
+    }
+
+    private static Map<String, Object> fromYaml(String yaml) {
+        var result = new LinkedHashMap<String, Object>();
+        try {
+            var loaded = GoYaml.load(yaml);
+            if (loaded instanceof Map<?, ?> map) {
+                map.forEach((key, value) -> result.put((String) key, value));
+            } else if (loaded != null) {
+                result.put("Error", "error unmarshaling JSON: json: cannot unmarshal " + GoValues.kind(loaded) + " into Go value of type map[string]interface {}");
+            }
+        } catch (RuntimeException e) {
+            result.put("Error", e.getMessage());
+        }
+        return result;
+    }
+
+    private static String title(String s) {
+        var out = new StringBuilder(s.length());
+        boolean wordStart = true;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            out.append(wordStart ? Character.toTitleCase(c) : c);
+            wordStart = !Character.isLetterOrDigit(c) && c != '_' && c != '\'';
+        }
+        return out.toString();
+    }
+
+    private static String trim(String s, String cutset) {
+        int start = 0;
+        int end = s.length();
+        while (start < end && cutset.indexOf(s.charAt(start)) >= 0) {
+            start++;
+        }
+        while (end > start && cutset.indexOf(s.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        return s.substring(start, end);
+    }
+
+    private static String indent(long spaces, String s) {
+        var padding = " ".repeat((int) Math.max(0, spaces));
+        return padding + s.replace("\n", "\n" + padding);
+    }
+
+    private static String random(long count, String alphabet) {
+        var out = new StringBuilder();
+        for (long i = 0; i < count; i++) {
+            out.append(alphabet.charAt(RANDOM.nextInt(alphabet.length())));
+        }
+        return out.toString();
+    }
+
+    private static Pattern regex(String regex) {
+        try {
+            return Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            throw new FunctionFailure("regexp: Compile(" + GoValues.quote(regex) + "): " + e.getDescription());
+        }
+    }
+
+    /**
+     * Converts a Go regexp replacement, in which groups are referred to as $1 or ${1}, to a Java one.
+     */
+    private static String goReplacement(String replacement) {
+        return replacement.replace("\\", "\\\\").replaceAll("\\$\\{([0-9]+)}", "\\$$1");
+    }
+
+    /**
+     * Formats like Go's fmt.Sprint, which adds spaces between operands when neither is a string.
+     */
+    private static String sprint(List<Object> args) {
+        var out = new StringBuilder();
+        for (int i = 0; i < args.size(); i++) {
+            if (i > 0 && !(args.get(i - 1) instanceof String) && !(args.get(i) instanceof String)) {
+                out.append(' ');
+            }
+            out.append(GoValues.format(args.get(i)));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Formats like Go's fmt.Sprintf, with the flags, widths, precisions and verbs that templates commonly use.
+     */
+    static String sprintf(String format, List<Object> args) {
+        var out = new StringBuilder();
+        int next = 0;
+        int i = 0;
+        while (i < format.length()) {
+            char c = format.charAt(i++);
+            if (c != '%') {
+                out.append(c);
+                continue;
+            }
+            boolean leftAlign = false;
+            boolean plus = false;
+            boolean zero = false;
+            while (i < format.length() && "-+# 0".indexOf(format.charAt(i)) >= 0) {
+                switch (format.charAt(i++)) {
+                    case '-' -> leftAlign = true;
+                    case '+' -> plus = true;
+                    case '0' -> zero = true;
+                    default -> {
+                    }
+                }
+            }
+            int width = -1;
+            while (i < format.length() && Character.isDigit(format.charAt(i))) {
+                width = Math.max(width, 0) * 10 + (format.charAt(i++) - '0');
+            }
+            int precision = -1;
+            if (i < format.length() && format.charAt(i) == '.') {
+                i++;
+                precision = 0;
+                while (i < format.length() && Character.isDigit(format.charAt(i))) {
+                    precision = precision * 10 + (format.charAt(i++) - '0');
+                }
+            }
+            if (i >= format.length()) {
+                out.append("%!(NOVERB)");
+                break;
+            }
+            char verb = format.charAt(i++);
+            if (verb == '%') {
+                out.append('%');
+                continue;
+            }
+            if (next >= args.size()) {
+                out.append("%!").append(verb).append("(MISSING)");
+                continue;
+            }
+            var arg = args.get(next++);
+            var formatted = formatVerb(verb, arg, plus, precision);
+            if (width > formatted.length()) {
+                var padding = width - formatted.length();
+                if (leftAlign) {
+                    formatted = formatted + " ".repeat(padding);
+                } else if (zero && arg instanceof Number && "dfeEgGxXob".indexOf(verb) >= 0) {
+                    var sign = formatted.startsWith("-") || formatted.startsWith("+") ? formatted.substring(0, 1) : "";
+                    formatted = sign + "0".repeat(padding) + formatted.substring(sign.length());
+                } else {
+                    formatted = " ".repeat(padding) + formatted;
+                }
+            }
+            out.append(formatted);
+        }
+        if (next < args.size()) {
+            out.append("%!(EXTRA ");
+            var extras = new ArrayList<String>();
+            for (Object extra : args.subList(next, args.size())) {
+                extras.add(GoValues.typeName(extra) + "=" + GoValues.format(extra));
+            }
+            out.append(String.join(", ", extras)).append(')');
+        }
+        return out.toString();
+    }
+
+    private static String formatVerb(char verb, Object arg, boolean plus, int precision) {
+        var sign = plus && arg instanceof Number n && n.doubleValue() >= 0 ? "+" : "";
+        return switch (verb) {
+            case 'v' -> sign + GoValues.format(arg);
+            case 's' -> arg instanceof String s
+                ? (precision >= 0 && precision < s.length() ? s.substring(0, precision) : s)
+                : arg instanceof Map || arg instanceof List ? GoValues.format(arg) : badVerb(verb, arg);
+            case 'q' -> arg instanceof String s ? GoValues.quote(s)
+                : GoValues.isInt(arg) ? "'" + Character.toString(((Number) arg).intValue()) + "'" : badVerb(verb, arg);
+            case 't' -> arg instanceof Boolean b ? b.toString() : badVerb(verb, arg);
+            case 'd' -> GoValues.isInt(arg) ? sign + arg : badVerb(verb, arg);
+            case 'c' -> GoValues.isInt(arg) ? Character.toString(((Number) arg).intValue()) : badVerb(verb, arg);
+            case 'x', 'X' -> {
+                String hex;
+                if (GoValues.isInt(arg)) {
+                    long value = ((Number) arg).longValue();
+                    hex = (value < 0 ? "-" : "") + Long.toHexString(Math.abs(value));
+                } else if (arg instanceof String s) {
+                    hex = HexFormat.of().formatHex(s.getBytes(StandardCharsets.UTF_8));
+                } else {
+                    yield badVerb(verb, arg);
+                }
+                yield verb == 'X' ? hex.toUpperCase() : hex;
+            }
+            case 'o' -> GoValues.isInt(arg) ? Long.toOctalString(((Number) arg).longValue()) : badVerb(verb, arg);
+            case 'b' -> GoValues.isInt(arg) ? Long.toBinaryString(((Number) arg).longValue()) : badVerb(verb, arg);
+            case 'f', 'F' -> GoValues.isFloat(arg)
+                ? sign + new BigDecimal(((Number) arg).doubleValue()).setScale(precision < 0 ? 6 : precision, RoundingMode.HALF_EVEN).toPlainString()
+                : badVerb(verb, arg);
+            case 'e' -> GoValues.isFloat(arg)
+                ? sign + String.format("%." + (precision < 0 ? 6 : precision) + "e", ((Number) arg).doubleValue())
+                : badVerb(verb, arg);
+            case 'g' -> GoValues.isFloat(arg) && precision < 0 ? sign + GoValues.formatFloat(((Number) arg).doubleValue()) : badVerb(verb, arg);
+            case 'T' -> GoValues.typeName(arg);
+            default -> badVerb(verb, arg);
+        };
+    }
+
+    private static String badVerb(char verb, Object arg) {
+        if (arg == null) {
+            return "%!" + verb + "(<nil>)";
+        }
+        return "%!" + verb + "(" + GoValues.typeName(arg) + "=" + GoValues.format(arg) + ")";
+    }
+}
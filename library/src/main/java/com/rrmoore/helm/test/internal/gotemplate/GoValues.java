@@ -0,0 +1,249 @@
+package com.rrmoore.helm.test.internal.gotemplate;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The Go semantics of template values, which are represented by null for nil, Boolean, Long for int, Double for
+ * float64, String, List for []interface{} and Map for map[string]interface{}.
+ */
+final class GoValues {
+
+    /**
+     * What Go's text/template prints for a missing value. Helm removes it from the output of each template.
+     */
+    static final String NO_VALUE = "<no value>";
+
+    private GoValues() {
+    }
+
+    static boolean isInt(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte || value instanceof BigInteger;
+    }
+
+    static boolean isFloat(Object value) {
+        return value instanceof Double || value instanceof Float || value instanceof BigDecimal;
+    }
+
+    /**
+     * @return The name of the value's type, as printed by Go's `%T` verb.
+     */
+    static String typeName(Object value) {
+        return switch (value) {
+            case null -> "<nil>";
+            case String s -> "string";
+            case Boolean b -> "bool";
+            case Map<?, ?> map -> "map[string]interface {}";
+            case List<?> list -> "[]interface {}";
+            default -> isInt(value) ? "int" : isFloat(value) ? "float64" : value.getClass().getSimpleName();
+        };
+    }
+
+    /**
+     * @return The name of the value's kind, as returned by Go's reflect.Value.Kind().
+     */
+    static String kind(Object value) {
+        return switch (value) {
+            case null -> "invalid";
+            case Map<?, ?> map -> "map";
+            case List<?> list -> "slice";
+            default -> typeName(value);
+        };
+    }
+
+    /**
+     * @return Whether the value is true in the sense of `if`, i.e. it is not the zero value of its type.
+     */
+    static boolean truth(Object value) {
+        return switch (value) {
+            case null -> false;
+            case Boolean b -> b;
+            case String s -> !s.isEmpty();
+            case Map<?, ?> map -> !map.isEmpty();
+            case List<?> list -> !list.isEmpty();
+            case Number n -> isFloat(n) ? n.doubleValue() != 0 : n.longValue() != 0;
+            default -> true;
+        };
+    }
+
+    /**
+     * @return The value as an action prints it.
+     */
+    static String print(Object value) {
+        return value == null ? NO_VALUE : format(value);
+    }
+
+    /**
+     * @return The value formatted with Go's `%v` verb.
+     */
+    static String format(Object value) {
+        return switch (value) {
+            case null -> "<nil>";
+            case String s -> s;
+            case Map<?, ?> map -> map.keySet().stream()
+                .map(String::valueOf)
+                .sorted(GoValues::compareCodePoints)
+                .map(key -> key + ":" + format(map.get(key)))
+                .collect(Collectors.joining(" ", "map[", "]"));
+            case List<?> list -> list.stream().map(GoValues::format).collect(Collectors.joining(" ", "[", "]"));
+            case Number n -> isFloat(n) ? formatFloat(n.doubleValue()) : n.toString();
+            default -> value.toString();
+        };
+    }
+
+    /**
+     * Formats like Go's strconv.FormatFloat(f, 'g', -1, 64), i.e. with the shortest representation, using an exponent
+     * when it is less than -4 or at least 6.
+     */
+    static String formatFloat(double d) {
+        if (Double.isNaN(d)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(d)) {
+            return d > 0 ? "+Inf" : "-Inf";
+        }
+        if (d == 0) {
+            return 1 / d < 0 ? "-0" : "0";
+        }
+        var decimal = new BigDecimal(Double.toString(d)).stripTrailingZeros();
+        var digits = decimal.unscaledValue().abs().toString();
+        int exponent = digits.length() - decimal.scale() - 1;
+        if (exponent >= -4 && exponent < 6) {
+            return decimal.toPlainString();
+        }
+        var mantissa = digits.length() == 1 ? digits : digits.charAt(0) + "." + digits.substring(1);
+        return (d < 0 ? "-" : "") + mantissa + "e" + (exponent < 0 ? "-" : "+") + String.format("%02d", Math.abs(exponent));
+    }
+
+    /**
+     * Quotes like Go's strconv.Quote, i.e. the `%q` verb.
+     */
+    static String quote(String s) {
+        var out = new StringBuilder(s.length() + 2).append('"');
+        s.codePoints().forEach(c -> {
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case 0x07 -> out.append("\\a");
+                case '\b' -> out.append("\\b");
+                case '\f' -> out.append("\\f");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                case 0x0b -> out.append("\\v");
+                default -> {
+                    if (isPrintable(c)) {
+                        out.appendCodePoint(c);
+                    } else if (c < ' ' || c == 0x7f) {
+                        out.append(String.format("\\x%02x", c));
+                    } else if (c < 0x10000) {
+                        out.append(String.format("\\u%04x", c));
+                    } else {
+                        out.append(String.format("\\U%08x", c));
+                    }
+                }
+            }
+        });
+        return out.append('"').toString();
+    }
+
+    /**
+     * Matches Go's unicode.IsPrint, i.e. letters, marks, numbers, punctuation, symbols and the ASCII space.
+     */
+    private static boolean isPrintable(int c) {
+        if (c == ' ') {
+            return true;
+        }
+        return switch (Character.getType(c)) {
+            case Character.CONTROL, Character.FORMAT, Character.UNASSIGNED, Character.PRIVATE_USE, Character.SURROGATE,
+                 Character.SPACE_SEPARATOR, Character.LINE_SEPARATOR, Character.PARAGRAPH_SEPARATOR -> false;
+            default -> true;
+        };
+    }
+
+    /**
+     * Implements the `eq` function for a pair of values.
+     */
+    static boolean equal(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        if (a instanceof Map || a instanceof List || b instanceof Map || b instanceof List) {
+            throw new FunctionFailure("invalid type for comparison");
+        }
+        var kindA = kind(a);
+        var kindB = kind(b);
+        if (!kindA.equals(kindB)) {
+            throw new FunctionFailure("incompatible types for comparison");
+        }
+        return switch (a) {
+            case Number n when isFloat(n) -> n.doubleValue() == ((Number) b).doubleValue();
+            case Number n -> toBigInteger(n).equals(toBigInteger((Number) b));
+            default -> a.equals(b);
+        };
+    }
+
+    /**
+     * Implements the `lt` function, and the other ordering functions in terms of it.
+     */
+    static int compare(Object a, Object b) {
+        if (a == null || b == null || a instanceof Boolean || b instanceof Boolean || a instanceof Map || b instanceof Map || a instanceof List || b instanceof List) {
+            throw new FunctionFailure("invalid type for comparison");
+        }
+        if (!kind(a).equals(kind(b))) {
+            throw new FunctionFailure("incompatible types for comparison");
+        }
+        return switch (a) {
+            case String s -> Integer.signum(compareCodePoints(s, (String) b));
+            case Number n when isFloat(n) -> Double.compare(n.doubleValue(), ((Number) b).doubleValue());
+            case Number n -> toBigInteger(n).compareTo(toBigInteger((Number) b));
+            default -> throw new FunctionFailure("invalid type for comparison");
+        };
+    }
+
+    private static BigInteger toBigInteger(Number n) {
+        return n instanceof BigInteger big ? big : BigInteger.valueOf(n.longValue());
+    }
+
+    /**
+     * Orders strings by their UTF-8 bytes, as Go does.
+     */
+    static int compareCodePoints(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) {
+                return Integer.compare(ca, cb);
+            }
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    /**
+     * @return A deep copy of the value, whose maps and lists can be modified without affecting the original.
+     */
+    static Object deepCopy(Object value) {
+        return switch (value) {
+            case Map<?, ?> map -> {
+                var copy = new LinkedHashMap<String, Object>();
+                map.forEach((key, child) -> copy.put(String.valueOf(key), deepCopy(child)));
+                yield copy;
+            }
+            case List<?> list -> {
+                var copy = new ArrayList<>(list.size());
+                list.forEach(child -> copy.add(deepCopy(child)));
+                yield copy;
+            }
+            case null, default -> value;
+        };
+    }
+}
@@ -0,0 +1,447 @@
+package com.rrmoore.helm.test.internal.gotemplate;
+
+import com.rrmoore.helm.test.YamlLoadingOptions;
+import com.rrmoore.helm.test.internal.jdkext.GoJson;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.representer.Representer;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+/**
+ * Loads and writes YAML in the same way as sigs.k8s.io/yaml, which Helm uses for values files and for the toYaml and
+ * fromYaml template functions.
+ * <p>
+ * That library converts YAML to JSON before decoding it, so every number is loaded as a float64, i.e. a Double, and
+ * timestamps are loaded as the strings they are written as. It writes YAML with go-yaml v2, which orders map keys,
+ * does not indent sequences within mappings, and quotes strings only when they would otherwise be read as another
+ * type or are not valid plain scalars. Long lines are not folded as go-yaml does, which only changes the text of the
+ * YAML, not what it represents.
+ */
+public final class GoYaml {
+
+    private static final Pattern INT = Pattern.compile("[-+]?(0[xX][0-9a-fA-F]+|0[oO][0-7]+|0[bB][01]+|0[0-7]*|[1-9][0-9]*)");
+    private static final Pattern FLOAT = Pattern.compile("[-+]?(\\.[0-9]+|[0-9]+(\\.[0-9]*)?)([eE][-+]?[0-9]+)?");
+    private static final Pattern BASE_60_FLOAT = Pattern.compile("[-+]?[0-9][0-9_]*(?::[0-5]?[0-9])+(?:\\.[0-9_]*)?");
+    private static final Pattern TIMESTAMP = Pattern.compile("[0-9]{4}-[0-9]{1,2}-[0-9]{1,2}(([Tt]|\\s+)[0-9]{1,2}:[0-9]{1,2}:[0-9]{1,2}(\\.[0-9]*)?\\s*(Z|[-+][0-9]{1,2}(:[0-9]{2})?)?)?");
+    private static final Set<String> NON_STRING_WORDS = Set.of(
+        "y", "Y", "yes", "Yes", "YES", "true", "True", "TRUE", "on", "On", "ON",
+        "n", "N", "no", "No", "NO", "false", "False", "FALSE", "off", "Off", "OFF",
+        "~", "null", "Null", "NULL",
+        ".nan", ".NaN", ".NAN", ".inf", ".Inf", ".INF", "+.inf", "+.Inf", "+.INF", "-.inf", "-.Inf", "-.INF",
+        "<<");
+
+    private static final ThreadLocal<Yaml> LOADER = ThreadLocal.withInitial(() -> {
+        var loaderOptions = YamlLoadingOptions.getDefault().toLoaderOptions();
+        var dumperOptions = new DumperOptions();
+        return new Yaml(new SafeConstructor(loaderOptions), new Representer(dumperOptions), dumperOptions, loaderOptions, new TimestampsAsStrings());
+    });
+
+    private GoYaml() {
+    }
+
+    /**
+     * @return The YAML document as a tree of Maps with String keys, Lists, Strings, Booleans, Doubles and nulls.
+     */
+    public static Object load(String yaml) {
+        return normalize(LOADER.get().load(yaml));
+    }
+
+    private static Object normalize(Object value) {
+        return switch (value) {
+            case Map<?, ?> map -> {
+                var normalized = new LinkedHashMap<String, Object>();
+                map.forEach((key, child) -> normalized.put(keyString(key), normalize(child)));
+                yield normalized;
+            }
+            case List<?> list -> {
+                var normalized = new ArrayList<>(list.size());
+                list.forEach(child -> normalized.add(normalize(child)));
+                yield normalized;
+            }
+            case Number n -> n.doubleValue();
+            case byte[] bytes -> new String(bytes, StandardCharsets.UTF_8);
+            case null, default -> value;
+        };
+    }
+
+    private static String keyString(Object key) {
+        return switch (key) {
+            case null -> "null";
+            case Number n when GoValues.isFloat(n) -> GoValues.formatFloat(n.doubleValue());
+            default -> String.valueOf(key);
+        };
+    }
+
+    /**
+     * @return The value as YAML, without the trailing line break, as Helm's toYaml function returns it.
+     */
+    public static String marshal(Object value) {
+        var out = new StringBuilder();
+        var tree = normalizeForWriting(value);
+        switch (tree) {
+            case Map<?, ?> map when !map.isEmpty() -> writeMapping(out, map, 0, false);
+            case List<?> list when !list.isEmpty() -> writeSequence(out, list, 0, false);
+            default -> {
+                writeScalar(out, tree, 0, false);
+                out.append('\n');
+            }
+        }
+        return out.substring(0, out.length() - 1);
+    }
+
+    /**
+     * Applies the round trip through JSON which sigs.k8s.io/yaml makes, after which whole numbers are ints.
+     */
+    private static Object normalizeForWriting(Object value) {
+        return switch (value) {
+            case Map<?, ?> map -> {
+                var keys = new ArrayList<String>(map.size());
+                map.keySet().forEach(key -> keys.add(String.valueOf(key)));
+                keys.sort(GoYaml::compareKeys);
+                var normalized = new LinkedHashMap<String, Object>();
+                for (String key : keys) {
+                    normalized.put(key, normalizeForWriting(map.containsKey(key) ? map.get(key) : null));
+                }
+                yield normalized;
+            }
+            case List<?> list -> {
+                var normalized = new ArrayList<>(list.size());
+                list.forEach(child -> normalized.add(normalizeForWriting(child)));
+                yield normalized;
+            }
+            case Number n -> {
+                var json = GoJson.encode(n);
+                if (!INT.matcher(json).matches()) {
+                    yield n.doubleValue();
+                }
+                // Like go-yaml, whole numbers which fit in neither an int64 nor a uint64 are floats.
+                var whole = new BigInteger(json);
+                yield whole.bitLength() < 64 || (whole.signum() > 0 && whole.bitLength() == 64) ? whole : n.doubleValue();
+            }
+            case null, default -> value;
+        };
+    }
+
+    /**
+     * @param inline Whether the first entry follows a sequence indicator on the current line, rather than starting a
+     *               new line.
+     */
+    private static void writeMapping(StringBuilder out, Map<?, ?> map, int indent, boolean inline) {
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!first || !inline) {
+                out.append(" ".repeat(indent));
+            }
+            first = false;
+            writeScalar(out, entry.getKey(), indent, true);
+            out.append(':');
+            switch (entry.getValue()) {
+                case Map<?, ?> child when !child.isEmpty() -> {
+                    out.append('\n');
+                    writeMapping(out, child, indent + 2, false);
+                }
+                // Sequences are not indented within mappings.
+                case List<?> child when !child.isEmpty() -> {
+                    out.append('\n');
+                    writeSequence(out, child, indent, false);
+                }
+                case null, default -> {
+                    out.append(' ');
+                    writeScalar(out, entry.getValue(), indent + 2, false);
+                    out.append('\n');
+                }
+            }
+        }
+    }
+
+    private static void writeSequence(StringBuilder out, List<?> list, int indent, boolean inline) {
+        boolean first = true;
+        for (Object item : list) {
+            if (!first || !inline) {
+                out.append(" ".repeat(indent));
+            }
+            first = false;
+            out.append("- ");
+            switch (item) {
+                case Map<?, ?> child when !child.isEmpty() -> writeMapping(out, child, indent + 2, true);
+                case List<?> child when !child.isEmpty() -> writeSequence(out, child, indent + 2, true);
+                case null, default -> {
+                    writeScalar(out, item, indent + 2, false);
+                    out.append('\n');
+                }
+            }
+        }
+    }
+
+    private static void writeScalar(StringBuilder out, Object value, int blockIndent, boolean isKey) {
+        switch (value) {
+            case null -> out.append("null");
+            case Map<?, ?> map -> out.append("{}");
+            case List<?> list -> out.append("[]");
+            case Boolean b -> out.append(b);
+            case Double d -> out.append(formatFloat(d));
+            case Number n -> out.append(n);
+            default -> writeString(out, String.valueOf(value), blockIndent, isKey);
+        }
+    }
+
+    private static String formatFloat(double d) {
+        if (Double.isNaN(d)) {
+            return ".nan";
+        }
+        if (Double.isInfinite(d)) {
+            return d > 0 ? ".inf" : "-.inf";
+        }
+        return GoValues.formatFloat(d);
+    }
+
+    private static void writeString(StringBuilder out, String s, int blockIndent, boolean isKey) {
+        var analysis = new ScalarAnalysis(s);
+        if (s.contains("\n") && !isKey && analysis.blockAllowed) {
+            writeLiteral(out, s, blockIndent);
+        } else if (s.contains("\n") || !canUsePlain(s) || analysis.special) {
+            writeDoubleQuoted(out, s);
+        } else if (analysis.plainAllowed) {
+            out.append(s);
+        } else if (analysis.singleQuotedAllowed) {
+            out.append('\'').append(s.replace("'", "''")).append('\'');
+        } else {
+            writeDoubleQuoted(out, s);
+        }
+    }
+
+    /**
+     * @return Whether the string would be read back as a string if it were written without quotes.
+     */
+    private static boolean canUsePlain(String s) {
+        if (s.isEmpty() || NON_STRING_WORDS.contains(s) || BASE_60_FLOAT.matcher(s).matches()) {
+            return false;
+        }
+        char first = s.charAt(0);
+        if (first != '+' && first != '-' && first != '.' && (first < '0' || first > '9')) {
+            return true;
+        }
+        var plain = s.replace("_", "");
+        return !TIMESTAMP.matcher(s).matches()
+            && !INT.matcher(plain).matches()
+            && !FLOAT.matcher(plain).matches();
+    }
+
+    private static void writeLiteral(StringBuilder out, String s, int indent) {
+        out.append('|');
+        if (s.charAt(0) == ' ' || s.charAt(0) == '\n') {
+            out.append('2');
+        }
+        if (!s.endsWith("\n")) {
+            out.append('-');
+        } else if (s.length() == 1 || s.charAt(s.length() - 2) == '\n') {
+            out.append('+');
+        }
+        var lines = s.split("\n", -1);
+        int count = s.endsWith("\n") ? lines.length - 1 : lines.length;
+        for (int i = 0; i < count; i++) {
+            out.append('\n');
+            if (!lines[i].isEmpty()) {
+                out.append(" ".repeat(indent)).append(lines[i]);
+            }
+        }
+    }
+
+    private static void writeDoubleQuoted(StringBuilder out, String s) {
+        out.append('"');
+        s.codePoints().forEach(c -> {
+            switch (c) {
+                case 0 -> out.append("\\0");
+                case 0x07 -> out.append("\\a");
+                case '\b' -> out.append("\\b");
+                case '\t' -> out.append("\\t");
+                case '\n' -> out.append("\\n");
+                case 0x0b -> out.append("\\v");
+                case '\f' -> out.append("\\f");
+                case '\r' -> out.append("\\r");
+                case 0x1b -> out.append("\\e");
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case 0x85 -> out.append("\\N");
+                case 0xa0 -> out.append("\\_");
+                case 0x2028 -> out.append("\\L");
+                case 0x2029 -> out.append("\\P");
+                default -> {
+                    if (isPrintable(c)) {
+                        out.appendCodePoint(c);
+                    } else if (c <= 0xff) {
+                        out.append(String.format("\\x%02X", c));
+                    } else if (c <= 0xffff) {
+                        out.append(String.format("\\u%04X", c));
+                    } else {
+                        out.append(String.format("\\U%08X", c));
+                    }
+                }
+            }
+        });
+        out.append('"');
+    }
+
+    private static boolean isPrintable(int c) {
+        return c == 0x0a || (c >= 0x20 && c <= 0x7e) || c == 0x85 || (c >= 0xa0 && c <= 0xd7ff) || (c >= 0xe000 && c <= 0xfffd && c != 0xfeff) || c >= 0x10000;
+    }
+
+    private static boolean isBreak(int c) {
+        return c == '\n' || c == '\r' || c == 0x85 || c == 0x2028 || c == 0x2029;
+    }
+
+    /**
+     * The styles in which the emitter of go-yaml, a port of libyaml, may write a scalar in block context.
+     */
+    private static final class ScalarAnalysis {
+
+        private boolean plainAllowed = true;
+        private boolean singleQuotedAllowed = true;
+        private boolean blockAllowed = true;
+        private boolean special;
+
+        private ScalarAnalysis(String s) {
+            if (s.startsWith("---") || s.startsWith("...")) {
+                plainAllowed = false;
+            }
+            boolean leadingSpace = false;
+            boolean leadingBreak = false;
+            boolean trailingSpace = false;
+            boolean trailingBreak = false;
+            boolean breakSpace = false;
+            boolean spaceBreak = false;
+            boolean previousSpace = false;
+            boolean previousBreak = false;
+            boolean precededByWhitespace = true;
+            var codePoints = s.codePoints().toArray();
+            for (int i = 0; i < codePoints.length; i++) {
+                int c = codePoints[i];
+                boolean followedByWhitespace = i + 1 >= codePoints.length || codePoints[i + 1] == ' ' || codePoints[i + 1] == '\t' || isBreak(codePoints[i + 1]);
+                if (i == 0) {
+                    if ("#,[]{}&*!|>'\"%@`".indexOf(c) >= 0) {
+                        plainAllowed = false;
+                    }
+                    if ((c == '?' || c == ':' || c == '-') && followedByWhitespace) {
+                        plainAllowed = false;
+                    }
+                } else {
+                    if (c == ':' && followedByWhitespace) {
+                        plainAllowed = false;
+                    }
+                    if (c == '#' && precededByWhitespace) {
+                        plainAllowed = false;
+                    }
+                }
+                if (!isPrintable(c) || c == 0xfeff) {
+                    special = true;
+                }
+                if (c == ' ') {
+                    leadingSpace |= i == 0;
+                    trailingSpace |= i == codePoints.length - 1;
+                    breakSpace |= previousBreak;
+                    previousSpace = true;
+                    previousBreak = false;
+                } else if (isBreak(c)) {
+                    leadingBreak |= i == 0;
+                    trailingBreak |= i == codePoints.length - 1;
+                    spaceBreak |= previousSpace;
+                    previousBreak = true;
+                    previousSpace = false;
+                } else {
+                    previousSpace = false;
+                    previousBreak = false;
+                }
+                precededByWhitespace = c == ' ' || c == '\t' || isBreak(c);
+            }
+            if (leadingSpace || leadingBreak || trailingSpace || trailingBreak) {
+                plainAllowed = false;
+            }
+            if (trailingSpace) {
+                blockAllowed = false;
+            }
+            if (breakSpace) {
+                plainAllowed = false;
+                singleQuotedAllowed = false;
+            }
+            if (spaceBreak || special) {
+                plainAllowed = false;
+                singleQuotedAllowed = false;
+                blockAllowed = false;
+            }
+        }
+    }
+
+    /**
+     * Orders map keys as go-yaml does, which compares runs of digits by their numeric value.
+     */
+    static int compareKeys(String a, String b) {
+        var ar = a.codePoints().toArray();
+        var br = b.codePoints().toArray();
+        for (int i = 0; i < ar.length && i < br.length; i++) {
+            if (ar[i] == br[i]) {
+                continue;
+            }
+            boolean al = Character.isLetter(ar[i]);
+            boolean bl = Character.isLetter(br[i]);
+            if (al && bl) {
+                return Integer.compare(ar[i], br[i]);
+            }
+            if (al || bl) {
+                return bl ? -1 : 1;
+            }
+            long an = 0;
+            long bn = 0;
+            if (ar[i] == '0' || br[i] == '0') {
+                for (int j = i - 1; j >= 0 && Character.isDigit(ar[j]); j--) {
+                    if (ar[j] != '0') {
+                        an = 1;
+                        bn = 1;
+                        break;
+                    }
+                }
+            }
+            int ai = i;
+            for (; ai < ar.length && Character.isDigit(ar[ai]); ai++) {
+                an = an * 10 + (ar[ai] - '0');
+            }
+            int bi = i;
+            for (; bi < br.length && Character.isDigit(br[bi]); bi++) {
+                bn = bn * 10 + (br[bi] - '0');
+            }
+            if (an != bn) {
+                return Long.compare(an, bn);
+            }
+            if (ai != bi) {
+                return Integer.compare(ai, bi);
+            }
+            return Integer.compare(ar[i], br[i]);
+        }
+        return Integer.compare(ar.length, br.length);
+    }
+
+    /**
+     * The YAML 1.1 resolver of SnakeYAML without timestamps, which go-yaml only resolves for typed fields.
+     */
+    private static final class TimestampsAsStrings extends Resolver {
+
+        @Override
+        protected void addImplicitResolvers() {
+            addImplicitResolver(Tag.BOOL, Resolver.BOOL, "yYnNtTfFoO");
+            addImplicitResolver(Tag.INT, Resolver.INT, "-+0123456789");
+            addImplicitResolver(Tag.FLOAT, Resolver.FLOAT, "-+0123456789.");
+            addImplicitResolver(Tag.MERGE, Resolver.MERGE, "<");
+            addImplicitResolver(Tag.NULL, Resolver.NULL, "~nN\0");
+            addImplicitResolver(Tag.NULL, Resolver.EMPTY, null);
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package com.rrmoore.helm.test.internal.gotemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Splits a template into text and the tokens of its actions, in the same way as Go's text/template/parse lexer.
+ * Trim markers, i.e. `{{- ` and ` -}}`, are applied to the neighbouring text here, and comments are dropped.
+ */
+final class Lexer {
+
+    enum Kind {
+        TEXT, LEFT_DELIM, RIGHT_DELIM, EOF,
+        IDENTIFIER, KEYWORD, FIELD, VARIABLE, DOT, NIL, BOOL, NUMBER, STRING, CHAR,
+        PIPE, LEFT_PAREN, RIGHT_PAREN, COMMA, DECLARE, ASSIGN
+    }
+
+    /**
+     * @param value        The value of a literal, or the name of a field, variable, keyword or identifier.
+     * @param spaceBefore  Whether the token is separated from the previous token of its action by white space, which
+     *                     decides whether a field is chained onto the previous term, e.g. `$x.y` rather than `$x .y`.
+     */
+    record Token(Kind kind, String text, Object value, int line, boolean spaceBefore) {
+    }
+
+    private static final Set<String> KEYWORDS = Set.of("block", "break", "continue", "define", "else", "end", "if", "range", "template", "with");
+
+    private final String templateName;
+    private final String input;
+    private final List<Token> tokens = new ArrayList<>();
+    private int pos;
+    private int line = 1;
+
+    private Lexer(String templateName, String input) {
+        this.templateName = templateName;
+        this.input = input;
+    }
+
+    static List<Token> lex(String templateName, String input) {
+        var lexer = new Lexer(templateName, input);
+        lexer.lexText();
+        return lexer.tokens;
+    }
+
+    private void lexText() {
+        while (pos < input.length()) {
+            int delim = input.indexOf("{{", pos);
+            if (delim < 0) {
+                emitText(input.substring(pos), line);
+                countLines(pos, input.length());
+                pos = input.length();
+                break;
+            }
+            var text = input.substring(pos, delim);
+            boolean trimLeft = delim + 3 < input.length() && input.charAt(delim + 2) == '-' && isSpace(input.charAt(delim + 3));
+            emitText(trimLeft ? stripTrailing(text) : text, line);
+            countLines(pos, delim + (trimLeft ? 4 : 2));
+            pos = delim + (trimLeft ? 4 : 2);
+            if (input.startsWith("/*", pos)) {
+                lexComment();
+            } else {
+                tokens.add(new Token(Kind.LEFT_DELIM, "{{", null, line, false));
+                lexInsideAction();
+            }
+        }
+        tokens.add(new Token(Kind.EOF, "", null, line, false));
+    }
+
+    private void emitText(String text, int textLine) {
+        if (!text.isEmpty()) {
+            tokens.add(new Token(Kind.TEXT, text, text, textLine, false));
+        }
+    }
+
+    private void lexComment() {
+        int end = input.indexOf("*/", pos + 2);
+        if (end < 0) {
+            throw error("unclosed comment");
+        }
+        countLines(pos, end);
+        pos = end + 2;
+        if (!closeAction(false)) {
+            throw error("comment ends before closing delimiter");
+        }
+    }
+
+    private void lexInsideAction() {
+        boolean spaceBefore = false;
+        while (true) {
+            if (closeAction(true)) {
+                return;
+            }
+            if (pos >= input.length()) {
+                throw error("unclosed action");
+            }
+            char c = input.charAt(pos);
+            if (isSpace(c)) {
+                if (c == '\n') {
+                    line++;
+                }
+                pos++;
+                spaceBefore = true;
+                continue;
+            }
+            int start = pos;
+            var token = switch (c) {
+                case '|' -> symbol(Kind.PIPE, 1);
+                case '(' -> symbol(Kind.LEFT_PAREN, 1);
+                case ')' -> symbol(Kind.RIGHT_PAREN, 1);
+                case ',' -> symbol(Kind.COMMA, 1);
+                case '=' -> symbol(Kind.ASSIGN, 1);
+                case ':' -> {
+                    if (!input.startsWith(":=", pos)) {
+                        throw error("expected :=");
+                    }
+                    yield symbol(Kind.DECLARE, 2);
+                }
+                case '"' -> quotedString();
+                case '`' -> rawString();
+                case '\'' -> charConstant();
+                case '$' -> {
+                    pos++;
+                    var name = "$" + identifier();
+                    yield new Token(Kind.VARIABLE, name, name, line, false);
+                }
+                case '.' -> {
+                    if (pos + 1 < input.length() && isDigit(input.charAt(pos + 1))) {
+                        yield number();
+                    }
+                    pos++;
+                    if (pos < input.length() && isAlphaNumeric(input.charAt(pos))) {
+                        var name = identifier();
+                        yield new Token(Kind.FIELD, "." + name, name, line, false);
+                    }
+                    yield new Token(Kind.DOT, ".", null, line, false);
+                }
+                default -> {
+                    if (isDigit(c) || ((c == '-' || c == '+') && pos + 1 < input.length() && (isDigit(input.charAt(pos + 1)) || input.charAt(pos + 1) == '.'))) {
+                        yield number();
+                    }
+                    if (isAlphaNumeric(c)) {
+                        var word = identifier();
+                        if (word.equals("true") || word.equals("false")) {
+                            yield new Token(Kind.BOOL, word, Boolean.valueOf(word), line, false);
+                        }
+                        if (word.equals("nil")) {
+                            yield new Token(Kind.NIL, word, null, line, false);
+                        }
+                        yield new Token(KEYWORDS.contains(word) ? Kind.KEYWORD : Kind.IDENTIFIER, word, word, line, false);
+                    }
+                    throw error("unrecognized character in action: " + Character.toString(input.codePointAt(pos)));
+                }
+            };
+            tokens.add(new Token(token.kind(), input.substring(start, pos), token.value(), token.line(), spaceBefore));
+            spaceBefore = false;
+        }
+    }
+
+    /**
+     * Consumes the right delimiter, and any white space following it if it has a trim marker.
+     *
+     * @return Whether the action was closed.
+     */
+    private boolean closeAction(boolean emitDelimiter) {
+        boolean trimRight = pos + 1 < input.length() && isSpace(input.charAt(pos)) && input.charAt(pos + 1) == '-' && input.startsWith("}}", pos + 2);
+        if (!trimRight && !input.startsWith("}}", pos)) {
+            return false;
+        }
+        if (trimRight) {
+            countLines(pos, pos + 1);
+            pos += 2;
+        }
+        pos += 2;
+        if (emitDelimiter) {
+            tokens.add(new Token(Kind.RIGHT_DELIM, "}}", null, line, false));
+        }
+        if (trimRight) {
+            int end = pos;
+            while (end < input.length() && isSpace(input.charAt(end))) {
+                end++;
+            }
+            countLines(pos, end);
+            pos = end;
+        }
+        return true;
+    }
+
+    private Token symbol(Kind kind, int length) {
+        var text = input.substring(pos, pos + length);
+        pos += length;
+        return new Token(kind, text, text, line, false);
+    }
+
+    private String identifier() {
+        int start = pos;
+        while (pos < input.length() && isAlphaNumeric(input.charAt(pos))) {
+            pos++;
+        }
+        return input.substring(start, pos);
+    }
+
+    private Token number() {
+        int start = pos;
+        if (input.charAt(pos) == '+' || input.charAt(pos) == '-') {
+            pos++;
+        }
+        boolean hex = input.startsWith("0x", pos) || input.startsWith("0X", pos);
+        while (pos < input.length()) {
+            char c = input.charAt(pos);
+            char previous = input.charAt(pos - 1);
+            if (isAlphaNumeric(c) || c == '.' || ((c == '+' || c == '-') && !hex && (previous == 'e' || previous == 'E'))) {
+                pos++;
+            } else {
+                break;
+            }
+        }
+        var text = input.substring(start, pos);
+        return new Token(Kind.NUMBER, text, parseNumber(text), line, false);
+    }
+
+    private Object parseNumber(String text) {
+        var digits = text.replace("_", "");
+        boolean negative = digits.startsWith("-");
+        var unsigned = digits.startsWith("-") || digits.startsWith("+") ? digits.substring(1) : digits;
+        try {
+            var lower = unsigned.toLowerCase();
+            long value;
+            if (lower.startsWith("0x")) {
+                if (lower.contains(".") || lower.contains("p")) {
+                    throw error("bad number syntax: \"" + text + "\"");
+                }
+                value = Long.parseLong(unsigned.substring(2), 16);
+            } else if (lower.startsWith("0o")) {
+                value = Long.parseLong(unsigned.substring(2), 8);
+            } else if (lower.startsWith("0b")) {
+                value = Long.parseLong(unsigned.substring(2), 2);
+            } else if (lower.contains(".") || lower.contains("e")) {
+                return Double.parseDouble(digits);
+            } else if (lower.length() > 1 && lower.startsWith("0")) {
+                value = Long.parseLong(unsigned.substring(1), 8);
+            } else {
+                value = Long.parseLong(unsigned);
+            }
+            return negative ? -value : value;
+        } catch (NumberFormatException e) {
+            throw error("bad number syntax: \"" + text + "\"");
+        }
+    }
+
+    private Token quotedString() {
+        var value = new StringBuilder();
+        pos++;
+        while (true) {
+            if (pos >= input.length() || input.charAt(pos) == '\n') {
+                throw error("unterminated quoted string");
+            }
+            char c = input.charAt(pos);
+            if (c == '"') {
+                pos++;
+                return new Token(Kind.STRING, null, value.toString(), line, false);
+            }
+            if (c == '\\') {
+                pos++;
+                value.appendCodePoint(escape('"'));
+            } else {
+                value.append(c);
+                pos++;
+            }
+        }
+    }
+
+    private Token rawString() {
+        int end = input.indexOf('`', pos + 1);
+        if (end < 0) {
+            throw error("unterminated raw quoted string");
+        }
+        var value = input.substring(pos + 1, end);
+        var token = new Token(Kind.STRING, null, value, line, false);
+        countLines(pos, end);
+        pos = end + 1;
+        return token;
+    }
+
+    private Token charConstant() {
+        pos++;
+        if (pos >= input.length() || input.charAt(pos) == '\n') {
+            throw error("unterminated character constant");
+        }
+        int codePoint;
+        if (input.charAt(pos) == '\\') {
+            pos++;
+            codePoint = escape('\'');
+        } else {
+            codePoint = input.codePointAt(pos);
+            pos += Character.charCount(codePoint);
+        }
+        if (pos >= input.length() || input.charAt(pos) != '\'') {
+            throw error("unterminated character constant");
+        }
+        pos++;
+        return new Token(Kind.CHAR, null, (long) codePoint, line, false);
+    }
+
+    /**
+     * Decodes the escape sequence after a backslash, as in a Go string or character literal.
+     */
+    private int escape(char quote) {
+        if (pos >= input.length()) {
+            throw error("unterminated quoted string");
+        }
+        char c = input.charAt(pos++);
+        return switch (c) {
+            case 'a' -> 0x07;
+            case 'b' -> '\b';
+            case 'f' -> '\f';
+            case 'n' -> '\n';
+            case 'r' -> '\r';
+            case 't' -> '\t';
+            case 'v' -> 0x0b;
+            case '\\' -> '\\';
+            case 'x' -> hexEscape(2);
+            case 'u' -> hexEscape(4);
+            case 'U' -> hexEscape(8);
+            case '0', '1', '2', '3', '4', '5', '6', '7' -> {
+                if (pos + 2 > input.length()) {
+                    throw error("invalid syntax");
+                }
+                pos += 2;
+                yield Integer.parseInt(input.substring(pos - 3, pos), 8);
+            }
+            default -> {
+                if (c != quote) {
+                    throw error("invalid syntax");
+                }
+                yield c;
+            }
+        };
+    }
+
+    private int hexEscape(int digits) {
+        if (pos + digits > input.length()) {
+            throw error("invalid syntax");
+        }
+        try {
+            int value = Integer.parseInt(input.substring(pos, pos + digits), 16);
+            pos += digits;
+            return value;
+        } catch (NumberFormatException e) {
+            throw error("invalid syntax");
+        }
+    }
+
+    private void countLines(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (input.charAt(i) == '\n') {
+                line++;
+            }
+        }
+    }
+
+    private TemplateException error(String message) {
+        return new TemplateException("template: " + templateName + ":" + line + ": " + message);
+    }
+
+    private static String stripTrailing(String text) {
+        int end = text.length();
+        while (end > 0 && isSpace(text.charAt(end - 1))) {
+            end--;
+        }
+        return text.substring(0, end);
+    }
+
+    static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isAlphaNumeric(char c) {
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+}
@@ -0,0 +1,128 @@
+package com.rrmoore.helm.test.internal.gotemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The parse tree of a template, which mirrors that of Go's text/template/parse package.
+ */
+sealed interface Node {
+
+    record Text(String text) implements Node {
+    }
+
+    record Action(Pipeline pipeline) implements Node {
+    }
+
+    record If(Pipeline pipeline, List<Node> list, List<Node> elseList) implements Node {
+    }
+
+    record With(Pipeline pipeline, List<Node> list, List<Node> elseList) implements Node {
+    }
+
+    record Range(Pipeline pipeline, List<Node> list, List<Node> elseList) implements Node {
+    }
+
+    record Template(int line, String name, Pipeline pipeline) implements Node {
+    }
+
+    record Break() implements Node {
+    }
+
+    record Continue() implements Node {
+    }
+
+    /**
+     * @param variables The variables declared or assigned by the pipeline, e.g. `$x` in `{{ $x := .Values.x }}`.
+     * @param assign    Whether the variables are assigned with `=`, rather than declared with `:=`.
+     */
+    record Pipeline(int line, List<String> variables, boolean assign, List<Command> commands) {
+
+        @Override
+        public String toString() {
+            var pipeline = commands.stream().map(Command::toString).collect(Collectors.joining(" | "));
+            if (variables.isEmpty()) {
+                return pipeline;
+            }
+            return String.join(", ", variables) + (assign ? " = " : " := ") + pipeline;
+        }
+    }
+
+    record Command(List<Argument> arguments) {
+
+        @Override
+        public String toString() {
+            return arguments.stream().map(Argument::toString).collect(Collectors.joining(" "));
+        }
+    }
+
+    sealed interface Argument {
+    }
+
+    record Dot() implements Argument {
+
+        @Override
+        public String toString() {
+            return ".";
+        }
+    }
+
+    record Nil() implements Argument {
+
+        @Override
+        public String toString() {
+            return "nil";
+        }
+    }
+
+    /**
+     * @param value A String, Boolean, Long or Double.
+     */
+    record Literal(Object value, String text) implements Argument {
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    record Field(List<String> names) implements Argument {
+
+        @Override
+        public String toString() {
+            return "." + String.join(".", names);
+        }
+    }
+
+    record Variable(String name, List<String> fields) implements Argument {
+
+        @Override
+        public String toString() {
+            return fields.isEmpty() ? name : name + "." + String.join(".", fields);
+        }
+    }
+
+    record Function(String name) implements Argument {
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    record Parenthesized(Pipeline pipeline) implements Argument {
+
+        @Override
+        public String toString() {
+            return "(" + pipeline + ")";
+        }
+    }
+
+    record Chain(Argument operand, List<String> fields) implements Argument {
+
+        @Override
+        public String toString() {
+            return operand + "." + String.join(".", fields);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.rrmoore.helm.test.internal.gotemplate;
+
+import com.rrmoore.helm.test.internal.gotemplate.Lexer.Kind;
+import com.rrmoore.helm.test.internal.gotemplate.Lexer.Token;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parses a template into its tree of nodes, and the templates that it defines with `define` and `block`, in the same
+ * way as Go's text/template/parse package.
+ */
+final class Parser {
+
+    private enum End {
+        END, ELSE, EOF
+    }
+
+    private record ParsedList(List<Node> nodes, End end) {
+    }
+
+    private final String templateName;
+    private final List<Token> tokens;
+    private final Set<String> functions;
+    private final Map<String, Templates.Definition> definitions;
+    private int pos;
+    private int rangeDepth;
+
+    private Parser(String templateName, String text, Set<String> functions, Map<String, Templates.Definition> definitions) {
+        this.templateName = templateName;
+        this.tokens = Lexer.lex(templateName, text);
+        this.functions = functions;
+        this.definitions = definitions;
+    }
+
+    /**
+     * Parses the template, and adds it and the templates which it defines to the definitions.
+     *
+     * @return The body of the template.
+     */
+    static List<Node> parse(String templateName, String text, Set<String> functions, Map<String, Templates.Definition> definitions) {
+        var parser = new Parser(templateName, text, functions, definitions);
+        var list = parser.parseList();
+        if (list.end() != End.EOF) {
+            throw parser.error("unexpected {{" + list.end().name().toLowerCase() + "}}");
+        }
+        definitions.put(templateName, new Templates.Definition(templateName, list.nodes()));
+        return list.nodes();
+    }
+
+    private ParsedList parseList() {
+        var nodes = new ArrayList<Node>();
+        while (true) {
+            var token = next();
+            switch (token.kind()) {
+                case EOF -> {
+                    return new ParsedList(nodes, End.EOF);
+                }
+                case TEXT -> nodes.add(new Node.Text((String) token.value()));
+                case LEFT_DELIM -> {
+                    var keyword = peek();
+                    if (keyword.kind() != Kind.KEYWORD) {
+                        nodes.add(new Node.Action(parsePipeline("command", false, Kind.RIGHT_DELIM)));
+                        continue;
+                    }
+                    next();
+                    switch ((String) keyword.value()) {
+                        case "end" -> {
+                            expect(Kind.RIGHT_DELIM, "end");
+                            return new ParsedList(nodes, End.END);
+                        }
+                        case "else" -> {
+                            return new ParsedList(nodes, End.ELSE);
+                        }
+                        case "if", "with", "range" -> nodes.add(parseControl((String) keyword.value()));
+                        case "define" -> parseDefine();
+                        case "block" -> nodes.add(parseBlock(keyword.line()));
+                        case "template" -> nodes.add(parseTemplate(keyword.line()));
+                        case "break", "continue" -> {
+                            if (rangeDepth == 0) {
+                                throw error("{{" + keyword.value() + "}} outside {{range}}");
+                            }
+                            expect(Kind.RIGHT_DELIM, (String) keyword.value());
+                            nodes.add(keyword.value().equals("break") ? new Node.Break() : new Node.Continue());
+                        }
+                        default -> throw error("unexpected keyword " + keyword.value());
+                    }
+                }
+                default -> throw error("unexpected " + token.text());
+            }
+        }
+    }
+
+    private Node parseControl(String keyword) {
+        boolean isRange = keyword.equals("range");
+        var pipeline = parsePipeline(keyword, isRange, Kind.RIGHT_DELIM);
+        if (isRange) {
+            rangeDepth++;
+        }
+        var list = parseList();
+        if (isRange) {
+            rangeDepth--;
+        }
+        List<Node> elseList = List.of();
+        if (list.end() == End.ELSE) {
+            var next = peek();
+            if (!isRange && next.kind() == Kind.KEYWORD && next.value().equals(keyword)) {
+                // {{else if ...}} and {{else with ...}} share the {{end}} of the chain they are part of.
+                next();
+                elseList = List.of(parseControl(keyword));
+            } else {
+                expect(Kind.RIGHT_DELIM, "else");
+                var elseBody = parseList();
+                if (elseBody.end() != End.END) {
+                    throw error("expected end; found " + describe(elseBody.end()));
+                }
+                elseList = elseBody.nodes();
+            }
+        } else if (list.end() != End.END) {
+            throw error("unexpected EOF");
+        }
+        return switch (keyword) {
+            case "if" -> new Node.If(pipeline, list.nodes(), elseList);
+            case "with" -> new Node.With(pipeline, list.nodes(), elseList);
+            default -> new Node.Range(pipeline, list.nodes(), elseList);
+        };
+    }
+
+    private void parseDefine() {
+        var name = templateName(expectString("define clause"));
+        expect(Kind.RIGHT_DELIM, "define clause");
+        var body = parseList();
+        if (body.end() != End.END) {
+            throw error("unexpected " + describe(body.end()) + " in define clause");
+        }
+        definitions.put(name, new Templates.Definition(templateName, body.nodes()));
+    }
+
+    private Node parseBlock(int line) {
+        var name = templateName(expectString("block clause"));
+        var pipeline = parsePipeline("block clause", false, Kind.RIGHT_DELIM);
+        var body = parseList();
+        if (body.end() != End.END) {
+            throw error("unexpected " + describe(body.end()) + " in block clause");
+        }
+        definitions.put(name, new Templates.Definition(templateName, body.nodes()));
+        return new Node.Template(line, name, pipeline);
+    }
+
+    private Node parseTemplate(int line) {
+        var name = templateName(expectString("template clause"));
+        if (peek().kind() == Kind.RIGHT_DELIM) {
+            next();
+            return new Node.Template(line, name, null);
+        }
+        return new Node.Template(line, name, parsePipeline("template clause", false, Kind.RIGHT_DELIM));
+    }
+
+    private String templateName(Token token) {
+        return (String) token.value();
+    }
+
+    private Node.Pipeline parsePipeline(String context, boolean allowTwoVariables, Kind end) {
+        int line = peek().line();
+        var variables = new ArrayList<String>();
+        boolean assign = false;
+        if (peek().kind() == Kind.VARIABLE) {
+            int start = pos;
+            var first = next();
+            var following = next();
+            if (following.kind() == Kind.DECLARE || following.kind() == Kind.ASSIGN) {
+                variables.add((String) first.value());
+                assign = following.kind() == Kind.ASSIGN;
+            } else if (following.kind() == Kind.COMMA && allowTwoVariables) {
+                var second = expect(Kind.VARIABLE, context);
+                var declaration = next();
+                if (declaration.kind() != Kind.DECLARE && declaration.kind() != Kind.ASSIGN) {
+                    throw error("expected := or = in " + context);
+                }
+                variables.add((String) first.value());
+                variables.add((String) second.value());
+                assign = declaration.kind() == Kind.ASSIGN;
+            } else {
+                pos = start;
+            }
+        }
+        var commands = new ArrayList<Node.Command>();
+        while (true) {
+            var token = peek();
+            if (token.kind() == end) {
+                next();
+                break;
+            }
+            if (token.kind() == Kind.RIGHT_DELIM || token.kind() == Kind.RIGHT_PAREN || token.kind() == Kind.EOF) {
+                throw error("unexpected " + describe(token) + " in " + context);
+            }
+            commands.add(parseCommand(context));
+            if (peek().kind() == Kind.PIPE) {
+                next();
+                if (peek().kind() == end) {
+                    throw error("missing command after | in " + context);
+                }
+            }
+        }
+        if (commands.isEmpty()) {
+            throw error("missing value for " + context);
+        }
+        return new Node.Pipeline(line, List.copyOf(variables), assign, List.copyOf(commands));
+    }
+
+    private Node.Command parseCommand(String context) {
+        var arguments = new ArrayList<Node.Argument>();
+        while (true) {
+            var kind = peek().kind();
+            if (kind == Kind.PIPE || kind == Kind.RIGHT_DELIM || kind == Kind.RIGHT_PAREN) {
+                break;
+            }
+            if (!arguments.isEmpty() && !peek().spaceBefore()) {
+                throw error("missing space between arguments in " + context);
+            }
+            arguments.add(parseOperand());
+        }
+        if (arguments.isEmpty()) {
+            throw error("empty command");
+        }
+        return new Node.Command(List.copyOf(arguments));
+    }
+
+    private Node.Argument parseOperand() {
+        var term = parseTerm();
+        var fields = new ArrayList<String>();
+        while (peek().kind() == Kind.FIELD && !peek().spaceBefore()) {
+            fields.add((String) next().value());
+        }
+        if (fields.isEmpty()) {
+            return term;
+        }
+        return switch (term) {
+            case Node.Field field -> new Node.Field(concat(field.names(), fields));
+            case Node.Variable variable -> new Node.Variable(variable.name(), concat(variable.fields(), fields));
+            case Node.Parenthesized parenthesized -> new Node.Chain(parenthesized, List.copyOf(fields));
+            default -> throw error("unexpected . after term " + term);
+        };
+    }
+
+    private Node.Argument parseTerm() {
+        var token = next();
+        return switch (token.kind()) {
+            case IDENTIFIER -> {
+                var name = (String) token.value();
+                if (!functions.contains(name)) {
+                    throw error("function \"" + name + "\" not defined");
+                }
+                yield new Node.Function(name);
+            }
+            case DOT -> new Node.Dot();
+            case NIL -> new Node.Nil();
+            case BOOL, NUMBER, STRING, CHAR -> new Node.Literal(token.value(), token.text());
+            case FIELD -> new Node.Field(List.of((String) token.value()));
+            case VARIABLE -> new Node.Variable((String) token.value(), List.of());
+            case LEFT_PAREN -> new Node.Parenthesized(parsePipeline("parenthesized pipeline", false, Kind.RIGHT_PAREN));
+            default -> throw error("unexpected " + describe(token) + " in operand");
+        };
+    }
+
+    private Token expectString(String context) {
+        var token = next();
+        if (token.kind() != Kind.STRING) {
+            throw error("unexpected " + describe(token) + " in " + context);
+        }
+        return token;
+    }
+
+    private Token expect(Kind kind, String context) {
+        var token = next();
+        if (token.kind() != kind) {
+            throw error("unexpected " + describe(token) + " in " + context);
+        }
+        return token;
+    }
+
+    private Token next() {
+        return tokens.get(pos++);
+    }
+
+    private Token peek() {
+        return tokens.get(pos);
+    }
+
+    private TemplateException error(String message) {
+        var line = tokens.get(Math.max(0, Math.min(pos, tokens.size()) - 1)).line();
+        return new TemplateException("template: " + templateName + ":" + line + ": " + message);
+    }
+
+    private static String describe(Token token) {
+        return switch (token.kind()) {
+            case EOF -> "EOF";
+            case RIGHT_DELIM -> "\"}}\"";
+            default -> "\"" + token.text() + "\"";
+        };
+    }
+
+    private static String describe(End end) {
+        return end == End.EOF ? "EOF" : "{{" + end.name().toLowerCase() + "}}";
+    }
+
+    private static List<String> concat(List<String> first, List<String> second) {
+        var names = new ArrayList<>(first);
+        names.addAll(second);
+        return List.copyOf(names);
+    }
+}
@@ -0,0 +1,11 @@
+package com.rrmoore.helm.test.internal.gotemplate;
+
+/**
+ * A failure to parse or execute a template, with a message in the form of those from Go's text/template and Helm.
+ */
+public class TemplateException extends RuntimeException {
+
+    public TemplateException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,58 @@
+package com.rrmoore.helm.test.internal.gotemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of Go templates which can refer to each other, like the template set which Helm builds from the files of a
+ * chart. Templates are executed with the functions of Go's text/template, and the subset of the Sprig and Helm
+ * functions listed in {@link Functions}, using the `missingkey=zero` option that Helm uses.
+ * <p>
+ * Instances of this class are not thread-safe.
+ */
+public final class Templates {
+
+    /**
+     * @param parseName The name of the template whose text contained this one, which is reported in error messages.
+     */
+    record Definition(String parseName, List<Node> body) {
+    }
+
+    private final Map<String, Definition> definitions;
+
+    public Templates() {
+        this(new HashMap<>());
+    }
+
+    private Templates(Map<String, Definition> definitions) {
+        this.definitions = definitions;
+    }
+
+    /**
+     * Parses a template, which then replaces any existing template of the same name, along with any templates which it
+     * defines.
+     *
+     * @throws TemplateException if the text is not a valid template.
+     */
+    public void parse(String name, String text) {
+        Parser.parse(name, text, Functions.names(), definitions);
+    }
+
+    /**
+     * @return The output of the named template, executed with the given data as dot, in which missing values are
+     * printed as "&lt;no value&gt;".
+     * @throws TemplateException if there is no such template, or if executing it fails.
+     */
+    public String execute(String name, Object data) {
+        return new Execution(this).execute(name, data);
+    }
+
+    Definition definition(String name) {
+        return definitions.get(name);
+    }
+
+    Templates copy() {
+        return new Templates(new HashMap<>(definitions));
+    }
+}
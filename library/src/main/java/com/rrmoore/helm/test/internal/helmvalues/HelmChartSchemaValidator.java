@@ -0,0 +1,34 @@
+package com.rrmoore.helm.test.internal.helmvalues;
+
+import com.networknt.schema.Error;
+import com.networknt.schema.InputFormat;
+import com.networknt.schema.SchemaRegistry;
+import com.networknt.schema.SpecificationVersion;
+import com.rrmoore.helm.test.internal.jdkext.Exceptions;
+import com.rrmoore.helm.test.internal.jdkext.GoJson;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Validates values against the values.schema.json file of a chart, as `helm template` does before rendering.
+ */
+public class HelmChartSchemaValidator {
+
+    /**
+     * @return The messages describing how the values do not match the schema, which are empty if they do, or if there
+     * is no schema file.
+     */
+    public List<String> validate(File schemaFile, Object values) {
+        if (!schemaFile.isFile()) {
+            return List.of();
+        }
+        var schemaBytes = Exceptions.uncheck(() -> Files.readAllBytes(schemaFile.toPath()));
+        var schema = SchemaRegistry.withDefaultDialect(SpecificationVersion.DRAFT_7)
+            .getSchema(new ByteArrayInputStream(schemaBytes));
+        return schema.validate(GoJson.encode(values), InputFormat.JSON).stream()
+            .map(Error::getMessage)
+            .toList();
+    }
+}
@@ -0,0 +1,133 @@
+package com.rrmoore.helm.test.internal.jdkext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializes a parsed YAML tree to JSON in the same way as Go's encoding/json, which is what Helm's toJson template
+ * function uses. Map entries are ordered by their keys, there is no whitespace, and the characters '<', '>' and '&'
+ * are escaped, so that the result can be hashed to reproduce e.g. `{{ .Values.config | toJson | sha256sum }}`.
+ */
+public final class GoJson {
+
+    private GoJson() {
+    }
+
+    public static String encode(Object tree) {
+        var out = new StringBuilder();
+        write(out, tree);
+        return out.toString();
+    }
+
+    private static void write(StringBuilder out, Object value) {
+        switch (value) {
+            case null -> out.append("null");
+            case Map<?, ?> map -> {
+                var keys = new ArrayList<String>(map.size());
+                map.keySet().forEach(key -> keys.add(String.valueOf(key)));
+                // Go orders keys by their UTF-8 bytes, which is the order of their code points.
+                keys.sort(GoJson::compareCodePoints);
+                out.append('{');
+                for (int i = 0; i < keys.size(); i++) {
+                    if (i > 0) {
+                        out.append(',');
+                    }
+                    writeString(out, keys.get(i));
+                    out.append(':');
+                    write(out, valueOf(map, keys.get(i)));
+                }
+                out.append('}');
+            }
+            case List<?> list -> {
+                out.append('[');
+                for (int i = 0; i < list.size(); i++) {
+                    if (i > 0) {
+                        out.append(',');
+                    }
+                    write(out, list.get(i));
+                }
+                out.append(']');
+            }
+            case Boolean b -> out.append(b);
+            case Integer i -> out.append(i);
+            case Long l -> out.append(l);
+            case Number n -> out.append(formatFloat(n.doubleValue()));
+            default -> writeString(out, String.valueOf(value));
+        }
+    }
+
+    private static Object valueOf(Map<?, ?> map, String key) {
+        if (map.containsKey(key)) {
+            return map.get(key);
+        }
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (String.valueOf(entry.getKey()).equals(key)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static void writeString(StringBuilder out, String s) {
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                case '\b' -> out.append("\\b");
+                case '\f' -> out.append("\\f");
+                default -> {
+                    if (c < 0x20 || c == '<' || c == '>' || c == '&' || c == 0x2028 || c == 0x2029) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Formats like Go's strconv.FormatFloat with the shortest representation, using an exponent outside of the range
+     * [1e-6, 1e21), as encoding/json does.
+     */
+    private static String formatFloat(double d) {
+        if (Double.isNaN(d) || Double.isInfinite(d)) {
+            throw new IllegalArgumentException("Go's encoding/json cannot represent the number " + d);
+        }
+        if (d == 0) {
+            return "0";
+        }
+        var decimal = new BigDecimal(Double.toString(d)).stripTrailingZeros();
+        var abs = Math.abs(d);
+        if (abs >= 1e-6 && abs < 1e21) {
+            return decimal.toPlainString();
+        }
+        var digits = decimal.unscaledValue().abs().toString();
+        int exponent = digits.length() - decimal.scale() - 1;
+        var mantissa = digits.length() == 1 ? digits : digits.charAt(0) + "." + digits.substring(1);
+        return (d < 0 ? "-" : "") + mantissa + "e" + (exponent < 0 ? "-" : "+") + String.format("%02d", Math.abs(exponent));
+    }
+
+    private static int compareCodePoints(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) {
+                return Integer.compare(ca, cb);
+            }
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+}
@@ -0,0 +1,78 @@
+package com.rrmoore.helm.test.internal.jdkext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An input stream which reads a file through a read-only memory mapping of it, so that the file's content is paged in
+ * by the OS as it is read, instead of being copied onto the heap. The mapping is released when the stream is closed.
+ */
+public class MappedFileInputStream extends InputStream {
+
+    private final Arena arena;
+    private final MemorySegment file;
+    private long position = 0;
+
+    private MappedFileInputStream(Arena arena, MemorySegment file) {
+        this.arena = arena;
+        this.file = file;
+    }
+
+    public static MappedFileInputStream open(Path path) throws IOException {
+        var arena = Arena.ofShared();
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new MappedFileInputStream(arena, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena));
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int read() {
+        if (position >= file.byteSize()) {
+            return -1;
+        }
+        return file.get(ValueLayout.JAVA_BYTE, position++) & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) {
+        if (length == 0) {
+            return 0;
+        }
+        long remaining = file.byteSize() - position;
+        if (remaining <= 0) {
+            return -1;
+        }
+        int read = (int) Math.min(length, remaining);
+        MemorySegment.copy(file, ValueLayout.JAVA_BYTE, position, buffer, offset, read);
+        position += read;
+        return read;
+    }
+
+    @Override
+    public long skip(long n) {
+        long skipped = Math.max(0, Math.min(n, file.byteSize() - position));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, file.byteSize() - position);
+    }
+
+    @Override
+    public void close() {
+        if (arena.scope().isAlive()) {
+            arena.close();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.rrmoore.helm.test.internal.jdkext;
+
+import io.kubernetes.client.openapi.JSON;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binds Kubernetes client models directly from parsed YAML trees, through the Kubernetes client's Gson configuration,
+ * rather than serializing the tree to YAML text and parsing it again. The tree has already been loaded with the
+ * {@link com.rrmoore.helm.test.YamlLoadingOptions} of its parser, so binding does not apply any limits of its own.
+ * <p>
+ * SnakeYAML loads unquoted timestamps, such as an annotation value of 2024-01-02, as Dates. They are bound as ISO-8601
+ * strings in UTC, e.g. "2024-01-02T00:00:00Z", so that the models do not depend on how Gson is configured to format
+ * Dates.
+ */
+public final class ModelBinding {
+
+    private ModelBinding() {
+    }
+
+    /**
+     * @param tree A YamlMap, or a map, list or scalar from a parsed YAML tree.
+     */
+    public static <T> T bind(Object tree, Class<T> modelClass) {
+        var gson = JSON.getGson();
+        var rawTree = tree instanceof YamlMap yamlMap ? yamlMap.tree() : tree;
+        return gson.fromJson(gson.toJsonTree(datesAsStrings(rawTree)), modelClass);
+    }
+
+    /**
+     * @return The node itself if it contains no Dates, which is almost always the case, or else a copy of it in which
+     * they are replaced.
+     */
+    private static Object datesAsStrings(Object node) {
+        return switch (node) {
+            case Date date -> date.toInstant().toString();
+            case Map<?, ?> map -> {
+                Map<Object, Object> copy = null;
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    var value = datesAsStrings(entry.getValue());
+                    if (copy == null && value != entry.getValue()) {
+                        copy = new LinkedHashMap<>(map);
+                    }
+                    if (copy != null) {
+                        copy.put(entry.getKey(), value);
+                    }
+                }
+                yield copy == null ? map : copy;
+            }
+            case List<?> list -> {
+                List<Object> copy = null;
+                for (int i = 0; i < list.size(); i++) {
+                    var value = datesAsStrings(list.get(i));
+                    if (copy == null && value != list.get(i)) {
+                        copy = new ArrayList<>(list);
+                    }
+                    if (copy != null) {
+                        copy.set(i, value);
+                    }
+                }
+                yield copy == null ? list : copy;
+            }
+            case null, default -> node;
+        };
+    }
+}
@@ -0,0 +1,83 @@
+package com.rrmoore.helm.test.internal.jdkext;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Estimates the heap retained by YAML trees, counting each object once however many trees share it, so that the saving
+ * from interning trees can be measured without a heap dump.
+ * <p>
+ * Sizes assume a 64-bit JVM with compressed object pointers and compact strings. They are estimates, which are intended
+ * for comparing representations of the same trees, rather than exact measurements.
+ */
+public final class RetainedYamlSize {
+
+    private static final int HEADER = 12;
+    private static final int REFERENCE = 4;
+    private static final int ARRAY_HEADER = 16;
+
+    private final Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+    private long bytes = 0;
+
+    public RetainedYamlSize add(YamlMap yamlMap) {
+        if (seen.add(yamlMap)) {
+            bytes += align(HEADER + REFERENCE);
+            addTree(yamlMap.tree());
+        }
+        return this;
+    }
+
+    public long bytes() {
+        return bytes;
+    }
+
+    private void addTree(Object value) {
+        if (value == null || !seen.add(value)) {
+            return;
+        }
+        switch (value) {
+            case Map<?, ?> map -> {
+                // An unmodifiable wrapper around a LinkedHashMap, with one entry object per mapping.
+                bytes += align(HEADER + 4 * REFERENCE);
+                bytes += align(HEADER + 6 * REFERENCE + 12);
+                bytes += align(ARRAY_HEADER + (long) REFERENCE * tableSize(map.size()));
+                bytes += (long) map.size() * align(HEADER + 6 * REFERENCE + 4);
+                map.forEach((k, v) -> {
+                    addTree(k);
+                    addTree(v);
+                });
+            }
+            case List<?> list -> {
+                // An unmodifiable wrapper around an ArrayList.
+                bytes += align(HEADER + 2 * REFERENCE);
+                bytes += align(HEADER + 4 + REFERENCE + 4);
+                bytes += align(ARRAY_HEADER + (long) REFERENCE * list.size());
+                list.forEach(this::addTree);
+            }
+            case String string -> {
+                boolean latin1 = string.chars().allMatch(c -> c < 256);
+                bytes += align(HEADER + REFERENCE + 4 + 4);
+                bytes += align(ARRAY_HEADER + (long) string.length() * (latin1 ? 1 : 2));
+            }
+            case byte[] array -> bytes += align(ARRAY_HEADER + array.length);
+            case Integer ignored -> bytes += align(HEADER + 4);
+            case Boolean ignored -> bytes += align(HEADER + 4);
+            default -> bytes += align(HEADER + 8);
+        }
+    }
+
+    private static int tableSize(int entries) {
+        int size = 1;
+        while (size * 3 / 4 < entries) {
+            size <<= 1;
+        }
+        return Math.max(size, 16);
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
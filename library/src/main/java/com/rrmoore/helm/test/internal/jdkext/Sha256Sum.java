@@ -0,0 +1,22 @@
+package com.rrmoore.helm.test.internal.jdkext;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * Computes SHA-256 digests of text in the same form as Helm's sha256sum template function.
+ */
+public final class Sha256Sum {
+
+    private Sha256Sum() {
+    }
+
+    /**
+     * @return The lowercase hexadecimal SHA-256 digest of the UTF-8 encoding of the text.
+     */
+    public static String of(String text) {
+        var digest = Exceptions.uncheck(() -> MessageDigest.getInstance("SHA-256"));
+        return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,32 @@
+package com.rrmoore.helm.test.internal.jdkext;
+
+import com.rrmoore.helm.test.YamlLoadingOptions;
+import java.util.HashMap;
+import java.util.Map;
+import org.yaml.snakeyaml.Yaml;
+
+/**
+ * Reuses SnakeYAML instances, which are expensive to create, but are not thread-safe, so each thread has its own
+ * instance for each set of loading options.
+ */
+public final class SnakeYamlInstances {
+
+    private static final ThreadLocal<Map<YamlLoadingOptions, Yaml>> INSTANCES = ThreadLocal.withInitial(HashMap::new);
+
+    private SnakeYamlInstances() {
+    }
+
+    /**
+     * @return This thread's SnakeYAML instance for the default loading options.
+     */
+    public static Yaml get() {
+        return get(YamlLoadingOptions.getDefault());
+    }
+
+    /**
+     * @return This thread's SnakeYAML instance for the provided loading options.
+     */
+    public static Yaml get(YamlLoadingOptions options) {
+        return INSTANCES.get().computeIfAbsent(options, it -> new Yaml(it.toLoaderOptions()));
+    }
+}
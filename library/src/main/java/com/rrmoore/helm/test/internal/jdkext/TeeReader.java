@@ -0,0 +1,36 @@
+package com.rrmoore.helm.test.internal.jdkext;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * A reader which copies every character it reads to a writer.
+ */
+public class TeeReader extends Reader {
+
+    private final Reader reader;
+    private final Writer writer;
+
+    public TeeReader(Reader reader, Writer writer) {
+        this.reader = reader;
+        this.writer = writer;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        int read = reader.read(buffer, offset, length);
+        if (read > 0) {
+            writer.write(buffer, offset, read);
+        }
+        return read;
+    }
+
+    /**
+     * Closes the underlying reader. The writer is left open, since its owner is responsible for it.
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
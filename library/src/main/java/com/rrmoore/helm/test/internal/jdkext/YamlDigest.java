@@ -0,0 +1,103 @@
+package com.rrmoore.helm.test.internal.jdkext;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes a SHA-256 digest of a parsed YAML tree from a canonical serialization of it, in which map entries are
+ * ordered by their keys. Equal trees have the same digest, regardless of the order in which
+ * their map entries were written.
+ */
+public final class YamlDigest {
+
+    private YamlDigest() {
+    }
+
+    public static String of(Object tree) {
+        var digest = Exceptions.uncheck(() -> MessageDigest.getInstance("SHA-256"));
+        write(digest, tree);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // The tree is fed to the digest as it is walked, so that no serialization of it, or of any subtree, is held.
+    private static void write(MessageDigest digest, Object value) {
+        switch (value) {
+            case null -> digest.update((byte) '~');
+            case Map<?, ?> map -> {
+                var entries = new ArrayList<Map.Entry<?, ?>>(map.entrySet());
+                entries.sort((a, b) -> compareKeys(a.getKey(), b.getKey()));
+                writeHeader(digest, 'M', entries.size());
+                for (Map.Entry<?, ?> entry : entries) {
+                    write(digest, entry.getKey());
+                    write(digest, entry.getValue());
+                }
+            }
+            case List<?> list -> {
+                writeHeader(digest, 'L', list.size());
+                list.forEach(it -> write(digest, it));
+            }
+            case String string -> writeScalar(digest, 'S', string.getBytes(StandardCharsets.UTF_8));
+            case byte[] bytes -> writeScalar(digest, 'B', bytes);
+            // Date.toString() depends on the default time zone.
+            case Date date -> writeScalar(digest, 'D', Long.toString(date.getTime()).getBytes(StandardCharsets.US_ASCII));
+            // Other scalars are numbers and booleans, which are distinguished by their type.
+            default -> writeScalar(digest, 'O', otherScalar(value).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Orders keys by their type, and then by their value. Keys are almost always strings, so only the rare keys which
+     * are collections are ordered by a digest of their own.
+     */
+    private static int compareKeys(Object a, Object b) {
+        if (a instanceof String first && b instanceof String second) {
+            return first.compareTo(second);
+        }
+        int byType = Character.compare(type(a), type(b));
+        if (byType != 0) {
+            return byType;
+        }
+        return switch (a) {
+            case null -> 0;
+            case Map<?, ?> ignored -> of(a).compareTo(of(b));
+            case List<?> ignored -> of(a).compareTo(of(b));
+            case byte[] bytes -> Arrays.compare(bytes, (byte[]) b);
+            case Date date -> Long.compare(date.getTime(), ((Date) b).getTime());
+            default -> otherScalar(a).compareTo(otherScalar(b));
+        };
+    }
+
+    private static char type(Object value) {
+        return switch (value) {
+            case null -> '~';
+            case Map<?, ?> ignored -> 'M';
+            case List<?> ignored -> 'L';
+            case String ignored -> 'S';
+            case byte[] ignored -> 'B';
+            case Date ignored -> 'D';
+            default -> 'O';
+        };
+    }
+
+    private static String otherScalar(Object value) {
+        return value.getClass().getName() + ":" + value;
+    }
+
+    // Length-prefixed, so that the boundaries between consecutive values are part of the digest.
+    private static void writeScalar(MessageDigest digest, char type, byte[] bytes) {
+        writeHeader(digest, type, bytes.length);
+        digest.update(bytes);
+    }
+
+    private static void writeHeader(MessageDigest digest, char type, int length) {
+        digest.update((byte) type);
+        digest.update(Integer.toString(length).getBytes(StandardCharsets.US_ASCII));
+        digest.update((byte) ':');
+    }
+}
@@ -1,27 +1,51 @@
 package com.rrmoore.helm.test.internal.jdkext;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import org.yaml.snakeyaml.Yaml;
 
 /**
  * A wrapper for YAML objects, intended to reduce the number of casts needed to access deeply nested elements.
+ * <p>
+ * A YamlMap is deeply immutable: every map and list in it is unmodifiable. Nested maps and lists are returned as views
+ * of the same tree, rather than copies of it.
  */
 public class YamlMap {
 
-    private static final Yaml SNAKE_YAML = new Yaml();
-
     private final Map<String, Object> object;
+    private int hash;
 
     public YamlMap(String yaml) {
-        this.object = SNAKE_YAML.load(yaml);
+        this.object = freezeInPlace(SnakeYamlInstances.get().<Map<String, Object>>load(yaml));
     }
 
+    /**
+     * @param object A YAML object, which is copied, so that later changes to it do not affect this YamlMap.
+     *               Use {@link #freeze(Map)} to avoid copying an object which will not be changed again.
+     */
     public YamlMap(Map<String, Object> object) {
-        this.object = object;
+        this(immutableCopy(object), true);
+    }
+
+    /**
+     * @param frozen Unused, to distinguish this constructor, which takes an object that is already deeply unmodifiable.
+     */
+    @SuppressWarnings("unchecked")
+    private YamlMap(Object object, boolean frozen) {
+        this.object = (Map<String, Object>) object;
+    }
+
+    /**
+     * Takes ownership of a YAML object, e.g. one which has just been parsed, by making it deeply unmodifiable in place
+     * rather than copying it. The object must not be modified by anything else afterwards.
+     */
+    public static YamlMap freeze(Map<String, Object> object) {
+        return new YamlMap(freezeInPlace(object), true);
     }
 
     public Object get(String key) {
@@ -36,18 +60,35 @@ public class YamlMap {
         if (dotSeparatedKeys.isBlank()) {
             return Optional.of(this);
         }
-        var orderedKeys = dotSeparatedKeys.split("[.]");
         Object next = object;
-        for (String orderedKey : orderedKeys) {
+        // Trailing empty keys are ignored, as they were when the keys were split with String.split.
+        int length = dotSeparatedKeys.length();
+        while (length > 0 && dotSeparatedKeys.charAt(length - 1) == '.') {
+            length--;
+        }
+        int start = 0;
+        while (start <= length) {
+            int end = dotSeparatedKeys.indexOf('.', start);
+            if (end == -1 || end > length) {
+                end = length;
+            }
             if (next instanceof Map<?, ?> nextMap) {
-                next = nextMap.get(orderedKey);
+                next = nextMap.get(dotSeparatedKeys.substring(start, end));
             } else {
                 return Optional.empty();
             }
+            start = end + 1;
         }
         return Optional.ofNullable(next);
     }
 
+    /**
+     * @return The first value selected by the path, if there is one. See {@link YamlPath}.
+     */
+    public Optional<Object> getNested(YamlPath path) {
+        return Optional.ofNullable(path.get(this));
+    }
+
     public Optional<String> getNestedString(String dotSeparatedKeys) {
         var next = getNested(dotSeparatedKeys);
         if (next.isPresent() && next.get() instanceof String) {
@@ -59,10 +100,7 @@ public class YamlMap {
     public Optional<YamlMap> getNestedObject(String dotSeparatedKeys) {
         var next = getNested(dotSeparatedKeys);
         if (next.isPresent() && next.get() instanceof Map<?, ?> nextMap) {
-            var typeNormalizedMap = nextMap.entrySet().stream()
-                .map(it -> Map.entry((String) it.getKey(), (Object) it.getValue()))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-            return Optional.of(new YamlMap(typeNormalizedMap));
+            return Optional.of(new YamlMap(nextMap, true));
         }
         return Optional.empty();
     }
@@ -70,27 +108,115 @@ public class YamlMap {
     public Optional<List<Object>> getNestedList(String dotSeparatedKeys) {
         var next = getNested(dotSeparatedKeys);
         if (next.isPresent() && next.get() instanceof List<?> nextList) {
-            return Optional.of(nextList.stream().map(it -> (Object) it).toList());
+            //noinspection unchecked
+            return Optional.of((List<Object>) nextList);
         }
         return Optional.empty();
     }
 
+    /**
+     * @return This YamlMap serialized as a YAML document.
+     */
+    public String toYaml() {
+        return SnakeYamlInstances.get().dump(object);
+    }
+
+    /**
+     * @return A SHA-256 digest of this YamlMap's content, which does not depend on the order of its map entries.
+     */
+    public String digest() {
+        return YamlDigest.of(object);
+    }
+
+    /**
+     * @return This YamlMap, which is already deeply immutable.
+     */
+    public YamlMap immutableCopy() {
+        return this;
+    }
+
+    /**
+     * @return An interned copy of this YamlMap, which shares equal values and subtrees with every other YamlMap
+     * interned by the same interner. Like {@link #immutableCopy()}, it is deeply unmodifiable.
+     */
+    public YamlMap internedCopy(YamlTreeInterner interner) {
+        return new YamlMap(interner.intern(object), true);
+    }
+
+    Map<String, Object> tree() {
+        return object;
+    }
+
+    private static <T> T freezeInPlace(T value) {
+        //noinspection unchecked
+        return (T) freezeInPlace(value, new IdentityHashMap<>());
+    }
+
+    /**
+     * @param frozen The collections frozen so far, because YAML aliases can make the same collection appear more than
+     *               once in a tree.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object freezeInPlace(Object value, IdentityHashMap<Object, Object> frozen) {
+        if (!(value instanceof Map<?, ?>) && !(value instanceof List<?>)) {
+            return value;
+        }
+        var existing = frozen.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        if (value instanceof Map<?, ?> map) {
+            var unmodifiable = Collections.unmodifiableMap(map);
+            frozen.put(map, unmodifiable);
+            ((Map<Object, Object>) map).replaceAll((k, v) -> freezeInPlace(v, frozen));
+            return unmodifiable;
+        }
+        var list = (List<Object>) value;
+        var unmodifiable = Collections.unmodifiableList(list);
+        frozen.put(list, unmodifiable);
+        list.replaceAll(it -> freezeInPlace(it, frozen));
+        return unmodifiable;
+    }
+
+    private static Object immutableCopy(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            var copy = new LinkedHashMap<Object, Object>();
+            map.forEach((k, v) -> copy.put(k, immutableCopy(v)));
+            return Collections.unmodifiableMap(copy);
+        } else if (value instanceof List<?> list) {
+            var copy = new ArrayList<>(list.size());
+            list.forEach(it -> copy.add(immutableCopy(it)));
+            return Collections.unmodifiableList(copy);
+        }
+        return value;
+    }
+
     @Override
     public boolean equals(Object o) {
+        if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         YamlMap yamlMap = (YamlMap) o;
+        if (object == yamlMap.object) return true;
+        if (hash != 0 && yamlMap.hash != 0 && hash != yamlMap.hash) return false;
         return Objects.equals(object, yamlMap.object);
     }
 
+    // The hash is cached, which is safe because the YamlMap is deeply immutable. Like String's, the cache is racy but
+    // benign, because every thread computes the same value.
     @Override
     public int hashCode() {
-        return Objects.hashCode(object);
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hashCode(object);
+            hash = h;
+        }
+        return h;
     }
 
     @Override
     public String toString() {
         return "YamlMap{" +
-            "object=" + SNAKE_YAML.dump(object) +
+            "object=" + toYaml() +
             '}';
     }
 }
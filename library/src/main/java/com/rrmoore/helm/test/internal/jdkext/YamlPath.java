@@ -0,0 +1,283 @@
+package com.rrmoore.helm.test.internal.jdkext;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A path to values in a YAML tree, which is compiled once and can then be evaluated against any number of trees.
+ * <p>
+ * A path is a sequence of steps. Map keys are separated by dots, e.g. `spec.template.spec`. A key which contains dots
+ * or brackets can be quoted in brackets, e.g. `metadata.annotations["checksum/config"]` or
+ * `metadata.labels['app.kubernetes.io/name']`. `[2]` selects the element at index 2 of a list, and `[*]` selects every
+ * element of a list, or every value of a map, e.g. `spec.template.spec.containers[*].env[*].valueFrom`.
+ * <p>
+ * Evaluating a path does not allocate, unless all its matches are collected into a list.
+ * Instances of this class are immutable and thread-safe.
+ */
+public final class YamlPath {
+
+    private static final Object NO_MATCH = new Object();
+
+    // The most recently used compiled paths, so that evaluating the same expression repeatedly only compiles it once.
+    private static final int MAX_CACHED_PATHS = 256;
+    private static final Map<String, YamlPath> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, YamlPath> eldest) {
+            return size() > MAX_CACHED_PATHS;
+        }
+    };
+
+    private sealed interface Step permits Key, Index, Wildcard {
+    }
+
+    private record Key(String key) implements Step {
+    }
+
+    private record Index(int index) implements Step {
+    }
+
+    private record Wildcard() implements Step {
+    }
+
+    private final String expression;
+    private final Step[] steps;
+    private final boolean definite;
+
+    private YamlPath(String expression, Step[] steps) {
+        this.expression = expression;
+        this.steps = steps;
+        boolean hasWildcard = false;
+        for (Step step : steps) {
+            hasWildcard |= step instanceof Wildcard;
+        }
+        this.definite = !hasWildcard;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the expression is not a valid path.
+     */
+    public static YamlPath compile(String expression) {
+        return new YamlPath(expression, new Parser(expression).parse());
+    }
+
+    /**
+     * Like {@link #compile(String)}, but returns the same instance for an expression while it is among the 256 most
+     * recently used ones.
+     *
+     * @throws IllegalArgumentException if the expression is not a valid path.
+     */
+    public static YamlPath compileCached(String expression) {
+        synchronized (CACHE) {
+            var cached = CACHE.get(expression);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        var compiled = compile(expression);
+        synchronized (CACHE) {
+            CACHE.put(expression, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * @return Whether this path selects at most one value, because it has no wildcards.
+     */
+    public boolean isDefinite() {
+        return definite;
+    }
+
+    /**
+     * @return The first value selected by this path in the provided YAML, or null if it selects none.
+     */
+    public Object get(YamlMap yamlMap) {
+        var value = definite ? getDefinite(yamlMap.tree()) : first(yamlMap.tree(), 0);
+        return value == NO_MATCH ? null : value;
+    }
+
+    /**
+     * Passes every value selected by this path in the provided YAML to the consumer, in the order they appear.
+     */
+    public void forEach(YamlMap yamlMap, Consumer<Object> consumer) {
+        visit(yamlMap.tree(), 0, consumer);
+    }
+
+    /**
+     * @return Every value selected by this path in the provided YAML, in the order they appear.
+     */
+    public List<Object> getAll(YamlMap yamlMap) {
+        var values = new ArrayList<>();
+        forEach(yamlMap, values::add);
+        return values;
+    }
+
+    private Object getDefinite(Object node) {
+        for (Step step : steps) {
+            node = step(node, step);
+            if (node == NO_MATCH) {
+                return NO_MATCH;
+            }
+        }
+        return node;
+    }
+
+    private Object first(Object node, int stepIndex) {
+        if (stepIndex == steps.length) {
+            return node;
+        }
+        var step = steps[stepIndex];
+        if (!(step instanceof Wildcard)) {
+            var next = step(node, step);
+            return next == NO_MATCH ? NO_MATCH : first(next, stepIndex + 1);
+        }
+        if (node instanceof List<?> list) {
+            for (Object element : list) {
+                var match = first(element, stepIndex + 1);
+                if (match != NO_MATCH) {
+                    return match;
+                }
+            }
+        } else if (node instanceof Map<?, ?> map) {
+            for (Object value : map.values()) {
+                var match = first(value, stepIndex + 1);
+                if (match != NO_MATCH) {
+                    return match;
+                }
+            }
+        }
+        return NO_MATCH;
+    }
+
+    private void visit(Object node, int stepIndex, Consumer<Object> consumer) {
+        if (stepIndex == steps.length) {
+            if (node != null) {
+                consumer.accept(node);
+            }
+            return;
+        }
+        var step = steps[stepIndex];
+        if (!(step instanceof Wildcard)) {
+            var next = step(node, step);
+            if (next != NO_MATCH) {
+                visit(next, stepIndex + 1, consumer);
+            }
+        } else if (node instanceof List<?> list) {
+            for (Object element : list) {
+                visit(element, stepIndex + 1, consumer);
+            }
+        } else if (node instanceof Map<?, ?> map) {
+            for (Object value : map.values()) {
+                visit(value, stepIndex + 1, consumer);
+            }
+        }
+    }
+
+    private static Object step(Object node, Step step) {
+        Object next = null;
+        if (step instanceof Key(var key) && node instanceof Map<?, ?> map) {
+            next = map.get(key);
+        } else if (step instanceof Index(var index) && node instanceof List<?> list && index < list.size()) {
+            next = list.get(index);
+        }
+        return next == null ? NO_MATCH : next;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof YamlPath that && expression.equals(that.expression);
+    }
+
+    @Override
+    public int hashCode() {
+        return expression.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private static final class Parser {
+
+        private final String expression;
+        private final List<Step> steps = new ArrayList<>();
+        private int position = 0;
+
+        Parser(String expression) {
+            this.expression = expression;
+        }
+
+        Step[] parse() {
+            if (expression.isEmpty()) {
+                return new Step[0];
+            }
+            parseKey();
+            while (position < expression.length()) {
+                char c = expression.charAt(position);
+                if (c == '.') {
+                    position++;
+                    parseKey();
+                } else if (c == '[') {
+                    parseBracket();
+                } else {
+                    throw invalid("unexpected '" + c + "'");
+                }
+            }
+            return steps.toArray(Step[]::new);
+        }
+
+        private void parseKey() {
+            if (position < expression.length() && expression.charAt(position) == '[') {
+                parseBracket();
+                return;
+            }
+            int start = position;
+            while (position < expression.length() && ".[]".indexOf(expression.charAt(position)) == -1) {
+                position++;
+            }
+            if (start == position) {
+                throw invalid("empty key at index " + start);
+            }
+            steps.add(new Key(expression.substring(start, position)));
+        }
+
+        private void parseBracket() {
+            position++;
+            if (position >= expression.length()) {
+                throw invalid("unclosed '['");
+            }
+            char c = expression.charAt(position);
+            if (c == '*') {
+                position++;
+                steps.add(new Wildcard());
+            } else if (c == '"' || c == '\'') {
+                int end = expression.indexOf(c, position + 1);
+                if (end == -1) {
+                    throw invalid("unclosed quote at index " + position);
+                }
+                steps.add(new Key(expression.substring(position + 1, end)));
+                position = end + 1;
+            } else {
+                int start = position;
+                while (position < expression.length() && Character.isDigit(expression.charAt(position))) {
+                    position++;
+                }
+                if (start == position) {
+                    throw invalid("expected an index, '*' or a quoted key at index " + start);
+                }
+                steps.add(new Index(Integer.parseInt(expression.substring(start, position))));
+            }
+            if (position >= expression.length() || expression.charAt(position) != ']') {
+                throw invalid("expected ']' at index " + position);
+            }
+            position++;
+        }
+
+        private IllegalArgumentException invalid(String reason) {
+            return new IllegalArgumentException("Invalid YAML path '" + expression + "': " + reason);
+        }
+    }
+}
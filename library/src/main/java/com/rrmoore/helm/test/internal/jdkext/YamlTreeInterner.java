@@ -0,0 +1,151 @@
+package com.rrmoore.helm.test.internal.jdkext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hash-conses parsed YAML trees: every string, boxed scalar, map and list is replaced by a canonical, unmodifiable
+ * instance which is equal to it, so that equal values and structurally identical subtrees are only held in memory once,
+ * however many trees they appear in.
+ * <p>
+ * Maps are only shared with maps whose entries are in the same order, at every depth, so interning never changes
+ * iteration order.
+ * The pools are never evicted from, so the interner retains everything it has interned until it is cleared.
+ * Instances of this class are thread-safe.
+ */
+public final class YamlTreeInterner {
+
+    private final ConcurrentHashMap<Object, Object> scalars = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<OrderedMap, Map<Object, Object>> maps = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<OrderedList, List<Object>> lists = new ConcurrentHashMap<>();
+
+    /**
+     * @return An interned, deeply unmodifiable copy of the tree, which may share any part of its structure with other
+     * trees interned by this interner.
+     */
+    public Object intern(Object tree) {
+        return switch (tree) {
+            case null -> null;
+            case Map<?, ?> map -> internMap(map);
+            case List<?> list -> internList(list);
+            case String string -> internScalar(string);
+            case Number number -> internScalar(number);
+            case Boolean bool -> internScalar(bool);
+            // Other scalars, e.g. byte arrays and timestamps, are mutable or rare, so they are not shared.
+            default -> tree;
+        };
+    }
+
+    /**
+     * @return The number of distinct scalars, maps and lists held by this interner.
+     */
+    public int size() {
+        return scalars.size() + maps.size() + lists.size();
+    }
+
+    public void clear() {
+        scalars.clear();
+        maps.clear();
+        lists.clear();
+    }
+
+    private Object internScalar(Object scalar) {
+        var existing = scalars.putIfAbsent(scalar, scalar);
+        return existing == null ? scalar : existing;
+    }
+
+    private Map<Object, Object> internMap(Map<?, ?> map) {
+        var interned = new LinkedHashMap<>(map.size() * 4 / 3 + 1);
+        map.forEach((k, v) -> interned.put(intern(k), intern(v)));
+        var unmodifiable = Collections.unmodifiableMap(interned);
+        var existing = maps.putIfAbsent(new OrderedMap(unmodifiable), unmodifiable);
+        return existing == null ? unmodifiable : existing;
+    }
+
+    private List<Object> internList(List<?> list) {
+        var elements = new ArrayList<>(list.size());
+        list.forEach(it -> elements.add(intern(it)));
+        var unmodifiable = Collections.unmodifiableList(elements);
+        var existing = lists.putIfAbsent(new OrderedList(unmodifiable), unmodifiable);
+        return existing == null ? unmodifiable : existing;
+    }
+
+    /**
+     * Whether two interned children are the same. Maps and lists are interned before their parents, so equal children
+     * are identical, and comparing them by identity keeps the order of entries significant at every depth, which
+     * Map equality would ignore. It also avoids walking the whole subtree for every comparison.
+     */
+    private static boolean sameChild(Object a, Object b) {
+        if (a instanceof Map || a instanceof List) {
+            return a == b;
+        }
+        return a == b || (a != null && a.equals(b));
+    }
+
+    private static int childHash(Object child) {
+        return child instanceof Map || child instanceof List ? System.identityHashCode(child) : Objects.hashCode(child);
+    }
+
+    /**
+     * A key for an interned map which is only equal to maps with the same entries in the same order.
+     */
+    private record OrderedMap(Map<Object, Object> map) {
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof OrderedMap(var other)) || map.size() != other.size()) {
+                return false;
+            }
+            var otherEntries = other.entrySet().iterator();
+            for (Map.Entry<Object, Object> entry : map.entrySet()) {
+                var otherEntry = otherEntries.next();
+                if (!sameChild(entry.getKey(), otherEntry.getKey()) || !sameChild(entry.getValue(), otherEntry.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 1;
+            for (Map.Entry<Object, Object> entry : map.entrySet()) {
+                hash = 31 * hash + (childHash(entry.getKey()) ^ childHash(entry.getValue()));
+            }
+            return hash;
+        }
+    }
+
+    /**
+     * A key for an interned list which is only equal to lists with the same elements.
+     */
+    private record OrderedList(List<Object> list) {
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof OrderedList(var other)) || list.size() != other.size()) {
+                return false;
+            }
+            for (int i = 0; i < list.size(); i++) {
+                if (!sameChild(list.get(i), other.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 1;
+            for (Object element : list) {
+                hash = 31 * hash + childHash(element);
+            }
+            return hash;
+        }
+    }
+}
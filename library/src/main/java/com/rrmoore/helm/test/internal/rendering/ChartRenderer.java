@@ -0,0 +1,396 @@
+package com.rrmoore.helm.test.internal.rendering;
+
+import com.rrmoore.helm.test.internal.gotemplate.GoYaml;
+import com.rrmoore.helm.test.internal.gotemplate.Templates;
+import com.rrmoore.helm.test.internal.helmvalues.HelmChartSchemaValidator;
+import com.rrmoore.helm.test.internal.jdkext.Exceptions;
+import java.io.File;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Renders the templates of a chart directory in the JVM, producing the same output as `helm template` for the subset of
+ * charts which it supports. Charts with subcharts or dependencies, and packaged charts, are not supported. Templates
+ * cannot use .Files, and .Capabilities only describes the Kubernetes version, which is {@value #KUBE_VERSION}.
+ * <p>
+ * Like `helm template`, the release is named "release-name" and is installed into the "default" namespace.
+ */
+public class ChartRenderer {
+
+    public static final String KUBE_VERSION = "v1.34.0";
+
+    private static final Pattern DOCUMENT_SEPARATOR = Pattern.compile("(?:^|\\s*\\n)---\\s*");
+    private static final String NOTES_FILE = "NOTES.txt";
+
+    // The order in which Helm installs kinds of object, and sorts the output of `helm template`.
+    private static final List<String> INSTALL_ORDER = List.of(
+        "PriorityClass", "Namespace", "NetworkPolicy", "ResourceQuota", "LimitRange", "PodSecurityPolicy",
+        "PodDisruptionBudget", "ServiceAccount", "Secret", "SecretList", "ConfigMap", "StorageClass", "PersistentVolume",
+        "PersistentVolumeClaim", "CustomResourceDefinition", "ClusterRole", "ClusterRoleList", "ClusterRoleBinding",
+        "ClusterRoleBindingList", "Role", "RoleList", "RoleBinding", "RoleBindingList", "Service", "DaemonSet", "Pod",
+        "ReplicationController", "ReplicaSet", "Deployment", "HorizontalPodAutoscaler", "StatefulSet", "Job", "CronJob",
+        "IngressClass", "Ingress", "APIService", "MutatingWebhookConfiguration", "ValidatingWebhookConfiguration");
+
+    // The Go field names of Helm's chart metadata, by the keys which Chart.yaml uses for them.
+    private static final Map<String, String> CHART_FIELDS = Map.ofEntries(
+        Map.entry("name", "Name"), Map.entry("home", "Home"), Map.entry("sources", "Sources"),
+        Map.entry("version", "Version"), Map.entry("description", "Description"), Map.entry("keywords", "Keywords"),
+        Map.entry("maintainers", "Maintainers"), Map.entry("icon", "Icon"), Map.entry("apiVersion", "APIVersion"),
+        Map.entry("condition", "Condition"), Map.entry("tags", "Tags"), Map.entry("appVersion", "AppVersion"),
+        Map.entry("deprecated", "Deprecated"), Map.entry("annotations", "Annotations"),
+        Map.entry("kubeVersion", "KubeVersion"), Map.entry("dependencies", "Dependencies"), Map.entry("type", "Type"));
+
+    private final HelmChartSchemaValidator schemaValidator = new HelmChartSchemaValidator();
+
+    /**
+     * @return The output of `helm template` for the chart with the given values YAMLs, in which later values take
+     * precedence over earlier ones.
+     * @throws UnsupportedOperationException if the chart uses features which are not supported.
+     * @throws RuntimeException              if rendering fails, as it would with `helm template`.
+     */
+    public String render(File chartDirectory, List<String> valuesYamls) {
+        if (!chartDirectory.isDirectory()) {
+            throw new UnsupportedOperationException("Cannot render the packaged chart '" + chartDirectory.getAbsolutePath() + "' in the JVM. Render the chart directory instead.");
+        }
+        var chartYaml = chartDirectory.toPath().resolve("Chart.yaml");
+        if (!Files.isRegularFile(chartYaml)) {
+            throw new RuntimeException("Chart.yaml file is missing from '" + chartDirectory.getAbsolutePath() + "'");
+        }
+        var metadata = asMap(GoYaml.load(Exceptions.uncheck(() -> Files.readString(chartYaml))), "Chart.yaml");
+        if (!(metadata.get("name") instanceof String chartName) || chartName.isEmpty()) {
+            throw new RuntimeException("Chart.yaml of '" + chartDirectory.getAbsolutePath() + "' has no name");
+        }
+        var subcharts = new File(chartDirectory, "charts").list();
+        if (metadata.get("dependencies") instanceof List<?> dependencies && !dependencies.isEmpty() || subcharts != null && subcharts.length > 0) {
+            throw new UnsupportedOperationException("Cannot render the chart '" + chartName + "' in the JVM, because it has subcharts.");
+        }
+
+        var values = coalesce(mergeValues(valuesYamls), readDefaultValues(chartDirectory));
+        var schemaErrors = schemaValidator.validate(new File(chartDirectory, "values.schema.json"), values);
+        if (!schemaErrors.isEmpty()) {
+            throw new RuntimeException("values don't meet the specifications of the schema(s) in the following chart(s):\n" +
+                chartName + ":\n- " + String.join("\n- ", schemaErrors));
+        }
+
+        var data = new LinkedHashMap<String, Object>();
+        data.put("Values", values);
+        data.put("Release", release());
+        data.put("Chart", chartMetadata(metadata));
+        data.put("Capabilities", capabilities());
+        data.put("Files", new LinkedHashMap<>());
+        data.put("Subcharts", new LinkedHashMap<>());
+
+        var outputs = renderTemplates(chartDirectory.toPath(), chartName, data);
+        return formatManifests(outputs);
+    }
+
+    /**
+     * Merges values YAMLs as `helm` merges the files given with --values, where maps are merged and any other value
+     * replaces the earlier one.
+     */
+    private static Map<String, Object> mergeValues(List<String> valuesYamls) {
+        var merged = new LinkedHashMap<String, Object>();
+        for (String valuesYaml : valuesYamls) {
+            var loaded = GoYaml.load(valuesYaml);
+            if (loaded != null) {
+                mergeMaps(merged, asMap(loaded, "values"));
+            }
+        }
+        return merged;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void mergeMaps(Map<String, Object> destination, Map<String, Object> source) {
+        source.forEach((key, value) -> {
+            if (value instanceof Map<?, ?> sourceMap && destination.get(key) instanceof Map<?, ?> destinationMap) {
+                var merged = new LinkedHashMap<>((Map<String, Object>) destinationMap);
+                mergeMaps(merged, (Map<String, Object>) sourceMap);
+                destination.put(key, merged);
+            } else {
+                destination.put(key, value);
+            }
+        });
+    }
+
+    private static Map<String, Object> readDefaultValues(File chartDirectory) {
+        var valuesYaml = chartDirectory.toPath().resolve("values.yaml");
+        if (!Files.isRegularFile(valuesYaml)) {
+            return new LinkedHashMap<>();
+        }
+        var loaded = GoYaml.load(Exceptions.uncheck(() -> Files.readString(valuesYaml)));
+        return loaded == null ? new LinkedHashMap<>() : asMap(loaded, "values.yaml");
+    }
+
+    /**
+     * Coalesces the given values with the chart's default values as Helm does, where a null value deletes a default.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> coalesce(Map<String, Object> values, Map<String, Object> defaults) {
+        defaults.forEach((key, defaultValue) -> {
+            if (!values.containsKey(key)) {
+                values.put(key, defaultValue);
+            } else if (values.get(key) == null) {
+                values.remove(key);
+            } else if (values.get(key) instanceof Map<?, ?> map && defaultValue instanceof Map<?, ?> defaultMap) {
+                coalesce((Map<String, Object>) map, (Map<String, Object>) defaultMap);
+            }
+        });
+        return values;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object loaded, String description) {
+        if (loaded instanceof Map<?, ?> map) {
+            return (Map<String, Object>) map;
+        }
+        throw new RuntimeException("Failed to parse " + description + ": expected a map, but got '" + loaded + "'");
+    }
+
+    private static Map<String, Object> release() {
+        var release = new LinkedHashMap<String, Object>();
+        release.put("Name", "release-name");
+        release.put("Namespace", "default");
+        release.put("IsUpgrade", false);
+        release.put("IsInstall", true);
+        release.put("Revision", 1L);
+        release.put("Service", "Helm");
+        return release;
+    }
+
+    /**
+     * @return The chart metadata with the Go field names by which templates refer to it, in which missing strings are
+     * empty, as they are in Go.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> chartMetadata(Map<String, Object> chartYaml) {
+        var chart = new LinkedHashMap<String, Object>();
+        for (String field : List.of("Name", "Home", "Version", "Description", "Icon", "APIVersion", "Condition", "Tags", "AppVersion", "KubeVersion", "Type")) {
+            chart.put(field, "");
+        }
+        chart.put("Deprecated", false);
+        chartYaml.forEach((key, value) -> {
+            var field = CHART_FIELDS.get(key);
+            if (field == null) {
+                return;
+            }
+            if (field.equals("Maintainers") && value instanceof List<?> maintainers) {
+                var converted = new ArrayList<>();
+                for (Object maintainer : maintainers) {
+                    var fields = new LinkedHashMap<String, Object>(Map.of("Name", "", "Email", "", "URL", ""));
+                    if (maintainer instanceof Map<?, ?> map) {
+                        ((Map<String, Object>) map).forEach((name, text) -> fields.put(name.equals("url") ? "URL" : capitalize(name), text));
+                    }
+                    converted.add(fields);
+                }
+                value = converted;
+            }
+            chart.put(field, value);
+        });
+        return chart;
+    }
+
+    private static String capitalize(String s) {
+        return s.isEmpty() ? s : Character.toUpperCase(s.charAt(0)) + s.substring(1);
+    }
+
+    private static Map<String, Object> capabilities() {
+        var kubeVersion = new LinkedHashMap<String, Object>();
+        kubeVersion.put("Version", KUBE_VERSION);
+        kubeVersion.put("Major", "1");
+        kubeVersion.put("Minor", "34");
+        kubeVersion.put("GitVersion", KUBE_VERSION);
+        var capabilities = new LinkedHashMap<String, Object>();
+        capabilities.put("KubeVersion", kubeVersion);
+        capabilities.put("APIVersions", new ArrayList<>());
+        return capabilities;
+    }
+
+    /**
+     * Parses every template into one set, in the order in which Helm parses them, so that later definitions of a named
+     * template replace earlier ones in the same way, then executes each template which is not a partial.
+     *
+     * @return The output of each template, by name, in the order they were executed.
+     */
+    private static Map<String, String> renderTemplates(Path chartDirectory, String chartName, Map<String, Object> data) {
+        var ignoreRules = HelmIgnoreRule.read(chartDirectory.resolve(".helmignore"));
+        var templatesDirectory = chartDirectory.resolve("templates");
+        var files = new LinkedHashMap<String, Path>();
+        if (Files.isDirectory(templatesDirectory)) {
+            collectTemplates(chartDirectory, templatesDirectory, ignoreRules, chartName, files);
+        }
+        var names = new ArrayList<>(files.keySet());
+        names.sort(Comparator.comparingInt((String name) -> name.split("/").length).reversed().thenComparing(Comparator.reverseOrder()));
+
+        var templates = new Templates();
+        for (String name : names) {
+            templates.parse(name, Exceptions.uncheck(() -> Files.readString(files.get(name))));
+        }
+        var outputs = new LinkedHashMap<String, String>();
+        for (String name : names) {
+            if (Path.of(name).getFileName().toString().startsWith("_")) {
+                continue;
+            }
+            var templateData = new LinkedHashMap<>(data);
+            var template = new LinkedHashMap<String, Object>();
+            template.put("Name", name);
+            template.put("BasePath", chartName + "/templates");
+            templateData.put("Template", template);
+            var output = templates.execute(name, templateData).replace("<no value>", "");
+            // The notes are rendered, so that they fail like they do with `helm template`, but are not printed.
+            if (!name.equals(chartName + "/templates/" + NOTES_FILE)) {
+                outputs.put(name, output);
+            }
+        }
+        return outputs;
+    }
+
+    private static void collectTemplates(Path chartDirectory, Path directory, List<HelmIgnoreRule> ignoreRules, String chartName, Map<String, Path> files) {
+        List<Path> children;
+        try (var list = Exceptions.uncheck(() -> Files.list(directory))) {
+            children = list.sorted().toList();
+        }
+        for (Path child : children) {
+            var relative = chartDirectory.relativize(child);
+            boolean isDirectory = Files.isDirectory(child);
+            if (HelmIgnoreRule.ignores(ignoreRules, relative, isDirectory)) {
+                continue;
+            }
+            if (isDirectory) {
+                collectTemplates(chartDirectory, child, ignoreRules, chartName, files);
+            } else {
+                files.put(chartName + "/" + relative.toString().replace(File.separatorChar, '/'), child);
+            }
+        }
+    }
+
+    /**
+     * Splits the output of each template into manifests, and prints them in the order and format of `helm template`,
+     * with hooks after every other manifest.
+     */
+    private static String formatManifests(Map<String, String> outputs) {
+        var manifests = new ArrayList<Manifest>();
+        var hooks = new ArrayList<Manifest>();
+        var names = new ArrayList<>(outputs.keySet());
+        names.sort(Comparator.naturalOrder());
+        for (String name : names) {
+            var output = outputs.get(name);
+            if (output.isBlank()) {
+                continue;
+            }
+            for (String document : DOCUMENT_SEPARATOR.split(output, -1)) {
+                var content = document.strip();
+                if (content.isEmpty()) {
+                    continue;
+                }
+                Object head;
+                try {
+                    head = GoYaml.load(content);
+                } catch (RuntimeException e) {
+                    throw new RuntimeException("YAML parse error on " + name + ": " + e.getMessage(), e);
+                }
+                var manifest = new Manifest(name, content, head instanceof Map<?, ?> map && map.get("kind") instanceof String kind ? kind : "");
+                (isHook(head) ? hooks : manifests).add(manifest);
+            }
+        }
+        manifests.sort(ChartRenderer::compareKinds);
+        var out = new StringBuilder();
+        for (Manifest manifest : manifests) {
+            out.append("---\n# Source: ").append(manifest.name()).append('\n').append(manifest.content()).append('\n');
+        }
+        for (Manifest hook : hooks) {
+            out.append("---\n# Source: ").append(hook.name()).append('\n').append(hook.content()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static boolean isHook(Object head) {
+        return head instanceof Map<?, ?> object
+            && object.get("metadata") instanceof Map<?, ?> metadata
+            && metadata.get("annotations") instanceof Map<?, ?> annotations
+            && annotations.containsKey("helm.sh/hook");
+    }
+
+    /**
+     * Orders manifests by the install order of their kinds, with unknown kinds last in alphabetical order.
+     */
+    private static int compareKinds(Manifest a, Manifest b) {
+        int orderA = INSTALL_ORDER.indexOf(a.kind());
+        int orderB = INSTALL_ORDER.indexOf(b.kind());
+        if (orderA < 0 && orderB < 0) {
+            return a.kind().compareTo(b.kind());
+        }
+        if (orderA < 0 || orderB < 0) {
+            return orderA < 0 ? 1 : -1;
+        }
+        return Integer.compare(orderA, orderB);
+    }
+
+    private record Manifest(String name, String content, String kind) {
+    }
+
+    /**
+     * A rule of a .helmignore file, which Helm matches against each path relative to the chart directory.
+     */
+    private record HelmIgnoreRule(PathMatcher matcher, boolean negate, boolean mustBeDirectory, boolean matchFileName) {
+
+        static List<HelmIgnoreRule> read(Path helmignore) {
+            if (!Files.isRegularFile(helmignore)) {
+                return List.of();
+            }
+            var rules = new ArrayList<HelmIgnoreRule>();
+            for (String line : Exceptions.uncheck(() -> Files.readAllLines(helmignore))) {
+                var rule = line.strip();
+                if (rule.isEmpty() || rule.startsWith("#")) {
+                    continue;
+                }
+                if (rule.contains("**")) {
+                    throw new RuntimeException("Invalid .helmignore rule '" + rule + "': double-star (**) syntax is not supported");
+                }
+                boolean negate = rule.startsWith("!");
+                if (negate) {
+                    rule = rule.substring(1);
+                }
+                boolean mustBeDirectory = rule.endsWith("/");
+                if (mustBeDirectory) {
+                    rule = rule.substring(0, rule.length() - 1);
+                }
+                boolean matchFileName = !rule.contains("/");
+                if (rule.startsWith("/")) {
+                    rule = rule.substring(1);
+                }
+                rules.add(new HelmIgnoreRule(FileSystems.getDefault().getPathMatcher("glob:" + rule), negate, mustBeDirectory, matchFileName));
+            }
+            return rules;
+        }
+
+        /**
+         * Applies the rules in the same way as Helm, in which a negated rule ignores every path that it does not match.
+         */
+        static boolean ignores(List<HelmIgnoreRule> rules, Path path, boolean isDirectory) {
+            for (HelmIgnoreRule rule : rules) {
+                var candidate = rule.matchFileName ? path.getFileName() : path;
+                if (rule.negate) {
+                    if (rule.mustBeDirectory && !isDirectory || !rule.matcher.matches(candidate)) {
+                        return true;
+                    }
+                    continue;
+                }
+                if (rule.mustBeDirectory && !isDirectory) {
+                    continue;
+                }
+                if (rule.matcher.matches(candidate)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
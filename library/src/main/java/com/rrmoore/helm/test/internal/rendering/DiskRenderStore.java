@@ -0,0 +1,112 @@
+package com.rrmoore.helm.test.internal.rendering;
+
+import com.rrmoore.helm.test.Manifests;
+import com.rrmoore.helm.test.ManifestsParser;
+import com.rrmoore.helm.test.internal.jdkext.TeeReader;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * A persistent store of the YAML output of `helm template`, keyed by {@link RenderFingerprint}, which can be shared by
+ * any number of JVMs, such as the forks of a Gradle test task.
+ * <p>
+ * Entries are written to a temporary file and atomically moved into place, so readers never see a partial entry.
+ * Rendering an entry is guarded by a lock file, so that when several JVMs need the same entry at the same time,
+ * only one of them runs `helm` and the others read what it wrote.
+ * <p>
+ * Entries are never evicted. The store is expected to live in the build directory, and be deleted along with it.
+ */
+public class DiskRenderStore {
+
+    public static final String DIRECTORY_PROPERTY = "com.rrmoore.helm.test.render.cache.path";
+
+    // File locks are held per JVM, so threads within this JVM must also be kept from rendering the same entry at once,
+    // regardless of which DiskRenderStore instance they are using.
+    private static final ReentrantLock[] JVM_LOCKS = new ReentrantLock[64];
+
+    static {
+        for (int i = 0; i < JVM_LOCKS.length; i++) {
+            JVM_LOCKS[i] = new ReentrantLock();
+        }
+    }
+
+    private final Path directory;
+
+    public DiskRenderStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return The store in the directory given by the system property set by the helm-test-java Gradle plugin,
+     * or null if the property is not set.
+     */
+    public static DiskRenderStore fromSystemProperty() {
+        var directory = System.getProperty(DIRECTORY_PROPERTY);
+        return directory == null ? null : new DiskRenderStore(Path.of(directory));
+    }
+
+    /**
+     * Reads the entry with the given key if it exists, or otherwise renders and stores it.
+     *
+     * @param parser Parses existing entries, so that they are parsed in the same way as fresh output of `helm template`.
+     * @param render Renders the Manifests, given a function which wraps the reader of the output of `helm template`
+     *               so that the output is also written to the store.
+     */
+    public Manifests get(String key, ManifestsParser parser, Renderer render) {
+        var entry = directory.resolve(key + ".yaml");
+        if (Files.isRegularFile(entry)) {
+            return read(entry, parser);
+        }
+
+        var jvmLock = JVM_LOCKS[Math.floorMod(key.hashCode(), JVM_LOCKS.length)];
+        jvmLock.lock();
+        try {
+            Files.createDirectories(directory);
+            try (var lockChannel = FileChannel.open(directory.resolve(key + ".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 var ignored = lockChannel.lock()) {
+                if (Files.isRegularFile(entry)) {
+                    return read(entry, parser);
+                }
+                return renderToEntry(entry, key, render);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to use render cache entry '" + entry.toAbsolutePath() + "'", e);
+        } finally {
+            jvmLock.unlock();
+        }
+    }
+
+    private Manifests renderToEntry(Path entry, String key, Renderer render) throws IOException {
+        var temporaryEntry = Files.createTempFile(directory, key + "-", ".yaml.tmp");
+        try {
+            Manifests manifests;
+            try (var writer = Files.newBufferedWriter(temporaryEntry)) {
+                manifests = render.render(reader -> new BufferedReader(new TeeReader(reader, writer)));
+            }
+            Files.move(temporaryEntry, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return manifests;
+        } finally {
+            Files.deleteIfExists(temporaryEntry);
+        }
+    }
+
+    private static Manifests read(Path entry, ManifestsParser parser) {
+        try (var reader = Files.newBufferedReader(entry)) {
+            return parser.parse(reader);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read render cache entry '" + entry.toAbsolutePath() + "'", e);
+        }
+    }
+
+    public interface Renderer {
+
+        Manifests render(UnaryOperator<BufferedReader> outputTee);
+    }
+}
@@ -0,0 +1,101 @@
+package com.rrmoore.helm.test.internal.rendering;
+
+import com.rrmoore.helm.test.internal.jdkext.Exceptions;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computes a content-addressed key for a `helm template` invocation, so that identical renderings can be recognised
+ * without running `helm`.
+ * <p>
+ * The key covers the content of every file in the chart, the values YAMLs in the order they are passed to `helm`,
+ * and the identity of the renderer, which is the version of the Helm executable unless another backend is in use.
+ * <p>
+ * Reading every file of a chart on each rendering would cost as much as a cache hit saves, so the digest of each chart
+ * is kept along with the path, size and modification time of each of its files, and is only recomputed when one of
+ * them changes. A file which is rewritten with the same size within the resolution of the file system's modification
+ * times is not noticed.
+ */
+public final class RenderFingerprint {
+
+    private static final ConcurrentHashMap<Path, ChartDigest> CHART_DIGESTS = new ConcurrentHashMap<>();
+
+    private RenderFingerprint() {
+    }
+
+    public static String of(String rendererIdentity, File chart, List<String> valuesYamls) {
+        var digest = Exceptions.uncheck(() -> MessageDigest.getInstance("SHA-256"));
+        update(digest, "renderer");
+        update(digest, rendererIdentity);
+        update(digest, "chart");
+        update(digest, chartDigest(chart.toPath().toAbsolutePath().normalize()));
+        update(digest, "values");
+        for (String valuesYaml : valuesYamls) {
+            update(digest, valuesYaml);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static byte[] chartDigest(Path chart) {
+        var files = fileStates(chart);
+        var cached = CHART_DIGESTS.get(chart);
+        if (cached != null && cached.files().equals(files)) {
+            return cached.digest();
+        }
+        var digest = Exceptions.uncheck(() -> MessageDigest.getInstance("SHA-256"));
+        for (FileState file : files) {
+            update(digest, file.relativePath());
+            update(digest, Exceptions.uncheck(() -> Files.readAllBytes(chart.resolve(file.relativePath()))));
+        }
+        var computed = new ChartDigest(files, digest.digest());
+        CHART_DIGESTS.put(chart, computed);
+        return computed.digest();
+    }
+
+    private static List<FileState> fileStates(Path chart) {
+        if (Files.isRegularFile(chart)) {
+            return List.of(fileState(chart, ""));
+        }
+        try (var paths = Files.walk(chart)) {
+            var files = new ArrayList<FileState>();
+            for (Path path : paths.filter(Files::isRegularFile).sorted().toList()) {
+                files.add(fileState(path, chart.relativize(path).toString()));
+            }
+            return files;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read Helm chart '" + chart + "'", e);
+        }
+    }
+
+    private static FileState fileState(Path path, String relativePath) {
+        var attributes = Exceptions.uncheck(() -> Files.readAttributes(path, BasicFileAttributes.class));
+        return new FileState(relativePath, attributes.size(), attributes.lastModifiedTime());
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        update(digest, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Length-prefixed, so that the boundaries between consecutive inputs are part of the fingerprint.
+    private static void update(MessageDigest digest, byte[] bytes) {
+        digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
+    private record FileState(String relativePath, long size, FileTime lastModified) {
+    }
+
+    private record ChartDigest(List<FileState> files, byte[] digest) {
+    }
+}
@@ -0,0 +1,82 @@
+package com.rrmoore.helm.test.internal.rendering;
+
+import com.rrmoore.helm.test.internal.jdkext.Exceptions;
+import com.rrmoore.helm.test.internal.jdkext.Sha256Sum;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes values YAMLs to files which can be passed to `helm`. Files are named by the hash of their content, so each
+ * distinct values YAML is only written once, and is reused by every rendering that needs it.
+ * <p>
+ * All files are kept in one temporary directory, which is deleted when the store is closed, or otherwise when the JVM exits.
+ * A single shutdown hook is registered for the directory, rather than one deleteOnExit registration per file, which the
+ * JVM would retain until it exits.
+ */
+public class ValuesFileStore implements AutoCloseable {
+
+    private final Map<String, Path> files = new HashMap<>();
+    private Path directory;
+    private Thread deleteOnExit;
+
+    public synchronized Path fileFor(String valuesYaml) {
+        var hash = Sha256Sum.of(valuesYaml);
+        var existing = files.get(hash);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            if (directory == null) {
+                directory = Files.createTempDirectory("helm-test-values-");
+                var created = directory;
+                deleteOnExit = new Thread(() -> Exceptions.uncheck(() -> delete(created)));
+                Runtime.getRuntime().addShutdownHook(deleteOnExit);
+            }
+            var file = directory.resolve(hash + ".yaml");
+            Files.writeString(file, valuesYaml);
+            files.put(hash, file);
+            return file;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write values YAML to a file in '" + directory + "'", e);
+        }
+    }
+
+    /**
+     * Deletes every file written so far. The store can still be used afterward, in which case it writes files again.
+     */
+    @Override
+    public synchronized void close() {
+        if (directory == null) {
+            return;
+        }
+        try {
+            delete(directory);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to delete values YAML files in '" + directory + "'", e);
+        } finally {
+            try {
+                Runtime.getRuntime().removeShutdownHook(deleteOnExit);
+            } catch (IllegalStateException e) {
+                // The JVM is already shutting down, so the hook is running or has run.
+            }
+            files.clear();
+            directory = null;
+            deleteOnExit = null;
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (var paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
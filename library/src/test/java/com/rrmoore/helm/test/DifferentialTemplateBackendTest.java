@@ -0,0 +1,88 @@
+package com.rrmoore.helm.test;
+
+import java.io.File;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DifferentialTemplateBackendTest {
+
+    private final HelmExecutor helm = new HelmExecutor(new HelmChart(new File("src/test/resources/my-app")));
+
+    @Test
+    void returnsTheReferenceRenderingWhenBackendsAgree() {
+        var differential = new DifferentialTemplateBackend(helm.helmBinaryBackend(), helm.helmBinaryBackend());
+
+        var manifests = helm.withTemplateBackend(differential).template("replicas: 2");
+
+        assertEquals(2, manifests.getDeployment("my-app").getSpec().getReplicas());
+    }
+
+    @Test
+    void failsWhenBackendsRenderDifferently() {
+        var differential = new DifferentialTemplateBackend(helm.helmBinaryBackend(), new FixedTemplateBackend());
+
+        try {
+            helm.withTemplateBackend(differential).template();
+            assert false : "Expected an Exception to be thrown, but none was";
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), containsString("Backend 'fixed' rendered different Manifests to the reference backend"));
+        }
+    }
+
+    @Test
+    void failsWhenOnlyTheReferenceBackendFails() {
+        var differential = new DifferentialTemplateBackend(helm.helmBinaryBackend(), new FixedTemplateBackend());
+        var values = """
+            image:
+              pullPolicy: VeryBad
+            """;
+
+        try {
+            helm.withTemplateBackend(differential).template(values);
+            assert false : "Expected an Exception to be thrown, but none was";
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), containsString("Backend 'fixed' rendered successfully, but the reference backend"));
+        }
+    }
+
+    @Test
+    void returnsTheReferenceErrorWhenBothBackendsFail() {
+        var differential = new DifferentialTemplateBackend(helm.helmBinaryBackend(), helm.helmBinaryBackend());
+        var values = """
+            image:
+              pullPolicy: VeryBad
+            """;
+
+        var error = helm.withTemplateBackend(differential).templateError(values);
+
+        assertThat(error, containsString("Don't use the VeryBad image pull policy!"));
+    }
+
+    private static class FixedTemplateBackend implements TemplateBackend {
+
+        @Override
+        public String identity() {
+            return "fixed";
+        }
+
+        @Override
+        public Manifests template(HelmChart chart, List<String> valuesYamls) {
+            return Manifests.fromYaml("""
+                ---
+                apiVersion: v1
+                kind: ConfigMap
+                metadata:
+                  name: fixed
+                """);
+        }
+
+        @Override
+        public String templateError(HelmChart chart, List<String> valuesYamls) {
+            throw new RuntimeException("Rendering unexpectedly succeeded");
+        }
+    }
+}
@@ -38,6 +38,7 @@ public class HelmChartTest {
         "checksumAnnotationTest.missingImagePullSecretAnnotation",
         "checksumAnnotationTest.missingSecretVolumeAnnotation",
         "checksumAnnotationTest.noAnnotations",
+        "checksumAnnotationTest.staleConfigMapChecksum",
         "checksumAnnotationTest.unnecessaryExtraResourceAnnotation",
         "config2.enabled",
         "deeply.nested.value.here",
@@ -46,6 +47,7 @@ public class HelmChartTest {
         "edge.useFeature",
         "equalityTesting.useRandomSecret",
         "image.pullPolicy",
+        "largeOutputTest.configMapCount",
         "replicas",
         "with_underscore"
     ));
@@ -3,12 +3,25 @@ package com.rrmoore.helm.test;
 import com.rrmoore.helm.test.internal.jdkext.Exceptions;
 import io.kubernetes.client.openapi.models.V1Deployment;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SuppressWarnings("DataFlowIssue")
 public class HelmExecutorTest {
@@ -61,6 +74,146 @@ public class HelmExecutorTest {
         assertEquals(2, deployment.getSpec().getReplicas());
     }
 
+    @Test
+    void canRenderTemplateWithRepeatedValues() {
+        var manifests = helm.template(List.of("replicas: 2", "replicas: 3", "replicas: 2"));
+
+        assertEquals(2, manifests.getDeployment("my-app").getSpec().getReplicas());
+    }
+
+    @Test
+    void canRenderTemplateAfterClosing() {
+        try (var closeableHelm = new HelmExecutor(new HelmChart(new File("src/test/resources/my-app")))) {
+            closeableHelm.template(List.of("replicas: 2", "replicas: 3"));
+            closeableHelm.close();
+
+            var manifests = closeableHelm.template(List.of("replicas: 2", "replicas: 3"));
+            assertEquals(3, manifests.getDeployment("my-app").getSpec().getReplicas());
+        }
+    }
+
+    @Test
+    void canRenderOutputLargerThanThePipeBuffer() {
+        var values = """
+            largeOutputTest:
+              configMapCount: 2000
+            """;
+
+        var manifests = helm.template(values);
+
+        assertEquals("1999", manifests.getConfigMapValue("large-output-tester-1999", "index"));
+    }
+
+    @Test
+    void canShareRenderingsThroughRenderCacheDirectory(@TempDir Path renderCacheDirectory) throws IOException {
+        var chart = new HelmChart(new File("src/test/resources/my-app"));
+        var first = new HelmExecutor(chart).withRenderCacheDirectory(renderCacheDirectory.toFile()).template("replicas: 3");
+        var second = new HelmExecutor(chart).withRenderCacheDirectory(renderCacheDirectory.toFile()).template("replicas: 3");
+
+        assertEquals(first, second);
+        assertEquals(3, second.getDeployment("my-app").getSpec().getReplicas());
+        try (var entries = Files.list(renderCacheDirectory)) {
+            assertEquals(1, entries.filter(it -> it.toString().endsWith(".yaml")).count());
+        }
+    }
+
+    @Test
+    void canRenderBatchOfValues() {
+        var valuesSets = List.of(List.of("replicas: 1"), List.of("replicas: 2"), List.of("replicas: 3"), List.of("replicas: 4"));
+
+        var replicasByIndex = helm.withBatchParallelism(2).templateAll(valuesSets)
+            .collect(Collectors.toMap(BatchResult::index, it -> it.get().getDeployment("my-app").getSpec().getReplicas()));
+
+        assertEquals(Map.of(0, 1, 1, 2, 2, 3, 3, 4), replicasByIndex);
+    }
+
+    @Test
+    void reportsFailuresWithinBatch() {
+        var valuesSets = List.of(List.of("replicas: 2"), List.of("image: {pullPolicy: VeryBad}"));
+
+        var results = helm.templateAll(valuesSets)
+            .sorted(Comparator.comparing(BatchResult::index))
+            .toList();
+
+        assertTrue(results.get(0).succeeded());
+        assertEquals(List.of("image: {pullPolicy: VeryBad}"), results.get(1).valuesYamls());
+        assertThat(results.get(1).failure().getMessage(), containsString("Don't use the VeryBad image pull policy!"));
+    }
+
+    @Test
+    void canShowTemplateErrorsForBatchOfValues() {
+        var valuesSets = List.of(List.of("image: {pullPolicy: VeryBad}"), List.of("replicas: 2"));
+
+        var results = helm.templateErrorAll(valuesSets)
+            .sorted(Comparator.comparing(BatchResult::index))
+            .toList();
+
+        assertThat(results.get(0).get(), containsString("Don't use the VeryBad image pull policy!"));
+        assertFalse(results.get(1).succeeded());
+    }
+
+    @Test
+    void destroysHelmWhenItExceedsTheTimeout() {
+        try {
+            helm.withTimeout(Duration.ofMillis(1)).template();
+            assert false : "Expected an Exception to be thrown, but none was";
+        } catch (HelmTimeoutException e) {
+            assertEquals(Duration.ofMillis(1), e.getTimeout());
+            assertThat(e.getMessage(), containsString("did not finish within its timeout of PT0.001S"));
+        }
+    }
+
+    @Test
+    void destroysHelmWhenTheCallerIsInterrupted(@TempDir Path directory) throws Exception {
+        var slowHelm = directory.resolve("helm");
+        Files.writeString(slowHelm, "#!/bin/sh\nsleep 60\n");
+        var slowExecutor = new HelmExecutor(slowHelm.toFile(), new HelmChart(new File("src/test/resources/my-app")));
+        var failure = new AtomicReference<Exception>();
+        var caller = new Thread(() -> {
+            try {
+                slowExecutor.template();
+            } catch (Exception e) {
+                failure.set(e);
+            }
+        });
+        caller.start();
+
+        var helmProcess = awaitProcess(slowHelm.toString());
+        var helmDescendants = helmProcess.descendants().toList();
+        caller.interrupt();
+        caller.join(Duration.ofSeconds(10));
+
+        assertFalse(caller.isAlive(), "Expected the interrupted caller to return");
+        assertThat(failure.get().getMessage(), containsString("Interrupted while running command"));
+        helmProcess.onExit().get(10, TimeUnit.SECONDS);
+        assertFalse(helmProcess.isAlive());
+        assertTrue(helmDescendants.stream().noneMatch(ProcessHandle::isAlive));
+    }
+
+    @Test
+    void canOverrideTheTimeoutPerCall() {
+        helm.withTimeout(Duration.ofMillis(1));
+
+        var manifests = helm.template(List.of("replicas: 2"), Duration.ofSeconds(30));
+
+        assertEquals(2, manifests.getDeployment("my-app").getSpec().getReplicas());
+    }
+
+    @Test
+    void reportsInvocationsToListeners() {
+        var events = new CopyOnWriteArrayList<HelmInvocationEvent>();
+
+        var manifests = helm.withListener(events::add).template();
+
+        assertEquals(1, events.size());
+        var event = events.getFirst();
+        assertEquals(0, event.exitCode());
+        assertEquals("template", event.command().get(1));
+        assertEquals(manifests.findAll(it -> true).size(), event.objectCount());
+        assertTrue(event.stdoutBytes() > 0);
+        assertTrue(event.parse().isPositive());
+    }
+
     @Test
     void canShowTemplateErrors() {
         var values = """
@@ -135,4 +288,18 @@ public class HelmExecutorTest {
             assertThat(e.getMessage(), containsString("at '/image': additional properties 'unknownValue' not allowed"));
         }
     }
+
+    private static ProcessHandle awaitProcess(String commandLineFragment) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (System.nanoTime() < deadline) {
+            var process = ProcessHandle.current().descendants()
+                .filter(it -> it.info().commandLine().map(commandLine -> commandLine.contains(commandLineFragment)).orElse(false))
+                .findFirst();
+            if (process.isPresent()) {
+                return process.get();
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("No process was started with a command line containing '" + commandLineFragment + "'");
+    }
 }
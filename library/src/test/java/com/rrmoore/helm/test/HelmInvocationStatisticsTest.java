@@ -0,0 +1,47 @@
+package com.rrmoore.helm.test;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class HelmInvocationStatisticsTest {
+
+    private final HelmInvocationStatistics statistics = new HelmInvocationStatistics();
+
+    @Test
+    void aggregatesInvocationsOfHelm() {
+        var helm = new HelmExecutor(new HelmChart(new File("src/test/resources/my-app"))).withListener(statistics);
+
+        helm.template();
+        helm.templateError("image: {pullPolicy: VeryBad}");
+
+        assertEquals(2, statistics.count());
+        assertThat(statistics.summary(), containsString("Helm invocations: 2"));
+        assertThat(statistics.summary(), containsString("failures: 1"));
+    }
+
+    @Test
+    void calculatesPercentilesUsingNearestRank() {
+        for (int millis = 1; millis <= 10; millis++) {
+            statistics.onInvocation(event(Duration.ofMillis(millis)));
+        }
+
+        assertEquals(Duration.ofMillis(5), statistics.percentile(HelmInvocationEvent::render, 50));
+        assertEquals(Duration.ofMillis(9), statistics.percentile(HelmInvocationEvent::render, 90));
+        assertEquals(Duration.ofMillis(10), statistics.percentile(HelmInvocationEvent::render, 99));
+    }
+
+    @Test
+    void summarisesNoInvocations() {
+        assertEquals("Helm invocations: 0", statistics.summary());
+    }
+
+    private static HelmInvocationEvent event(Duration render) {
+        return new HelmInvocationEvent(List.of("helm", "template"), 0, Duration.ZERO, render, Duration.ZERO, Duration.ZERO, 0, 0, 0);
+    }
+}
@@ -0,0 +1,61 @@
+package com.rrmoore.helm.test;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HelmProcessLimiterTest {
+
+    private final int originalLimit = HelmProcessLimiter.getLimit();
+    private final HelmExecutor helm = new HelmExecutor(new HelmChart(new File("src/test/resources/my-app")));
+
+    @AfterEach
+    void restoreLimit() {
+        HelmProcessLimiter.setLimit(originalLimit);
+    }
+
+    @Test
+    void queuesProcessesBeyondTheLimit() {
+        HelmProcessLimiter.setLimit(1);
+        var before = HelmProcessLimiter.metrics();
+
+        try (var executor = Executors.newFixedThreadPool(4)) {
+            for (int i = 0; i < 4; i++) {
+                executor.submit(() -> helm.template());
+            }
+        }
+
+        var after = HelmProcessLimiter.metrics();
+        assertTrue(after.acquisitions() - before.acquisitions() >= 4);
+        assertTrue(after.totalWait().compareTo(before.totalWait()) > 0);
+        assertTrue(after.maxWait().compareTo(Duration.ZERO) > 0);
+        assertEquals(0, after.running());
+        assertEquals(0, after.queued());
+    }
+
+    @Test
+    void canChangeTheLimit() {
+        HelmProcessLimiter.setLimit(3);
+        assertEquals(3, HelmProcessLimiter.metrics().limit());
+
+        HelmProcessLimiter.setLimit(1);
+        assertEquals(1, HelmProcessLimiter.getLimit());
+        helm.template();
+        assertEquals(0, HelmProcessLimiter.metrics().running());
+    }
+
+    @Test
+    void rejectsLimitsBelowOne() {
+        try {
+            HelmProcessLimiter.setLimit(0);
+            assert false : "Expected an Exception to be thrown, but none was";
+        } catch (IllegalArgumentException e) {
+            // This is expected.
+        }
+    }
+}
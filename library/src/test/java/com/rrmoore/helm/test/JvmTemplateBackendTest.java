@@ -0,0 +1,86 @@
+package com.rrmoore.helm.test;
+
+import com.rrmoore.helm.test.internal.jdkext.Sha256Sum;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class JvmTemplateBackendTest {
+
+    private final HelmChart chart = new HelmChart(new File("src/test/resources/my-app"));
+    private final JvmTemplateBackend backend = new JvmTemplateBackend();
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void rendersTheSameManifestsAsHelm() {
+        var helm = new HelmExecutor(chart);
+        helm.withTemplateBackend(new DifferentialTemplateBackend(helm.helmBinaryBackend(), backend));
+        var valuesSets = List.of(
+            List.<String>of(),
+            List.of("replicas: 3"),
+            List.of("replicas: 3", "image:\n  pullPolicy: Always"),
+            List.of("largeOutputTest:\n  configMapCount: 5"),
+            List.of("checksumAnnotationTest:\n  staleConfigMapChecksum: true\n  missingEnvSecretAnnotation: true"),
+            List.of("checksumAnnotationTest:\n  noAnnotations: true"),
+            List.of("edge:\n  first: a\n  useFeature: true\ndeeply:\n  nested:\n    value:\n      here: deep\nwith_underscore: x"));
+
+        for (List<String> values : valuesSets) {
+            helm.template(values);
+        }
+    }
+
+    @Test
+    void failsLikeHelm() {
+        var helm = new HelmExecutor(chart);
+        helm.withTemplateBackend(new DifferentialTemplateBackend(helm.helmBinaryBackend(), backend));
+
+        var error = helm.templateError("image:\n  pullPolicy: VeryBad");
+
+        assertThat(error, containsString("Don't use the VeryBad image pull policy!"));
+    }
+
+    @Test
+    void rendersChecksumsOfIncludedTemplates() throws Exception {
+        var configMap = Files.readString(Path.of("src/test/resources/my-app/templates/checksum-annotation-tester/configmap.yaml"));
+
+        var manifests = backend.template(chart, List.of());
+
+        var annotations = manifests.getDeployment("checksum-annotation-tester").getSpec().getTemplate().getMetadata().getAnnotations();
+        assertEquals(Sha256Sum.of(configMap), annotations.get("checksum/checksum-annotation-tester-config"));
+        assertEquals(1, manifests.getDeployment("my-app").getSpec().getReplicas());
+    }
+
+    @Test
+    void returnsTheErrorOfFailedRenderings() {
+        var error = backend.templateError(chart, List.of("image:\n  pullPolicy: VeryBad"));
+
+        assertThat(error, containsString("Don't use the VeryBad image pull policy!"));
+    }
+
+    @Test
+    void rejectsValuesWhichDoNotMatchTheSchema() {
+        var error = backend.templateError(chart, List.of("replicas: two"));
+
+        assertThat(error, containsString("values don't meet the specifications of the schema(s)"));
+    }
+
+    @Test
+    void rejectsChartsWithSubcharts() throws Exception {
+        Files.writeString(tempDir.resolve("Chart.yaml"), "apiVersion: v2\nname: parent\nversion: 0.1.0\n");
+        Files.createDirectories(tempDir.resolve("charts/child"));
+
+        var e = assertThrows(UnsupportedOperationException.class, () -> backend.template(new HelmChart(tempDir.toFile()), List.of()));
+
+        assertThat(e.getMessage(), containsString("because it has subcharts"));
+    }
+}
@@ -0,0 +1,147 @@
+package com.rrmoore.helm.test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LabelIndexTest {
+
+    private final Manifests manifests = Manifests.fromYaml("""
+        apiVersion: apps/v1
+        kind: Deployment
+        metadata:
+          name: web
+        spec:
+          template:
+            metadata:
+              labels:
+                app: shop
+                tier: web
+        ---
+        apiVersion: apps/v1
+        kind: StatefulSet
+        metadata:
+          name: db
+        spec:
+          template:
+            metadata:
+              labels:
+                app: shop
+                tier: db
+        ---
+        apiVersion: batch/v1
+        kind: CronJob
+        metadata:
+          name: report
+        spec:
+          jobTemplate:
+            spec:
+              template:
+                metadata:
+                  labels:
+                    app: reporting
+        ---
+        apiVersion: v1
+        kind: Service
+        metadata:
+          name: web
+        spec:
+          selector:
+            app: shop
+            tier: web
+        ---
+        apiVersion: v1
+        kind: Service
+        metadata:
+          name: external
+        spec:
+          type: ExternalName
+        ---
+        apiVersion: policy/v1
+        kind: PodDisruptionBudget
+        metadata:
+          name: shop
+        spec:
+          selector:
+            matchLabels:
+              app: shop
+            matchExpressions:
+              - key: tier
+                operator: NotIn
+                values: [db]
+        ---
+        apiVersion: networking.k8s.io/v1
+        kind: NetworkPolicy
+        metadata:
+          name: default-deny
+        spec:
+          podSelector: {}
+        """);
+
+    @Test
+    void selectsWorkloadsByTheirPodTemplateLabels() {
+        var selector = LabelSelector.fromYaml(Map.of("matchExpressions", List.of(
+            Map.of("key", "app", "operator", "In", "values", List.of("shop", "reporting")),
+            Map.of("key", "tier", "operator", "DoesNotExist")
+        )));
+
+        assertEquals(List.of("report"), names(manifests.labelIndex().select(selector)));
+        assertEquals(List.of("web", "db", "report"), names(manifests.labelIndex().select(new LabelSelector(List.of()))));
+        assertEquals(List.of(), names(manifests.labelIndex().select(LabelSelector.NOTHING)));
+    }
+
+    @Test
+    void findsTheWorkloadsSelectedByAnObject() {
+        var index = manifests.labelIndex();
+
+        assertEquals(List.of("web"), names(index.selectedBy(rendered("Service", "web"))));
+        assertEquals(List.of(), names(index.selectedBy(rendered("Service", "external"))));
+        assertEquals(List.of("web"), names(index.selectedBy(rendered("PodDisruptionBudget", "shop"))));
+        assertEquals(List.of("web", "db", "report"), names(index.selectedBy(rendered("NetworkPolicy", "default-deny"))));
+    }
+
+    @Test
+    void findsTheSelectorsWhichTargetAWorkload() {
+        var targeting = manifests.labelIndex().selectorsTargeting(manifests.findWorkload("Deployment", "web").orElseThrow()).stream()
+            .map(it -> it.owner().kind() + "/" + it.owner().name())
+            .toList();
+
+        assertEquals(List.of("Service/web", "PodDisruptionBudget/shop", "NetworkPolicy/default-deny"), targeting);
+    }
+
+    @Test
+    void rejectsObjectsWhichDoNotSelectPods() {
+        var workload = rendered("Deployment", "web");
+
+        assertThrows(IllegalArgumentException.class, () -> manifests.labelIndex().selectedBy(workload));
+    }
+
+    @Test
+    void evaluatesRequirements() {
+        var labels = Map.of("app", "shop");
+
+        assertTrue(new LabelSelector.Requirement("app", LabelSelector.Operator.IN, Set.of("shop")).matches(labels));
+        assertFalse(new LabelSelector.Requirement("app", LabelSelector.Operator.NOT_IN, Set.of("shop")).matches(labels));
+        assertTrue(new LabelSelector.Requirement("tier", LabelSelector.Operator.NOT_IN, Set.of("db")).matches(labels));
+        assertTrue(new LabelSelector.Requirement("app", LabelSelector.Operator.EXISTS, Set.of()).matches(labels));
+        assertFalse(new LabelSelector.Requirement("app", LabelSelector.Operator.DOES_NOT_EXIST, Set.of()).matches(labels));
+        assertThrows(IllegalArgumentException.class, () -> new LabelSelector.Requirement("app", LabelSelector.Operator.IN, Set.of()));
+    }
+
+    private RenderedKubernetesObject rendered(String kind, String name) {
+        return manifests.renderedObjects().stream()
+            .filter(it -> it.kind().equals(kind) && it.name().equals(name))
+            .findFirst()
+            .orElseThrow();
+    }
+
+    private static List<String> names(List<Workload> workloads) {
+        return workloads.stream().map(Workload::name).toList();
+    }
+}
@@ -0,0 +1,81 @@
+package com.rrmoore.helm.test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ManifestsInternerTest {
+
+    private final HelmExecutor helm = new HelmExecutor(new HelmChart(new File("src/test/resources/my-app")));
+    private final ManifestsInterner interner = new ManifestsInterner();
+
+    @Test
+    void internedManifestsAreEqualToTheOriginals() {
+        var manifests = helm.template();
+
+        var interned = interner.intern(manifests);
+
+        assertEquals(manifests, interned);
+        assertEquals(manifests.getDeployment("my-app").getSpec().getReplicas(), interned.getDeployment("my-app").getSpec().getReplicas());
+    }
+
+    @Test
+    void sharesIdenticalSubtreesBetweenRenderings() {
+        var first = interner.intern(helm.template());
+        var second = interner.intern(helm.template("replicas: 2"));
+
+        assertSame(deploymentLabels(first), deploymentLabels(second));
+    }
+
+    @Test
+    void reducesTheEstimatedRetainedSize() {
+        var renderings = List.of(helm.template(), helm.template(), helm.template("replicas: 2"));
+        var internedRenderings = renderings.stream().map(interner::intern).toList();
+
+        var retained = ManifestsInterner.estimateRetainedBytes(renderings);
+        var internedRetained = ManifestsInterner.estimateRetainedBytes(internedRenderings);
+
+        assertTrue(internedRetained * 2 < retained, "Expected interning to at least halve " + retained + " bytes, but it retained " + internedRetained + " bytes");
+    }
+
+    @Test
+    void internedYamlIsUnmodifiable() {
+        var interned = interner.intern(helm.template());
+
+        @SuppressWarnings("unchecked")
+        var labels = (Map<String, Object>) deploymentLabels(interned);
+        assertThrows(UnsupportedOperationException.class, () -> labels.put("extra", "label"));
+    }
+
+    @Test
+    void parserCanInternDocumentsAsTheyAreParsed() {
+        var parser = new ManifestsParser().withInterner(interner);
+        var yaml = """
+            ---
+            apiVersion: v1
+            kind: ConfigMap
+            metadata:
+              name: my-config
+            """;
+
+        var first = parser.parse(yaml);
+        var second = parser.parse(yaml);
+
+        assertSame(first.renderedObjects().getFirst().yamlMap().getNested("metadata").orElseThrow(),
+            second.renderedObjects().getFirst().yamlMap().getNested("metadata").orElseThrow());
+    }
+
+    private static Object deploymentLabels(Manifests manifests) {
+        return manifests.renderedObjects().stream()
+            .filter(it -> it.kind().equals("Deployment") && it.name().equals("my-app"))
+            .findFirst()
+            .flatMap(it -> it.yamlMap().getNested("metadata.labels"))
+            .orElseThrow();
+    }
+}
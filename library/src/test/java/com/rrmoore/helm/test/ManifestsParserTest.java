@@ -0,0 +1,73 @@
+package com.rrmoore.helm.test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ManifestsParserTest {
+
+    private static final String YAML = IntStream.range(0, 100)
+        .mapToObj(i -> """
+            ---
+            apiVersion: v1
+            kind: ConfigMap
+            metadata:
+              name: config-%d
+            """.formatted(i))
+        .reduce("", String::concat);
+
+    @Test
+    void parsesDocumentsInParallelAboveTheThreshold() {
+        var tasks = new AtomicInteger();
+        Executor countingExecutor = task -> {
+            tasks.incrementAndGet();
+            ForkJoinPool.commonPool().execute(task);
+        };
+        var parser = new ManifestsParser().withParallelThreshold(YAML.length() / 2).withExecutor(countingExecutor);
+
+        var manifests = parser.parse(YAML);
+
+        assertEquals(100, manifests.objectCount());
+        assertTrue(tasks.get() > 0 && tasks.get() < 100, "Expected only the documents after the threshold to be parsed in parallel, but " + tasks.get() + " were");
+    }
+
+    @Test
+    void keepsTheOrderOfDocumentsWhenParsingInParallel() {
+        var parser = new ManifestsParser().withParallelThreshold(0);
+
+        var manifests = parser.parse(YAML);
+
+        var names = manifests.renderedObjects().stream().map(RenderedKubernetesObject::name).toList();
+        assertEquals(IntStream.range(0, 100).mapToObj(i -> "config-" + i).toList(), names);
+        assertEquals(new ManifestsParser().withParallelThreshold(Long.MAX_VALUE).parse(YAML), manifests);
+    }
+
+    @Test
+    void reportsFailuresFromParallelParsing() {
+        var parser = new ManifestsParser().withParallelThreshold(0);
+
+        var e = assertThrows(RuntimeException.class, () -> parser.parse(YAML + "---\nkind: ConfigMap\n"));
+
+        assertTrue(e.getMessage().startsWith("Rendered YAML document is missing its apiVersion or kind"), e.getMessage());
+    }
+
+    @Test
+    void parsesFiles(@TempDir Path directory) throws IOException {
+        var file = directory.resolve("manifests.yaml");
+        Files.writeString(file, YAML);
+        var emptyFile = Files.createFile(directory.resolve("empty.yaml"));
+
+        assertEquals(new ManifestsParser().parse(YAML), new ManifestsParser().parse(file));
+        assertEquals(0, new ManifestsParser().parse(emptyFile).objectCount());
+    }
+}
@@ -1,12 +1,23 @@
 package com.rrmoore.helm.test;
 
+import io.kubernetes.client.openapi.JSON;
+import io.kubernetes.client.openapi.models.V1ConfigMap;
+import io.kubernetes.client.openapi.models.V1CronJob;
+import io.kubernetes.client.openapi.models.V1Deployment;
+import io.kubernetes.client.util.Yaml;
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
 import kotlin.text.Charsets;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @SuppressWarnings("DataFlowIssue")
 public class ManifestsTest {
@@ -86,6 +97,253 @@ public class ManifestsTest {
         assertEquals("IfNotPresent", mainContainer.getImagePullPolicy());
     }
 
+    @Test
+    void onlySplitsDocumentsOnSeparatorLines() {
+        var yaml = """
+            ---
+            apiVersion: v1
+            kind: ConfigMap
+            metadata:
+              name: separator-tester
+            data:
+              inline: "before---after"
+              block: |
+                first
+                ---
+                second
+            ---
+            apiVersion: v1
+            kind: ConfigMap
+            metadata:
+              name: another-config
+            """;
+
+        var parsed = Manifests.fromYaml(yaml);
+
+        assertEquals("before---after", parsed.getConfigMapValue("separator-tester", "inline"));
+        assertEquals("first\n---\nsecond\n", parsed.getConfigMapValue("separator-tester", "block"));
+        assertEquals("another-config", parsed.getConfigMap("another-config").getMetadata().getName());
+    }
+
+    @Test
+    void parsesTheLeadingDocumentWithoutASeparator() {
+        var yaml = """
+            apiVersion: v1
+            kind: ConfigMap
+            metadata:
+              name: leading-config
+            ---
+            apiVersion: v1
+            kind: ConfigMap
+            metadata:
+              name: another-config
+            """;
+
+        var parsed = Manifests.fromYaml(yaml);
+
+        assertEquals("leading-config", parsed.getConfigMap("leading-config").getMetadata().getName());
+        assertEquals("another-config", parsed.getConfigMap("another-config").getMetadata().getName());
+    }
+
+    @Test
+    void skipsDocumentsWithoutContent() {
+        var yaml = """
+            ---
+            # Source: my-app/templates/empty.yaml
+            ---
+            apiVersion: v1
+            kind: ConfigMap
+            metadata:
+              name: only-config
+            ---
+            """;
+
+        var parsed = Manifests.fromYaml(yaml);
+
+        assertEquals(1, parsed.findAll(it -> true).size());
+        assertEquals("only-config", parsed.getConfigMap("only-config").getMetadata().getName());
+    }
+
+    @Test
+    void canParseFromInputStream() {
+        var yaml = """
+            ---
+            apiVersion: v1
+            kind: ConfigMap
+            metadata:
+              name: streamed-config
+            data:
+              greeting: "héllo"
+            """;
+
+        var parsed = Manifests.fromYaml(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("héllo", parsed.getConfigMapValue("streamed-config", "greeting"));
+    }
+
+    @Test
+    void toleratesKindsWithoutAKubernetesClientModel() {
+        var yaml = """
+            ---
+            apiVersion: example.com/v1
+            kind: Widget
+            metadata:
+              name: my-widget
+              labels:
+                app: my-app
+            spec:
+              size: 3
+            """;
+
+        var parsed = Manifests.fromYaml(yaml);
+
+        var widget = (UntypedKubernetesObject) parsed.getOne("example.com/v1", "Widget", "my-widget");
+        assertEquals("Widget", widget.getKind());
+        assertEquals("my-app", widget.getMetadata().getLabels().get("app"));
+        assertEquals(3, widget.yamlMap().getNested("spec.size").orElseThrow());
+    }
+
+    @Test
+    void onlyBindsKubernetesClientModelsWhenRequested() {
+        var parsed = Manifests.fromYaml("""
+            ---
+            apiVersion: v1
+            kind: ConfigMap
+            metadata:
+              name: first-config
+            ---
+            apiVersion: v1
+            kind: ConfigMap
+            metadata:
+              name: second-config
+            """);
+
+        parsed.getConfigMap("first-config");
+
+        var bound = parsed.renderedObjects().stream().filter(RenderedKubernetesObject::isBound).map(RenderedKubernetesObject::name).toList();
+        assertEquals(List.of("first-config"), bound);
+        assertEquals(2, parsed.findAll("v1", "ConfigMap").size());
+    }
+
+    @Test
+    void bindsTheSameModelsAsLoadingTheYamlText() {
+        var yaml = """
+            ---
+            apiVersion: apps/v1
+            kind: Deployment
+            metadata:
+              name: bound-app
+              labels:
+                app: bound-app
+            spec:
+              replicas: 2
+              selector:
+                matchLabels:
+                  app: bound-app
+              template:
+                metadata:
+                  labels:
+                    app: bound-app
+                spec:
+                  containers:
+                    - name: app
+                      image: nginx:1.16.0
+                      ports:
+                        - containerPort: 80
+                      readinessProbe:
+                        httpGet:
+                          path: /
+                          port: 80
+                      resources:
+                        limits:
+                          cpu: 1
+                          memory: 128Mi
+                        requests:
+                          cpu: 0.5
+                          memory: 64Mi
+            ---
+            apiVersion: v1
+            kind: Secret
+            metadata:
+              name: bound-secret
+            data:
+              password: aHVudGVyMg==
+            """;
+
+        var parsed = Manifests.fromYaml(yaml);
+
+        assertEquals(Yaml.loadAs(yaml.split("---")[1], V1Deployment.class), parsed.getDeployment("bound-app"));
+        assertArrayEquals("hunter2".getBytes(StandardCharsets.UTF_8), parsed.getSecret("bound-secret").getData().get("password"));
+    }
+
+    @Test
+    void bindsTheSameModelsAsLoadingTheYamlTextForTheChart() {
+        // Compared as JSON, because models holding byte arrays, e.g. Secrets, compare the arrays by identity.
+        var gson = JSON.getGson();
+        for (var object : manifests.renderedObjects()) {
+            var model = object.kubernetesObject();
+            if (!(model instanceof UntypedKubernetesObject)) {
+                var loaded = Yaml.loadAs(object.yamlMap().toYaml(), model.getClass());
+                assertEquals(gson.toJson(loaded), gson.toJson(model), object.kind() + " " + object.name());
+            }
+        }
+    }
+
+    @Test
+    void canGetAllObjectsOfAModelClass() {
+        var configMaps = manifests.getAll(V1ConfigMap.class);
+
+        assertEquals(manifests.findAll(it -> it instanceof V1ConfigMap), configMaps);
+        assertEquals(List.of(), manifests.getAll(V1CronJob.class));
+    }
+
+    @Test
+    void canFindObjectsByNamespace() {
+        var parsed = Manifests.fromYaml("""
+            ---
+            apiVersion: v1
+            kind: ConfigMap
+            metadata:
+              name: shared-name
+              namespace: first
+            ---
+            apiVersion: v1
+            kind: ConfigMap
+            metadata:
+              name: shared-name
+              namespace: second
+            """);
+
+        assertEquals("second", parsed.findOne("v1", "ConfigMap", "second", "shared-name").orElseThrow().getMetadata().getNamespace());
+        assertEquals(Optional.empty(), parsed.findOne("v1", "ConfigMap", "third", "shared-name"));
+        assertThrows(IllegalArgumentException.class, () -> parsed.getConfigMap("shared-name"));
+    }
+
+    @Test
+    void canEvaluatePathsAcrossAllObjects() {
+        var parsed = Manifests.fromYaml("""
+            ---
+            apiVersion: v1
+            kind: ConfigMap
+            metadata:
+              name: labelled-config
+              labels:
+                app.kubernetes.io/name: my-app
+            ---
+            apiVersion: v1
+            kind: ConfigMap
+            metadata:
+              name: unlabelled-config
+            """);
+
+        var results = parsed.evaluate("metadata.labels['app.kubernetes.io/name']");
+
+        assertEquals(1, results.size());
+        var result = results.entrySet().iterator().next();
+        assertEquals("labelled-config", result.getKey().name());
+        assertEquals(List.of("my-app"), result.getValue());
+    }
+
     @Test
     void canCompareEqualManifests() {
         var helm = new HelmExecutor(new HelmChart(new File("src/test/resources/my-app")));
@@ -106,4 +364,26 @@ public class ManifestsTest {
         var secondRendering = helm.template(values);
         assertNotEquals(firstRendering, secondRendering);
     }
+
+    @Test
+    void comparesManifestsByTheirObjectsInAnyOrder() {
+        var first = """
+            ---
+            apiVersion: v1
+            kind: ConfigMap
+            metadata:
+              name: first-config
+            """;
+        var second = """
+            ---
+            apiVersion: v1
+            kind: ConfigMap
+            metadata:
+              name: second-config
+            """;
+
+        assertEquals(Manifests.fromYaml(first + second), Manifests.fromYaml(second + first));
+        assertEquals(Manifests.fromYaml(first + second).digest(), Manifests.fromYaml(second + first).digest());
+        assertNotEquals(Manifests.fromYaml(first + second), Manifests.fromYaml(first + second + second));
+    }
 }
@@ -0,0 +1,214 @@
+package com.rrmoore.helm.test;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ReferenceGraphTest {
+
+    private final Manifests manifests = Manifests.fromYaml("""
+        apiVersion: v1
+        kind: ConfigMap
+        metadata:
+          name: config
+        ---
+        apiVersion: v1
+        kind: Secret
+        metadata:
+          name: credentials
+        ---
+        apiVersion: v1
+        kind: Secret
+        metadata:
+          name: unused
+        ---
+        apiVersion: apps/v1
+        kind: Deployment
+        metadata:
+          name: app
+        spec:
+          template:
+            spec:
+              serviceAccountName: default
+              containers:
+                - name: app
+                  envFrom:
+                    - configMapRef:
+                        name: config
+                  env:
+                    - name: PASSWORD
+                      valueFrom:
+                        secretKeyRef:
+                          name: credentials
+                          key: password
+              volumes:
+                - name: data
+                  persistentVolumeClaim:
+                    claimName: data
+        ---
+        apiVersion: batch/v1
+        kind: CronJob
+        metadata:
+          name: backup
+        spec:
+          jobTemplate:
+            spec:
+              template:
+                spec:
+                  containers:
+                    - name: backup
+                      envFrom:
+                        - secretRef:
+                            name: credentials
+        ---
+        apiVersion: networking.k8s.io/v1
+        kind: Ingress
+        metadata:
+          name: app
+        spec:
+          rules:
+            - http:
+                paths:
+                  - path: /
+                    backend:
+                      service:
+                        name: app
+        ---
+        apiVersion: rbac.authorization.k8s.io/v1
+        kind: RoleBinding
+        metadata:
+          name: app
+        roleRef:
+          apiGroup: rbac.authorization.k8s.io
+          kind: ClusterRole
+          name: view
+        """);
+
+    @Test
+    void findsTheReferencesBetweenObjects() {
+        var references = manifests.referenceGraph().references().stream()
+            .map(it -> it.from().kind() + "/" + it.from().name() + " -> " + it.to().kind() + "/" + it.to().name())
+            .sorted()
+            .toList();
+
+        assertEquals(List.of(
+            "CronJob/backup -> Secret/credentials",
+            "Deployment/app -> ConfigMap/config",
+            "Deployment/app -> PersistentVolumeClaim/data",
+            "Deployment/app -> Secret/credentials",
+            "Deployment/app -> ServiceAccount/default",
+            "Ingress/app -> Service/app",
+            "RoleBinding/app -> ClusterRole/view"
+        ), references);
+    }
+
+    @Test
+    void findsDanglingReferencesExceptToImplicitObjects() {
+        var dangling = manifests.referenceGraph().danglingReferences().stream()
+            .map(it -> it.to().kind() + "/" + it.to().name())
+            .toList();
+
+        assertEquals(List.of("PersistentVolumeClaim/data", "Service/app", "ClusterRole/view"), dangling);
+    }
+
+    @Test
+    void findsOrphanedObjects() {
+        var orphans = manifests.referenceGraph().orphans();
+
+        assertEquals(1, orphans.size());
+        assertEquals("unused", orphans.getFirst().name());
+    }
+
+    @Test
+    void findsTheTlsSecretsOfIngresses() {
+        var withTls = Manifests.fromYaml("""
+            apiVersion: v1
+            kind: Secret
+            metadata:
+              name: tls-cert
+            ---
+            apiVersion: networking.k8s.io/v1
+            kind: Ingress
+            metadata:
+              name: app
+            spec:
+              tls:
+                - hosts: [app.example.com]
+                  secretName: tls-cert
+                - hosts: [other.example.com]
+                  secretName: missing-cert
+            """);
+
+        var dangling = withTls.referenceGraph().danglingReferences().stream()
+            .map(it -> it.to().kind() + "/" + it.to().name())
+            .toList();
+
+        assertEquals(List.of("Ingress"), withTls.referenceGraph().referrers("Secret", null, "tls-cert").stream().map(RenderedKubernetesObject::kind).toList());
+        assertEquals(List.of("Secret/missing-cert"), dangling);
+        assertEquals(List.of(), withTls.referenceGraph().orphans());
+    }
+
+    @Test
+    void onlyFindsOrphanedServicesWhichSelectNoWorkload() {
+        var withServices = Manifests.fromYaml("""
+            apiVersion: apps/v1
+            kind: Deployment
+            metadata:
+              name: app
+            spec:
+              template:
+                metadata:
+                  labels:
+                    app: app
+                spec:
+                  containers:
+                    - name: app
+            ---
+            apiVersion: v1
+            kind: Service
+            metadata:
+              name: selects-app
+            spec:
+              selector:
+                app: app
+            ---
+            apiVersion: v1
+            kind: Service
+            metadata:
+              name: selects-nothing
+            spec:
+              selector:
+                app: other
+            ---
+            apiVersion: v1
+            kind: Service
+            metadata:
+              name: external
+            spec:
+              type: ExternalName
+              externalName: example.com
+            """);
+
+        var orphans = withServices.referenceGraph().orphans().stream()
+            .map(RenderedKubernetesObject::name)
+            .toList();
+
+        assertEquals(List.of("selects-nothing"), orphans);
+    }
+
+    @Test
+    void findsTheObjectsWhichUseAnObject() {
+        var users = manifests.referenceGraph().referrers("Secret", null, "credentials").stream()
+            .map(RenderedKubernetesObject::kind)
+            .toList();
+
+        assertEquals(List.of("Deployment", "CronJob"), users);
+    }
+
+    @Test
+    void buildsTheGraphOnce() {
+        assertSame(manifests.referenceGraph(), manifests.referenceGraph());
+    }
+}
@@ -0,0 +1,120 @@
+package com.rrmoore.helm.test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class RenderCacheTest {
+
+    private final RenderCache cache = new RenderCache(2);
+    private final HelmExecutor helm = new HelmExecutor(new HelmChart(new File("src/test/resources/my-app"))).withRenderCache(cache);
+
+    @Test
+    void servesRepeatedRenderingsFromTheCache() {
+        var first = helm.template();
+        var second = helm.template();
+
+        assertEquals(first, second);
+        assertEquals(1, cache.misses());
+        assertEquals(1, cache.hits());
+    }
+
+    @Test
+    void givesEachHitItsOwnKubernetesClientModels() {
+        var first = helm.template();
+        first.getDeployment("my-app").getSpec().setReplicas(5);
+
+        var second = helm.template();
+
+        assertEquals(1, second.getDeployment("my-app").getSpec().getReplicas());
+        assertSame(first.renderedObjects().getFirst().yamlMap(), second.renderedObjects().getFirst().yamlMap());
+        assertEquals(1, cache.hits());
+    }
+
+    @Test
+    void distinguishesRenderingsByValues() {
+        var defaultReplicas = helm.template();
+        var twoReplicas = helm.template("replicas: 2");
+
+        assertEquals(1, defaultReplicas.getDeployment("my-app").getSpec().getReplicas());
+        assertEquals(2, twoReplicas.getDeployment("my-app").getSpec().getReplicas());
+        assertEquals(2, cache.misses());
+        assertEquals(0, cache.hits());
+    }
+
+    @Test
+    void distinguishesRenderingsByValuesOrder() {
+        helm.template(List.of("replicas: 2", "replicas: 3"));
+        var manifests = helm.template(List.of("replicas: 3", "replicas: 2"));
+
+        assertEquals(2, manifests.getDeployment("my-app").getSpec().getReplicas());
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    void sharesRenderingsBetweenExecutors() {
+        var otherHelm = new HelmExecutor(new HelmChart(new File("src/test/resources/my-app"))).withRenderCache(cache);
+
+        helm.template("replicas: 2");
+        otherHelm.template("replicas: 2");
+
+        assertEquals(1, cache.misses());
+        assertEquals(1, cache.hits());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedRendering() {
+        helm.template("replicas: 1");
+        helm.template("replicas: 2");
+        helm.template("replicas: 1");
+        helm.template("replicas: 3");
+        helm.template("replicas: 1");
+        helm.template("replicas: 2");
+
+        assertEquals(2, cache.size());
+        assertEquals(4, cache.misses());
+        assertEquals(2, cache.hits());
+    }
+
+    @Test
+    void rendersConcurrentIdenticalRequestsOnce() throws Exception {
+        var results = new ArrayList<Future<Manifests>>();
+        try (var executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> helm.template("replicas: 4")));
+            }
+        }
+
+        for (Future<Manifests> result : results) {
+            assertEquals(results.getFirst().get(), result.get());
+        }
+        assertEquals(1, cache.misses());
+        assertEquals(7, cache.hits());
+    }
+
+    @Test
+    void doesNotCacheFailedRenderings() {
+        var values = """
+            image:
+              pullPolicy: VeryBad
+            """;
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                helm.template(values);
+                assert false : "Expected an Exception to be thrown, but none was";
+            } catch (Exception e) {
+                // This is expected.
+            }
+        }
+
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.misses());
+    }
+}
@@ -0,0 +1,155 @@
+package com.rrmoore.helm.test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RuleEngineTest {
+
+    private final Manifests manifests = Manifests.fromYaml("""
+        apiVersion: apps/v1
+        kind: Deployment
+        metadata:
+          name: web
+        spec:
+          template:
+            spec:
+              securityContext:
+                runAsNonRoot: true
+              containers:
+                - name: main
+                  image: nginx:1.16.0
+                  resources:
+                    limits:
+                      memory: 128Mi
+                  livenessProbe:
+                    httpGet:
+                      path: /
+                      port: 80
+                  readinessProbe:
+                    httpGet:
+                      path: /
+                      port: 80
+                - name: sidecar
+                  image: registry.example.com:5000/sidecar
+                  securityContext:
+                    runAsNonRoot: false
+        ---
+        apiVersion: batch/v1
+        kind: CronJob
+        metadata:
+          name: backup
+        spec:
+          jobTemplate:
+            spec:
+              template:
+                spec:
+                  initContainers:
+                    - name: wait
+                      image: busybox:latest
+                  containers:
+                    - name: backup
+                      image: backup@sha256:0123456789abcdef
+        """);
+
+    private final RuleEngine engine = new RuleEngine().withRules(
+        Rules.noLatestImageTags(),
+        Rules.resourceLimitsSet(),
+        Rules.probesPresent(),
+        Rules.runAsNonRoot()
+    );
+
+    @Test
+    void reportsViolationsOfBuiltInRules() {
+        var report = engine.evaluate(manifests);
+
+        assertEquals("""
+            Rule 'no-latest-image-tags' is violated by Deployment 'web': Image 'registry.example.com:5000/sidecar' has no tag, so uses the latest tag.
+            Rule 'resource-limits-set' is violated by Deployment 'web': Container 'sidecar' does not set resource limits.
+            Rule 'probes-present' is violated by Deployment 'web': Container 'sidecar' does not set livenessProbe or readinessProbe.
+            Rule 'run-as-non-root' is violated by Deployment 'web': Containers [sidecar] may run as root, because runAsNonRoot is not true for them or their pod.
+            Rule 'no-latest-image-tags' is violated by CronJob 'backup': Image 'busybox:latest' uses the latest tag.
+            Rule 'resource-limits-set' is violated by CronJob 'backup': Container 'backup' does not set resource limits.
+            Rule 'probes-present' is violated by CronJob 'backup': Container 'backup' does not set livenessProbe or readinessProbe.
+            Rule 'run-as-non-root' is violated by CronJob 'backup': Containers [wait, backup] may run as root, because runAsNonRoot is not true for them or their pod.""", report.message());
+        assertEquals(2, report.violations("no-latest-image-tags").size());
+    }
+
+    @Test
+    void checksTheValuesOfASharedPathWithEveryRule() {
+        var evaluations = new AtomicInteger();
+        var countingEngine = new RuleEngine()
+            .withRule(Rule.of("first", Set.of("Deployment"), List.of("metadata.name"), (manifests, object, value) -> {
+                evaluations.incrementAndGet();
+                return null;
+            }))
+            .withRule(Rule.of("second", Set.of("Deployment"), List.of("metadata.name"), (manifests, object, value) ->
+                value.equals("web") ? "Deployment is called web." : null));
+
+        var report = countingEngine.evaluate(manifests);
+
+        assertEquals(1, evaluations.get());
+        assertEquals(1, report.violations().size());
+        assertEquals("second", report.violations().getFirst().rule());
+    }
+
+    @Test
+    void evaluatesInParallelWithTheSameResult() {
+        var yaml = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            yaml.append("""
+                ---
+                apiVersion: apps/v1
+                kind: Deployment
+                metadata:
+                  name: app-%d
+                spec:
+                  template:
+                    spec:
+                      containers:
+                        - name: main
+                          image: app:%s
+                """.formatted(i, i % 3 == 0 ? "latest" : "1.0.0"));
+        }
+        var largeManifests = Manifests.fromYaml(yaml.toString());
+
+        var sequential = engine.evaluate(largeManifests);
+        try (var executor = Executors.newFixedThreadPool(4)) {
+            var parallel = new RuleEngine().withRules(
+                Rules.noLatestImageTags(),
+                Rules.resourceLimitsSet(),
+                Rules.probesPresent(),
+                Rules.runAsNonRoot()
+            ).withExecutor(executor).evaluate(largeManifests);
+
+            assertEquals(sequential, parallel);
+        }
+        assertEquals(67, sequential.violations("no-latest-image-tags").size());
+    }
+
+    @Test
+    void includesChecksumAnnotationVerificationAsARule() {
+        var chartManifests = new HelmExecutor(new HelmChart(new File("src/test/resources/my-app"))).template("""
+            checksumAnnotationTest:
+              staleConfigMapChecksum: true
+            """);
+
+        var report = new RuleEngine().withRule(Rules.checksumAnnotations(ChecksumStrategy.RENDERED_TEMPLATE)).evaluate(chartManifests);
+
+        assertEquals(1, report.violations().size());
+        assertEquals("checksum-annotation-tester", report.violations().getFirst().object().name());
+        assertTrue(report.violations().getFirst().message().contains("has checksum annotation 'checksum/checksum-annotation-tester-config' with value"));
+    }
+
+    @Test
+    void rejectsRulesWithDuplicateNames() {
+        assertThrows(IllegalArgumentException.class, () -> engine.withRule(Rules.probesPresent()));
+    }
+}
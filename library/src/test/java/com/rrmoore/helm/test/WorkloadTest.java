@@ -1,10 +1,13 @@
 package com.rrmoore.helm.test;
 
 import java.io.File;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class WorkloadTest {
@@ -162,4 +165,130 @@ public class WorkloadTest {
         assertTrue(result.message().contains("Workload 'checksum-annotation-tester' is missing checksum annotation for referenced ConfigMap 'checksum-annotation-tester-config'."));
         assertTrue(result.message().contains("Workload 'checksum-annotation-tester' has unnecessary extra checksum annotation 'checksum/checksum-annotation-tester-extra-config'."));
     }
+
+    @Test
+    void verifiesCorrectChecksumValues() {
+        var manifests = helm.template();
+
+        var workload = manifests.getWorkload("Deployment", "checksum-annotation-tester");
+        var result = workload.verifyChecksumAnnotations(manifests, ChecksumStrategy.RENDERED_TEMPLATE);
+        assertTrue(result.success(), result.message());
+    }
+
+    @Test
+    void requiresAChecksumStrategyToVerifyChecksumValues() {
+        var manifests = helm.template();
+
+        var workload = manifests.getWorkload("Deployment", "checksum-annotation-tester");
+        var e = assertThrows(NullPointerException.class, () -> workload.verifyChecksumAnnotations(manifests, null));
+        assertEquals("strategy", e.getMessage());
+    }
+
+    @Test
+    void reportsStaleChecksumValues() {
+        var values = """
+            checksumAnnotationTest:
+              staleConfigMapChecksum: true
+            """;
+        var manifests = helm.template(values);
+
+        var workload = manifests.getWorkload("Deployment", "checksum-annotation-tester");
+        assertTrue(workload.verifyChecksumAnnotations().success());
+        var result = workload.verifyChecksumAnnotations(manifests, ChecksumStrategy.RENDERED_TEMPLATE);
+        assertFalse(result.success());
+        var expected = ChecksumStrategy.sha256sum("""
+            apiVersion: v1
+            kind: ConfigMap
+            metadata:
+              name: checksum-annotation-tester-config
+            data:
+              bucketName: "app-data"
+            """);
+        assertEquals("Workload 'checksum-annotation-tester' has checksum annotation 'checksum/checksum-annotation-tester-config' with value '" + ChecksumStrategy.sha256sum("stale")
+            + "', but expected '" + expected + "' for ConfigMap 'checksum-annotation-tester-config'.", result.message());
+    }
+
+    @Test
+    void computesChecksumsOfDataAsJson() {
+        var manifests = Manifests.fromYaml("""
+            apiVersion: v1
+            kind: ConfigMap
+            metadata:
+              name: config
+            data:
+              url: "https://example.com/?a=1&b=2"
+              bucketName: app-data
+            """);
+
+        var checksums = manifests.checksums(ChecksumStrategy.DATA_JSON);
+
+        assertEquals(ChecksumStrategy.sha256sum("{\"bucketName\":\"app-data\",\"url\":\"https://example.com/?a=1\\u0026b=2\"}"),
+            checksums.get(new ReferenceGraph.ObjectReference("ConfigMap", null, "config")));
+        assertSame(checksums, manifests.checksums(ChecksumStrategy.DATA_JSON));
+    }
+
+    @Test
+    void bindsThePodSpecOfACronJobOnce() {
+        var manifests = Manifests.fromYaml("""
+            apiVersion: batch/v1
+            kind: CronJob
+            metadata:
+              name: backup
+            spec:
+              schedule: "0 0 * * *"
+              jobTemplate:
+                spec:
+                  template:
+                    spec:
+                      initContainers:
+                        - name: wait
+                          image: busybox:1.36
+                      containers:
+                        - name: backup
+                          image: backup:1.0.0
+                          resources:
+                            limits:
+                              cpu: 1
+                          volumeMounts:
+                            - name: data
+                              mountPath: /data
+                      volumes:
+                        - name: data
+                          persistentVolumeClaim:
+                            claimName: data
+            """);
+
+        var workload = manifests.getWorkload("CronJob", "backup");
+        assertEquals("backup:1.0.0", workload.containers().getFirst().getImage());
+        assertEquals("1", workload.containers().getFirst().getResources().getLimits().get("cpu").toSuffixedString());
+        assertEquals("busybox:1.36", workload.initContainers().getFirst().getImage());
+        assertEquals(List.of(), workload.ephemeralContainers());
+        assertEquals("data", workload.volumes().getFirst().getPersistentVolumeClaim().getClaimName());
+        assertSame(workload.podSpec(), workload.podSpec());
+    }
+
+    @Test
+    void verifiesChecksumAnnotationsOfACronJob() {
+        var manifests = Manifests.fromYaml("""
+            apiVersion: batch/v1
+            kind: CronJob
+            metadata:
+              name: backup
+            spec:
+              jobTemplate:
+                spec:
+                  template:
+                    spec:
+                      containers:
+                        - name: backup
+                          image: backup:1.0.0
+                          envFrom:
+                            - secretRef:
+                                name: credentials
+            """);
+
+        var result = manifests.getWorkload("CronJob", "backup").verifyChecksumAnnotations();
+        assertFalse(result.success());
+        assertEquals("Workload 'backup' is missing checksum annotation for referenced Secret 'credentials'.", result.message());
+    }
 }
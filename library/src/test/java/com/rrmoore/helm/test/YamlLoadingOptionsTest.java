@@ -0,0 +1,71 @@
+package com.rrmoore.helm.test;
+
+import com.rrmoore.helm.test.internal.jdkext.YamlMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class YamlLoadingOptionsTest {
+
+    private static final String LARGE_CONFIG_MAP = """
+        ---
+        apiVersion: v1
+        kind: ConfigMap
+        metadata:
+          name: dashboards
+        data:
+          dashboard.json: "%s"
+        """.formatted("x".repeat(4 * 1024 * 1024));
+
+    @AfterEach
+    void afterEach() {
+        YamlLoadingOptions.setDefault(YamlLoadingOptions.snakeYamlDefaults());
+    }
+
+    @Test
+    void largeTrustedOutputAcceptsDocumentsBeyondTheDefaultCodePointLimit() {
+        assertThrows(RuntimeException.class, () -> new ManifestsParser().parse(LARGE_CONFIG_MAP));
+
+        var manifests = new ManifestsParser().withYamlLoadingOptions(YamlLoadingOptions.largeTrustedOutput()).parse(LARGE_CONFIG_MAP);
+
+        // The typed getter binds the ConfigMap from the tree loaded with these options, rather than loading it again.
+        assertEquals(4 * 1024 * 1024, manifests.getConfigMapValue("dashboards", "dashboard.json").length());
+    }
+
+    @Test
+    void strictRejectsDuplicateKeysAndAliases() {
+        var parser = new ManifestsParser().withYamlLoadingOptions(YamlLoadingOptions.strict());
+
+        assertThrows(RuntimeException.class, () -> parser.parse("""
+            ---
+            apiVersion: v1
+            kind: ConfigMap
+            kind: Secret
+            """));
+        assertThrows(RuntimeException.class, () -> parser.parse("""
+            ---
+            apiVersion: v1
+            kind: ConfigMap
+            metadata: &metadata
+              name: first
+            spec:
+              template:
+                metadata: *metadata
+            """));
+    }
+
+    @Test
+    void theDefaultAppliesToYamlMap() {
+        YamlLoadingOptions.setDefault(YamlLoadingOptions.strict());
+
+        assertThrows(RuntimeException.class, () -> new YamlMap("key: first\nkey: second\n"));
+    }
+
+    @Test
+    void rejectsInvalidLimits() {
+        assertThrows(IllegalArgumentException.class, () -> YamlLoadingOptions.strict().withNestingDepthLimit(0));
+        assertThrows(IllegalArgumentException.class, () -> YamlLoadingOptions.strict().withMaxAliasesForCollections(-1));
+    }
+}
@@ -0,0 +1,50 @@
+package com.rrmoore.helm.test.internal.gotemplate;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class GoYamlTest {
+
+    @Test
+    void loadsNumbersAsFloatsAndTimestampsAsStrings() {
+        var loaded = GoYaml.load("""
+            replicas: 2
+            date: 2024-01-02
+            """);
+
+        assertEquals(Map.of("replicas", 2.0, "date", "2024-01-02"), loaded);
+    }
+
+    @Test
+    void marshalsLikeToYaml() {
+        var value = Map.of(
+            "b", List.of(1.0, "x"),
+            "a", Map.of("c", "multi\nline\n"),
+            "d", "true",
+            "e", "");
+
+        assertEquals("""
+            a:
+              c: |
+                multi
+                line
+            b:
+            - 1
+            - x
+            d: "true"
+            e: \"\"""", GoYaml.marshal(value));
+    }
+
+    @Test
+    void marshalsSequencesOfMaps() {
+        var value = List.of(Map.of("name", "a", "port", 80.0), Map.of("name", "b"));
+
+        assertEquals("""
+            - name: a
+              port: 80
+            - name: b""", GoYaml.marshal(value));
+    }
+}
@@ -0,0 +1,96 @@
+package com.rrmoore.helm.test.internal.gotemplate;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TemplatesTest {
+
+    @Test
+    void trimsWhitespaceAroundTrimMarkers() {
+        assertEquals("a1b", execute("a  {{- 1 -}}  \n b", null));
+    }
+
+    @Test
+    void chainsElseIf() {
+        var template = "{{ if .x }}x{{ else if .y }}y{{ else }}z{{ end }}";
+
+        assertEquals("y", execute(template, Map.of("y", true)));
+        assertEquals("z", execute(template, Map.of()));
+    }
+
+    @Test
+    void rangesOverMapsInKeyOrder() {
+        var template = "{{ range $k, $v := . }}{{ $k }}={{ $v }};{{ end }}";
+
+        assertEquals("a=1;b=2;", execute(template, Map.of("b", 2.0, "a", 1.0)));
+    }
+
+    @Test
+    void breaksOutOfRange() {
+        var template = "{{ range . }}{{ if eq . 3 }}{{ break }}{{ end }}{{ . }}{{ end }}";
+
+        assertEquals("12", execute(template, List.of(1L, 2L, 3L, 4L)));
+    }
+
+    @Test
+    void includesDefinedTemplates() {
+        var template = """
+            {{- define "x" }}a: {{ . }}{{ end -}}
+            b:{{ include "x" "c" | nindent 2 }}""";
+
+        assertEquals("b:\n  a: c", execute(template, null));
+    }
+
+    @Test
+    void printsNoValueForMissingKeys() {
+        assertEquals("<no value>", execute("{{ .missing }}", Map.of()));
+        assertEquals("<no value>", execute("{{ (.a.b).c }}", Map.of("a", Map.of())));
+    }
+
+    @Test
+    void failsToEvaluateFieldsOfMissingKeys() {
+        var e = assertThrows(TemplateException.class, () -> execute("{{ .a.b.c }}", Map.of("a", Map.of())));
+
+        assertThat(e.getMessage(), containsString("nil pointer evaluating interface {}.c"));
+    }
+
+    @Test
+    void printsFloatsLikeGo() {
+        assertEquals("1.5 1e+06 100000", execute("{{ 1.5 }} {{ 1e6 }} {{ .n }}", Map.of("n", 100000.0)));
+    }
+
+    @Test
+    void failsToCompareIntsWithFloats() {
+        var e = assertThrows(TemplateException.class, () -> execute("{{ eq .n 1 }}", Map.of("n", 1.0)));
+
+        assertThat(e.getMessage(), containsString("error calling eq: incompatible types for comparison"));
+    }
+
+    @Test
+    void callsFunctions() {
+        assertEquals("1,2,3", execute("{{ list 1 2 3 | join \",\" }}", null));
+        assertEquals("\"HELLO\"", execute("{{ \"hello\" | upper | quote }}", null));
+        assertEquals("x", execute("{{ .missing | default \"x\" }}", Map.of()));
+        assertEquals("a-00042", execute("{{ printf \"%s-%05d\" \"a\" 42 }}", null));
+        assertEquals("b", execute("{{ tpl \"{{ .a }}\" . }}", Map.of("a", "b")));
+    }
+
+    @Test
+    void failsWithTheMessageOfRequired() {
+        var e = assertThrows(TemplateException.class, () -> execute("{{ required \"x is required\" .x }}", Map.of()));
+
+        assertEquals("execution error at (test:1): x is required", e.getMessage());
+    }
+
+    private static String execute(String template, Object data) {
+        var templates = new Templates();
+        templates.parse("test", template);
+        return templates.execute("test", data);
+    }
+}
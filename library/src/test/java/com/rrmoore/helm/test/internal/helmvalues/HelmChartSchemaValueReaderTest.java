@@ -63,6 +63,7 @@ public class HelmChartSchemaValueReaderTest {
             "checksumAnnotationTest.missingImagePullSecretAnnotation",
             "checksumAnnotationTest.missingSecretVolumeAnnotation",
             "checksumAnnotationTest.noAnnotations",
+            "checksumAnnotationTest.staleConfigMapChecksum",
             "checksumAnnotationTest.unnecessaryExtraResourceAnnotation",
             "config2.enabled",
             "deeply.nested.value.here",
@@ -71,6 +72,7 @@ public class HelmChartSchemaValueReaderTest {
             "edge.useFeature",
             "equalityTesting.useRandomSecret",
             "image.pullPolicy",
+            "largeOutputTest.configMapCount",
             "replicas",
             "with_underscore"
         )), values);
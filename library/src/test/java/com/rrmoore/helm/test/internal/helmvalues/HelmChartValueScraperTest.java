@@ -23,6 +23,7 @@ class HelmChartValueScraperTest {
             "checksumAnnotationTest.missingImagePullSecretAnnotation",
             "checksumAnnotationTest.missingSecretVolumeAnnotation",
             "checksumAnnotationTest.noAnnotations",
+            "checksumAnnotationTest.staleConfigMapChecksum",
             "checksumAnnotationTest.unnecessaryExtraResourceAnnotation",
             "config2.enabled",
             "deeply.nested.value.here",
@@ -31,6 +32,7 @@ class HelmChartValueScraperTest {
             "edge.useFeature",
             "equalityTesting.useRandomSecret",
             "image.pullPolicy",
+            "largeOutputTest.configMapCount",
             "replicas",
             "with_underscore"
         )), values);
@@ -0,0 +1,29 @@
+package com.rrmoore.helm.test.internal.jdkext;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class GoJsonTest {
+
+    @Test
+    void ordersMapEntriesByKey() {
+        var yamlMap = new YamlMap("""
+            b: 1
+            a: [x, {d: true, c: null}]
+            """);
+
+        assertEquals("{\"a\":[\"x\",{\"c\":null,\"d\":true}],\"b\":1}", GoJson.encode(yamlMap.tree()));
+    }
+
+    @Test
+    void escapesStringsLikeGo() {
+        assertEquals("\"\\u003ca href=\\\"x\\\"\\u003e\\u0026\\n\\t\\u0001\"", GoJson.encode("<a href=\"x\">&\n\t\u0001"));
+    }
+
+    @Test
+    void formatsFloatsLikeGo() {
+        assertEquals("[1.5,100,1e+21,1e-07,-2.5e-08]", GoJson.encode(Arrays.asList(1.5, 100.0, 1e21, 1e-7, -2.5e-8)));
+    }
+}
@@ -0,0 +1,30 @@
+package com.rrmoore.helm.test.internal.jdkext;
+
+import io.kubernetes.client.openapi.models.V1ConfigMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ModelBindingTest {
+
+    @Test
+    void bindsUnquotedTimestampsAsIsoStrings() {
+        var yaml = new YamlMap("""
+            apiVersion: v1
+            kind: ConfigMap
+            metadata:
+              name: dated
+              annotations:
+                released: 2024-01-02
+                restartedAt: 2024-01-02T03:04:05+01:00
+            data:
+              quoted: "2024-01-02"
+            """);
+
+        var configMap = ModelBinding.bind(yaml, V1ConfigMap.class);
+
+        assertEquals(Map.of("released", "2024-01-02T00:00:00Z", "restartedAt", "2024-01-02T02:04:05Z"), configMap.getMetadata().getAnnotations());
+        assertEquals(Map.of("quoted", "2024-01-02"), configMap.getData());
+    }
+}
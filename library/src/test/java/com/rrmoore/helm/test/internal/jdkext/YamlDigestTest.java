@@ -0,0 +1,45 @@
+package com.rrmoore.helm.test.internal.jdkext;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class YamlDigestTest {
+
+    @Test
+    void doesNotDependOnTheOrderOfMapEntries() {
+        var first = new YamlMap("""
+            a: 1
+            b: [x, {c: d, e: f}]
+            """);
+        var second = new YamlMap("""
+            b: [x, {e: f, c: d}]
+            a: 1
+            """);
+
+        assertEquals(first.digest(), second.digest());
+    }
+
+    @Test
+    void doesNotDependOnTheOrderOfMapEntriesWithKeysOfDifferentTypes() {
+        assertEquals(new YamlMap("a: {1: x, b: y, true: z, [c]: w}").digest(), new YamlMap("a: {[c]: w, true: z, b: y, 1: x}").digest());
+    }
+
+    @Test
+    void dependsOnTheOrderOfListElements() {
+        assertNotEquals(new YamlMap("a: [x, y]").digest(), new YamlMap("a: [y, x]").digest());
+    }
+
+    @Test
+    void distinguishesScalarTypes() {
+        assertNotEquals(new YamlMap("a: 1").digest(), new YamlMap("a: '1'").digest());
+        assertNotEquals(new YamlMap("a: true").digest(), new YamlMap("a: 'true'").digest());
+        assertNotEquals(new YamlMap("a: null").digest(), new YamlMap("a: '~'").digest());
+    }
+
+    @Test
+    void distinguishesTheBoundariesBetweenValues() {
+        assertNotEquals(new YamlMap("a: [xy, z]").digest(), new YamlMap("a: [x, yz]").digest());
+    }
+}
@@ -1,10 +1,16 @@
 package com.rrmoore.helm.test.internal.jdkext;
 
 import com.rrmoore.helm.test.internal.jdkext.YamlMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class YamlMapTest {
 
@@ -92,4 +98,45 @@ public class YamlMapTest {
         var templateMetadata = unit.getNestedObject("spec.template.metadata").orElseThrow();
         assertEquals("gym-register-app", templateMetadata.getNestedString("labels.appName").orElseThrow());
     }
+
+    @Test
+    void nestedAccessReturnsViewsOfTheSameTree() {
+        assertSame(unit.getNestedList("spec.template.spec.containers").orElseThrow(), unit.getNestedList("spec.template.spec.containers").orElseThrow());
+        assertSame(unit.getNested("spec.template.metadata.labels").orElseThrow(),
+            unit.getNestedObject("spec.template.metadata").orElseThrow().getNested("labels").orElseThrow());
+    }
+
+    @Test
+    void isDeeplyImmutable() {
+        @SuppressWarnings("unchecked")
+        var labels = (Map<String, Object>) unit.getNested("metadata.labels").orElseThrow();
+        var containers = unit.getNestedList("spec.template.spec.containers").orElseThrow();
+
+        assertThrows(UnsupportedOperationException.class, () -> labels.put("extra", "label"));
+        assertThrows(UnsupportedOperationException.class, () -> containers.add(Map.of()));
+        assertSame(unit, unit.immutableCopy());
+    }
+
+    @Test
+    void copiesObjectsItDoesNotOwn() {
+        var object = new HashMap<String, Object>(Map.of("list", new ArrayList<>(List.of("first"))));
+
+        var yamlMap = new YamlMap(object);
+        //noinspection unchecked
+        ((List<Object>) object.get("list")).add("second");
+
+        assertEquals(List.of("first"), yamlMap.get("list"));
+    }
+
+    @Test
+    void canParseAliases() {
+        var yamlMap = new YamlMap("""
+            base: &base
+              x: [1, 2]
+            other: *base
+            """);
+
+        assertEquals(yamlMap.get("base"), yamlMap.get("other"));
+        assertEquals(yamlMap.hashCode(), new YamlMap("base: {x: [1, 2]}\nother: {x: [1, 2]}").hashCode());
+    }
 }
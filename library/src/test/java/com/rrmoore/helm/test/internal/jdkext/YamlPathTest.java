@@ -0,0 +1,94 @@
+package com.rrmoore.helm.test.internal.jdkext;
+
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class YamlPathTest {
+
+    private final YamlMap unit = new YamlMap("""
+        metadata:
+          name: my-app
+          annotations:
+            checksum/config: abc123
+          labels:
+            app.kubernetes.io/name: my-app
+        spec:
+          template:
+            spec:
+              containers:
+                - name: main
+                  env:
+                    - name: FIRST
+                      value: "1"
+                    - name: SECOND
+                      valueFrom:
+                        configMapKeyRef:
+                          name: my-config
+                - name: sidecar
+                  env:
+                    - name: THIRD
+                      valueFrom:
+                        secretKeyRef:
+                          name: my-secret
+        """);
+
+    @Test
+    void canSelectKeys() {
+        assertEquals("my-app", YamlPath.compile("metadata.name").get(unit));
+        assertNull(YamlPath.compile("metadata.namespace").get(unit));
+        assertNull(YamlPath.compile("metadata.name.first").get(unit));
+    }
+
+    @Test
+    void canSelectQuotedKeys() {
+        assertEquals("abc123", YamlPath.compile("metadata.annotations[\"checksum/config\"]").get(unit));
+        assertEquals("my-app", YamlPath.compile("metadata.labels['app.kubernetes.io/name']").get(unit));
+    }
+
+    @Test
+    void canSelectListIndices() {
+        assertEquals("sidecar", YamlPath.compile("spec.template.spec.containers[1].name").get(unit));
+        assertNull(YamlPath.compile("spec.template.spec.containers[2].name").get(unit));
+        assertNull(YamlPath.compile("metadata[0]").get(unit));
+    }
+
+    @Test
+    void canSelectWithWildcards() {
+        var path = YamlPath.compile("spec.template.spec.containers[*].env[*].name");
+
+        assertFalse(path.isDefinite());
+        assertEquals(List.of("FIRST", "SECOND", "THIRD"), path.getAll(unit));
+        assertEquals("FIRST", path.get(unit));
+        assertEquals(List.of("my-config", "my-secret"), YamlPath.compile("spec.template.spec.containers[*].env[*].valueFrom[*].name").getAll(unit));
+    }
+
+    @Test
+    void canSelectFromYamlMap() {
+        assertEquals(Optional.of("main"), unit.getNested(YamlPath.compile("spec.template.spec.containers[0].name")));
+    }
+
+    @Test
+    void rejectsInvalidPaths() {
+        for (String invalid : List.of("metadata..name", "containers[", "containers[x]", "labels['app", "metadata]")) {
+            var e = assertThrows(IllegalArgumentException.class, () -> YamlPath.compile(invalid));
+            assertTrue(e.getMessage().startsWith("Invalid YAML path '" + invalid + "'"), e.getMessage());
+        }
+    }
+
+    @Test
+    void reusesCachedCompilations() {
+        var first = YamlPath.compileCached("metadata.labels['app.kubernetes.io/name']");
+        var second = YamlPath.compileCached("metadata.labels['app.kubernetes.io/name']");
+
+        assertSame(first, second);
+        assertEquals("my-app", second.get(unit));
+    }
+}
@@ -0,0 +1,43 @@
+package com.rrmoore.helm.test.internal.jdkext;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class YamlTreeInternerTest {
+
+    private final YamlTreeInterner interner = new YamlTreeInterner();
+
+    @Test
+    void sharesEqualSubtrees() {
+        var first = (Map<?, ?>) interner.intern(new YamlMap("a: {b: [1, x]}\nc: 2").tree());
+        var second = (Map<?, ?>) interner.intern(new YamlMap("a: {b: [1, x]}\nc: 3").tree());
+
+        assertSame(first.get("a"), second.get("a"));
+    }
+
+    @Test
+    void keepsTheOrderOfNestedMapEntries() {
+        var first = (Map<?, ?>) interner.intern(new YamlMap("outer: {a: 1, b: 2}").tree());
+        var second = (Map<?, ?>) interner.intern(new YamlMap("outer: {b: 2, a: 1}").tree());
+
+        assertNotSame(first, second);
+        assertEquals(List.of("a", "b"), List.copyOf(((Map<?, ?>) first.get("outer")).keySet()));
+        assertEquals(List.of("b", "a"), List.copyOf(((Map<?, ?>) second.get("outer")).keySet()));
+    }
+
+    @Test
+    void keepsTheOrderOfMapEntriesWithinLists() {
+        var first = (Map<?, ?>) interner.intern(new YamlMap("items: [{a: 1, b: 2}]").tree());
+        var second = (Map<?, ?>) interner.intern(new YamlMap("items: [{b: 2, a: 1}]").tree());
+
+        var firstItem = (Map<?, ?>) ((List<?>) first.get("items")).getFirst();
+        var secondItem = (Map<?, ?>) ((List<?>) second.get("items")).getFirst();
+        assertEquals(List.of("a", "b"), List.copyOf(firstItem.keySet()));
+        assertEquals(List.of("b", "a"), List.copyOf(secondItem.keySet()));
+    }
+}
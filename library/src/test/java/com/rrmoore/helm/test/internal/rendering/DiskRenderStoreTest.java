@@ -0,0 +1,105 @@
+package com.rrmoore.helm.test.internal.rendering;
+
+import com.rrmoore.helm.test.Manifests;
+import com.rrmoore.helm.test.ManifestsParser;
+import com.rrmoore.helm.test.YamlLoadingOptions;
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DiskRenderStoreTest {
+
+    private static final String CONFIG_MAP_YAML = """
+        ---
+        apiVersion: v1
+        kind: ConfigMap
+        metadata:
+          name: my-config
+        data:
+          key: value
+        """;
+
+    private static final ManifestsParser PARSER = new ManifestsParser();
+
+    @TempDir
+    private Path directory;
+
+    private final AtomicInteger renderCount = new AtomicInteger();
+
+    @Test
+    void rendersMissingEntries() {
+        var store = new DiskRenderStore(directory);
+
+        var manifests = store.get("abc", PARSER, this::render);
+
+        assertEquals("value", manifests.getConfigMapValue("my-config", "key"));
+        assertEquals(1, renderCount.get());
+        assertTrue(Files.isRegularFile(directory.resolve("abc.yaml")));
+    }
+
+    @Test
+    void readsExistingEntriesWithoutRendering() {
+        new DiskRenderStore(directory).get("abc", PARSER, this::render);
+
+        var manifests = new DiskRenderStore(directory).get("abc", PARSER, this::render);
+
+        assertEquals("value", manifests.getConfigMapValue("my-config", "key"));
+        assertEquals(1, renderCount.get());
+    }
+
+    @Test
+    void readsExistingEntriesWithTheProvidedParser() throws Exception {
+        Files.writeString(directory.resolve("abc.yaml"), CONFIG_MAP_YAML + "kind: ConfigMap\n");
+        var strictParser = new ManifestsParser().withYamlLoadingOptions(YamlLoadingOptions.strict());
+
+        assertThrows(RuntimeException.class, () -> new DiskRenderStore(directory).get("abc", strictParser, this::render));
+        assertEquals("value", new DiskRenderStore(directory).get("abc", PARSER, this::render).getConfigMapValue("my-config", "key"));
+        assertEquals(0, renderCount.get());
+    }
+
+    @Test
+    void rendersConcurrentRequestsForTheSameEntryOnce() {
+        try (var executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                executor.submit(() -> new DiskRenderStore(directory).get("abc", PARSER, this::render));
+            }
+        }
+
+        assertEquals(1, renderCount.get());
+    }
+
+    @Test
+    void doesNotStoreFailedRenderings() {
+        var store = new DiskRenderStore(directory);
+
+        try {
+            store.get("abc", PARSER, outputTee -> {
+                Manifests.fromYaml(outputTee.apply(new BufferedReader(new StringReader(CONFIG_MAP_YAML))));
+                throw new RuntimeException("helm failed");
+            });
+            assert false : "Expected an Exception to be thrown, but none was";
+        } catch (RuntimeException e) {
+            assertEquals("helm failed", e.getMessage());
+        }
+
+        assertFalse(Files.exists(directory.resolve("abc.yaml")));
+        store.get("abc", PARSER, this::render);
+        assertEquals(1, renderCount.get());
+    }
+
+    private Manifests render(UnaryOperator<BufferedReader> outputTee) {
+        renderCount.incrementAndGet();
+        return Manifests.fromYaml(outputTee.apply(new BufferedReader(new StringReader(CONFIG_MAP_YAML))));
+    }
+}
@@ -0,0 +1,44 @@
+package com.rrmoore.helm.test.internal.rendering;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class RenderFingerprintTest {
+
+    @TempDir
+    private Path chart;
+
+    @Test
+    void isStableForAnUnchangedChart() throws Exception {
+        Files.writeString(chart.resolve("Chart.yaml"), "name: my-chart\n");
+
+        assertEquals(RenderFingerprint.of("helm", chart.toFile(), List.of("a: 1")), RenderFingerprint.of("helm", chart.toFile(), List.of("a: 1")));
+    }
+
+    @Test
+    void changesWhenAChartFileChanges() throws Exception {
+        Files.writeString(chart.resolve("Chart.yaml"), "name: my-chart\n");
+        var before = RenderFingerprint.of("helm", chart.toFile(), List.of());
+
+        Files.writeString(chart.resolve("Chart.yaml"), "name: my-renamed-chart\n");
+
+        assertNotEquals(before, RenderFingerprint.of("helm", chart.toFile(), List.of()));
+    }
+
+    @Test
+    void changesWhenAChartFileIsAdded() throws Exception {
+        Files.writeString(chart.resolve("Chart.yaml"), "name: my-chart\n");
+        var before = RenderFingerprint.of("helm", chart.toFile(), List.of());
+
+        Files.createDirectories(chart.resolve("templates"));
+        Files.writeString(chart.resolve("templates/configmap.yaml"), "kind: ConfigMap\n");
+
+        assertNotEquals(before, RenderFingerprint.of("helm", chart.toFile(), List.of()));
+    }
+}
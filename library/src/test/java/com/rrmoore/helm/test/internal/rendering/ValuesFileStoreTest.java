@@ -0,0 +1,57 @@
+package com.rrmoore.helm.test.internal.rendering;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class ValuesFileStoreTest {
+
+    @Test
+    void writesValuesToFile() throws IOException {
+        try (var store = new ValuesFileStore()) {
+            var file = store.fileFor("replicas: 2");
+
+            assertEquals("replicas: 2", Files.readString(file));
+        }
+    }
+
+    @Test
+    void reusesFilesForIdenticalValues() {
+        try (var store = new ValuesFileStore()) {
+            var first = store.fileFor("replicas: 2");
+            var second = store.fileFor("replicas: 2");
+            var other = store.fileFor("replicas: 3");
+
+            assertEquals(first, second);
+            assertNotEquals(first, other);
+            assertEquals(first.getParent(), other.getParent());
+        }
+    }
+
+    @Test
+    void deletesFilesWhenClosed() {
+        var store = new ValuesFileStore();
+        var file = store.fileFor("replicas: 2");
+
+        store.close();
+
+        assertFalse(Files.exists(file));
+        assertFalse(Files.exists(file.getParent()));
+    }
+
+    @Test
+    void canBeUsedAfterClosing() throws IOException {
+        var store = new ValuesFileStore();
+        store.fileFor("replicas: 2");
+        store.close();
+
+        var file = store.fileFor("replicas: 2");
+
+        assertEquals("replicas: 2", Files.readString(file));
+        store.close();
+    }
+}
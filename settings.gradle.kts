@@ -14,3 +14,4 @@ develocity {
 
 include(":library")
 include(":example")
+include(":benchmarks")